@@ -61,6 +61,8 @@ public class Client {
                 for (byte[] bytes : command) {
                     output.write(bytes);
                 }
+                // connection is persistent, close output to let server close the connection after response
+                socket.shutdownOutput();
                 data.add(ClientMeasureCollector.FIELD_NAME_SEND);
                 readResult(input);
                 data.add(ClientMeasureCollector.FIELD_NAME_READ);
@@ -0,0 +1,145 @@
+package com.codeloam.memory.store;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.command.CommandFactory;
+import com.codeloam.memory.store.command.SimpleCommand;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.database.Database;
+import com.codeloam.memory.store.database.DatabaseFactory;
+import com.codeloam.memory.store.database.DatabaseType;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput of GET and SET executed by databases directly from multiple threads, without network.
+ *
+ * <p>{@link #main(String[])} runs the benchmark with 1, 2, 4... threads up to the number of cores,
+ * and prints throughput of each thread count, so it shows how a database scales with cores.
+ * A database that is not thread safe is protected by a lock, as servers do.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DatabaseBenchmark {
+    private static final int KEY_COUNT = 1 << 16;
+
+    @Param({"Simple", "Sharded", "Concurrent"})
+    private String type;
+
+    private Database database;
+    /**
+     * Lock of a database that is not thread safe, otherwise null.
+     */
+    private Lock lock;
+    private Command[] getCommands;
+    private Command[] setCommands;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        database = DatabaseFactory.create(DatabaseType.valueOf(type));
+        lock = database.isThreadSafe() ? null : new ReentrantLock();
+        getCommands = new Command[KEY_COUNT];
+        setCommands = new Command[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; ++i) {
+            ByteWord key = ByteWord.create("key" + i);
+            getCommands[i] = new SimpleCommand(CommandFactory.STRING_COMMAND_GET, DataType.String, key, null, null);
+            setCommands[i] = new SimpleCommand(CommandFactory.STRING_COMMAND_SET, DataType.String, key,
+                    List.of(ByteWord.create("value" + i)), null);
+            database.execute(setCommands[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    /**
+     * Index of next key of each thread.
+     */
+    @State(Scope.Thread)
+    public static class KeyIndex {
+        private int index = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+
+        int next() {
+            index = (index + 1) & (KEY_COUNT - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    public NetworkData get(KeyIndex keyIndex) {
+        return execute(getCommands[keyIndex.next()]);
+    }
+
+    @Benchmark
+    public NetworkData set(KeyIndex keyIndex) {
+        return execute(setCommands[keyIndex.next()]);
+    }
+
+    private NetworkData execute(Command command) {
+        if (lock == null) {
+            return database.execute(command);
+        }
+        lock.lock();
+        try {
+            return database.execute(command);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        StringBuilder report = new StringBuilder(String.format("%-8s %-12s %-6s %16s%n",
+                "threads", "database", "op", "ops/s"));
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            Options options = new OptionsBuilder()
+                    .include(DatabaseBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                String label = result.getParams().getBenchmark();
+                report.append(String.format("%-8d %-12s %-6s %16.0f%n", threads,
+                        result.getParams().getParam("type"), label.substring(label.lastIndexOf('.') + 1),
+                        result.getPrimaryResult().getScore()));
+            }
+            if (threads == cores) {
+                break;
+            }
+        }
+        System.out.println(report);
+    }
+}
@@ -1,5 +1,6 @@
 package com.codeloam.memory.store;
 
+import com.codeloam.memory.store.database.DatabaseType;
 import com.codeloam.memory.store.network.Server;
 import com.codeloam.memory.store.network.ServerFactory;
 import org.apache.commons.cli.CommandLine;
@@ -22,9 +23,17 @@ public class Main {
         options.addOption("h", "host", true, "listening host, default localhost");
         options.addOption("p", "port", true, "listening port, default 3128");
         options.addOption("nio", "use-nio", false, "use NIO");
+        options.addOption("mr", "multi-reactor", false, "use one acceptor and a reactor per core to handle sockets");
+        options.addOption("rp", "reuse-port", false,
+                "use a SO_REUSEPORT server socket per reactor to accept connections, implies multi-reactor");
         options.addOption("mt", "multi-thread", false, "use multiple thread to read data from socket");
         options.addOption("vt", "virtual-thread", false, "use virtual thread to read data from socket, only available since JDK 19");
+        options.addOption("vb", "virtual-blocking", false,
+                "use a virtual thread per connection with blocking I/O, only available since JDK 19");
         options.addOption("wa", "write-async", false, "use multiple thread to write data to socket");
+        options.addOption("s", "unix-socket", true,
+                "also listen on the unix domain socket with given path, only for NIO servers");
+        options.addOption("d", "database", true, "database type, simple, sharded or concurrent, default simple");
 
         Server server = null;
         try {
@@ -38,10 +47,16 @@ public class Main {
             }
             boolean writeAsync = commandLine.hasOption("write-async");
             boolean useNio = commandLine.hasOption("use-nio");
+            boolean multiReactor = commandLine.hasOption("multi-reactor");
+            boolean reusePort = commandLine.hasOption("reuse-port");
             boolean multiThread = commandLine.hasOption("multi-thread");
             boolean virtualThread = commandLine.hasOption("virtual-thread");
+            boolean virtualBlocking = commandLine.hasOption("virtual-blocking");
+            String unixSocket = commandLine.getOptionValue("unix-socket");
+            DatabaseType type = getDatabaseType(commandLine.getOptionValue("database", "simple"));
 
-            server = ServerFactory.create(host, port, writeAsync, multiThread, virtualThread, useNio);
+            server = ServerFactory.create(host, port, writeAsync, multiReactor, reusePort, multiThread,
+                    virtualThread, virtualBlocking, useNio, unixSocket, type);
             server.start();
         } catch (ParseException e) {
             e.printStackTrace();
@@ -55,4 +70,13 @@ public class Main {
             }
         }
     }
+
+    private static DatabaseType getDatabaseType(String name) {
+        for (DatabaseType type : DatabaseType.values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid database type " + name);
+    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.network.ByteWord;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -39,6 +40,31 @@ public abstract class Command {
      */
     public abstract List<ByteWord> getValues();
 
+    /**
+     * Get number of values.
+     *
+     * @return number of values, 0 if there is no value
+     */
+    public int getValueCount() {
+        List<ByteWord> values = getValues();
+        return values == null ? 0 : values.size();
+    }
+
+    /**
+     * Get a value, it does not create a list as {@link #getValues()} may do.
+     *
+     * @param index index of value
+     * @return value
+     * @throws IndexOutOfBoundsException if index is not less than {@link #getValueCount()}
+     */
+    public ByteWord getValue(int index) {
+        List<ByteWord> values = getValues();
+        if (values == null) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return values.get(index);
+    }
+
     /**
      * Get command option value.
      *
@@ -57,6 +83,13 @@ public abstract class Command {
      */
     public abstract boolean hasOption(String optionName);
 
+    /**
+     * Get all options, it's mainly used to compare and print commands.
+     *
+     * @return options, or null if there is no option
+     */
+    public abstract Map<String, ByteWord> getOptions();
+
     public DataType getDataType() {
         return dataType;
     }
@@ -65,6 +98,15 @@ public abstract class Command {
         return name;
     }
 
+    /**
+     * Whether values of the command are keys too, a database that locks or routes by key must handle all of them.
+     *
+     * @return true if values are keys
+     */
+    public boolean isMultiKey() {
+        return false;
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -74,11 +116,15 @@ public abstract class Command {
         if (!(o instanceof Command command)) {
             return false;
         }
-        return Objects.equals(name, command.name);
+        // commands with the same content are equal, no matter how they are stored
+        return Objects.equals(name, command.name)
+                && Objects.equals(getKey(), command.getKey())
+                && Objects.equals(getValues(), command.getValues())
+                && Objects.equals(getOptions(), command.getOptions());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return Objects.hash(name, getKey(), getValues(), getOptions());
     }
 }
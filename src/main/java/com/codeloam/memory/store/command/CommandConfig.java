@@ -14,12 +14,18 @@ import java.util.List;
  *
  * @param name               command name, required
  * @param requireKey         if true, key must exist, if false, there should be no key or value
- * @param requireValue       if true, value must exist, if false, there should be no value
+ * @param requireValue       if true, value must exist, if false, there should be no value,
+ *                           unless multiple values are supported, then values are optional
  * @param supportMultiValues if true, accept multiple values, separated by whitespace
  * @param options            options for command, optional
+ * @param valuesAreKeys      if true, values are keys too, e.g. SINTER key [key ...]
  * @author jinyu.li
  * @since 1.0
  */
 public record CommandConfig(String name, boolean requireKey, boolean requireValue, boolean supportMultiValues,
-                            List<CommandOptionConfig> options, DataType dataType) {
+                            List<CommandOptionConfig> options, DataType dataType, boolean valuesAreKeys) {
+    public CommandConfig(String name, boolean requireKey, boolean requireValue, boolean supportMultiValues,
+                         List<CommandOptionConfig> options, DataType dataType) {
+        this(name, requireKey, requireValue, supportMultiValues, options, dataType, false);
+    }
 }
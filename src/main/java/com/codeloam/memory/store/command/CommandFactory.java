@@ -4,10 +4,7 @@ import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.network.ByteWord;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Factory to create command.
@@ -17,6 +14,7 @@ import java.util.stream.Collectors;
  */
 public class CommandFactory {
     public static final String SYSTEM_COMMAND_PING = "PING";
+    public static final String SYSTEM_COMMAND_INFO = "INFO";
 
     public static final String STRING_COMMAND_GET = "GET";
     public static final String STRING_COMMAND_SET = "SET";
@@ -40,13 +38,36 @@ public class CommandFactory {
     public static final String LIST_COMMAND_LREM = "LREM";
     public static final String LIST_COMMAND_LRANG = "LRANG";
 
+    public static final String HASH_COMMAND_HSET = "HSET";
+    public static final String HASH_COMMAND_HGET = "HGET";
+    public static final String HASH_COMMAND_HMGET = "HMGET";
+    public static final String HASH_COMMAND_HDEL = "HDEL";
+    public static final String HASH_COMMAND_HGETALL = "HGETALL";
+    public static final String HASH_COMMAND_HINCRBY = "HINCRBY";
+
+    public static final String SET_COMMAND_SADD = "SADD";
+    public static final String SET_COMMAND_SREM = "SREM";
+    public static final String SET_COMMAND_SISMEMBER = "SISMEMBER";
+    public static final String SET_COMMAND_SCARD = "SCARD";
+    public static final String SET_COMMAND_SMEMBERS = "SMEMBERS";
+    public static final String SET_COMMAND_SINTER = "SINTER";
+    public static final String SET_COMMAND_SUNION = "SUNION";
+    public static final String SORTED_SET_COMMAND_ZADD = "ZADD";
+    public static final String SORTED_SET_COMMAND_ZSCORE = "ZSCORE";
+    public static final String SORTED_SET_COMMAND_ZRANK = "ZRANK";
+    public static final String SORTED_SET_COMMAND_ZRANGE = "ZRANGE";
+    public static final String SORTED_SET_COMMAND_ZRANGEBYSCORE = "ZRANGEBYSCORE";
+    public static final String SORTED_SET_COMMAND_ZINCRBY = "ZINCRBY";
+    public static final String SORTED_SET_COMMAND_ZREM = "ZREM";
+
     private static CommandFactory singleton;
 
-    private final Map<String, CommandConfig> commandMap;
+    private final CommandTable commandTable;
 
     private CommandFactory() {
         List<CommandConfig> commandConfigs = List.of(
                 new CommandConfig(SYSTEM_COMMAND_PING, false, false, false, null, DataType.System),
+                new CommandConfig(SYSTEM_COMMAND_INFO, false, false, false, null, DataType.System),
                 new CommandConfig(STRING_COMMAND_GET, true, false, false, null, DataType.String),
                 new CommandConfig(STRING_COMMAND_SET, true, true, false, null, DataType.String),
                 new CommandConfig(NUMBER_COMMAND_NGET, true, false, false, null, DataType.Number),
@@ -57,19 +78,38 @@ public class CommandFactory {
                 new CommandConfig(NUMBER_COMMAND_DECRBY, true, false, false, null, DataType.Number),
                 new CommandConfig(LIST_COMMAND_LPUSH, true, true, true, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_RPUSH, true, true, true, null, DataType.List),
-                new CommandConfig(LIST_COMMAND_LPOP, true, false, false, null, DataType.List),
-                new CommandConfig(LIST_COMMAND_RPOP, true, false, false, null, DataType.List),
+                // count of LPOP and RPOP is optional
+                new CommandConfig(LIST_COMMAND_LPOP, true, false, true, null, DataType.List),
+                new CommandConfig(LIST_COMMAND_RPOP, true, false, true, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_LLEN, true, false, false, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_LINDEX, true, true, false, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_LINSERT, true, true, true, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_LSET, true, true, true, null, DataType.List),
                 new CommandConfig(LIST_COMMAND_LREM, true, true, true, null, DataType.List),
-                new CommandConfig(LIST_COMMAND_LRANG, true, true, true, null, DataType.List)
+                new CommandConfig(LIST_COMMAND_LTRIM, true, true, true, null, DataType.List),
+                new CommandConfig(LIST_COMMAND_LRANG, true, true, true, null, DataType.List),
+                new CommandConfig(HASH_COMMAND_HSET, true, true, true, null, DataType.Hash),
+                new CommandConfig(HASH_COMMAND_HGET, true, true, false, null, DataType.Hash),
+                new CommandConfig(HASH_COMMAND_HMGET, true, true, true, null, DataType.Hash),
+                new CommandConfig(HASH_COMMAND_HDEL, true, true, true, null, DataType.Hash),
+                new CommandConfig(HASH_COMMAND_HGETALL, true, false, false, null, DataType.Hash),
+                new CommandConfig(HASH_COMMAND_HINCRBY, true, true, true, null, DataType.Hash),
+                new CommandConfig(SET_COMMAND_SADD, true, true, true, null, DataType.Set),
+                new CommandConfig(SET_COMMAND_SREM, true, true, true, null, DataType.Set),
+                new CommandConfig(SET_COMMAND_SISMEMBER, true, true, false, null, DataType.Set),
+                new CommandConfig(SET_COMMAND_SCARD, true, false, false, null, DataType.Set),
+                new CommandConfig(SET_COMMAND_SMEMBERS, true, false, false, null, DataType.Set),
+                new CommandConfig(SET_COMMAND_SINTER, true, false, true, null, DataType.Set, true),
+                new CommandConfig(SET_COMMAND_SUNION, true, false, true, null, DataType.Set, true),
+                new CommandConfig(SORTED_SET_COMMAND_ZADD, true, true, true, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZSCORE, true, true, false, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZRANK, true, true, false, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZRANGE, true, true, true, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZRANGEBYSCORE, true, true, true, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZINCRBY, true, true, true, null, DataType.SortedSet),
+                new CommandConfig(SORTED_SET_COMMAND_ZREM, true, true, true, null, DataType.SortedSet)
         );
-        commandMap = new HashMap<>();
-        for (CommandConfig commandConfig : commandConfigs) {
-            commandMap.put(commandConfig.name(), commandConfig);
-        }
+        commandTable = new CommandTable(commandConfigs);
     }
 
     public static Command parseCommand(List<ByteWord> words) {
@@ -101,10 +141,10 @@ public class CommandFactory {
             throw new IllegalArgumentException("illegal command");
         }
         // currently, only support single command
-        String name = words.get(0).getString().toUpperCase();
-        CommandConfig commandConfig = commandMap.get(name);
+        // name is matched with its bytes, a string is only created for unknown commands
+        CommandConfig commandConfig = commandTable.get(words.get(0));
         if (commandConfig == null) {
-            throw new InvalidCommandException(name);
+            throw new InvalidCommandException(words.get(0).getString().toUpperCase());
         }
         return parse(commandConfig, words);
     }
@@ -112,85 +152,132 @@ public class CommandFactory {
     /**
      * Convert given words to a command, set name, key, value  and options if necessary.
      *
+     * <p>The command references the words, key and values are resolved to positions in the words,
+     * options are resolved to ids, so no collection is created unless the command has options.
+     *
      * @param words words
      * @return a command or null
      */
     public Command parse(CommandConfig commandConfig, List<ByteWord> words) {
         // name has been parsed
         int index = 1;
-        ByteWord key = null;
+        int keyIndex = -1;
+        int valueStart = 0;
+        int valueEnd = 0;
         boolean optionParsed = false;
-        List<ByteWord> values = null;
-        Map<String, ByteWord> optionMap = new HashMap<>();
         if (commandConfig.requireKey()) {
             if (index < words.size()) {
-                key = words.get(index++);
+                keyIndex = index++;
             } else {
                 throw new InvalidCommandException(commandConfig.name(), "key required");
             }
         }
 
         List<CommandOptionConfig> options = commandConfig.options();
+        boolean hasOptions = options != null && !options.isEmpty();
+        CommandOptionConfig[] optionConfigs = hasOptions ? flattenOptions(options) : null;
+        ByteWord[] optionValues = hasOptions ? new ByteWord[optionConfigs.length] : null;
 
         if (commandConfig.supportMultiValues()) {
             // parse options first
             optionParsed = true;
-            if (index < words.size() && options != null && !options.isEmpty()) {
-                index = parseOptions(commandConfig, options, words, index, optionMap);
+            if (index < words.size() && hasOptions) {
+                index = parseOptions(commandConfig, options, optionConfigs, words, index, optionValues, true);
             }
         }
 
-        if (commandConfig.requireValue() && index < words.size()) {
-            if (commandConfig.supportMultiValues()) {
-                values = new ArrayList<>(words.subList(index, words.size()));
-                index = words.size();
-            } else {
-                values = new ArrayList<>(words.subList(index, index + 1));
-                index++;
-            }
+        if ((commandConfig.requireValue() || commandConfig.supportMultiValues()) && index < words.size()) {
+            valueStart = index;
+            valueEnd = commandConfig.supportMultiValues() ? words.size() : index + 1;
+            index = valueEnd;
         }
 
-        if (commandConfig.requireValue() && values == null) {
+        if (commandConfig.requireValue() && valueStart == valueEnd) {
             throw new InvalidCommandException(commandConfig.name(), "value required");
         }
 
-        if (!optionParsed && index < words.size() && options != null && !options.isEmpty()) {
-            parseOptions(commandConfig, options, words, index, optionMap);
+        if (!optionParsed && index < words.size() && hasOptions) {
+            parseOptions(commandConfig, options, optionConfigs, words, index, optionValues, false);
         }
 
-        if (options != null && !options.isEmpty()) {
-            for (CommandOptionConfig optionConfig : options) {
-                if (optionConfig.required() && !optionMap.containsKey(optionConfig.name())) {
-                    throw new InvalidCommandException(commandConfig.name(),
-                            String.format("option %s is required", optionConfig.name()));
-                }
+        boolean optionFound = false;
+        if (hasOptions) {
+            checkRequiredOptions(commandConfig, options, optionConfigs, optionValues);
+            for (ByteWord value : optionValues) {
+                optionFound |= value != null;
+            }
+        }
+
+        // words may reference the network buffer, they are compacted by executors only when stored
+        return new ParsedCommand(commandConfig, words, keyIndex, valueStart, valueEnd,
+                optionConfigs, optionFound ? optionValues : null);
+    }
+
+    /**
+     * Flatten options and their next options in depth-first order, index of an option is its id.
+     *
+     * @param options options
+     * @return flattened options
+     */
+    private static CommandOptionConfig[] flattenOptions(List<CommandOptionConfig> options) {
+        List<CommandOptionConfig> flattened = new ArrayList<>();
+        addOptions(options, flattened);
+        return flattened.toArray(new CommandOptionConfig[0]);
+    }
+
+    private static void addOptions(List<CommandOptionConfig> options, List<CommandOptionConfig> flattened) {
+        for (CommandOptionConfig option : options) {
+            flattened.add(option);
+            if (option.nextOptions() != null) {
+                addOptions(option.nextOptions(), flattened);
             }
         }
+    }
 
-        if (values != null) {
-            values = values.stream().map(ByteWord::compact).collect(Collectors.toList());
+    private static int getOptionId(CommandOptionConfig[] optionConfigs, CommandOptionConfig option) {
+        for (int id = 0; id < optionConfigs.length; ++id) {
+            if (optionConfigs[id] == option) {
+                return id;
+            }
         }
+        throw new IllegalStateException("unknown option " + option.name());
+    }
 
-        return new SimpleCommand(commandConfig.name(),
-                commandConfig.dataType(), key == null ? null : key.compact(),
-                values,
-                optionMap.isEmpty() ? null : optionMap);
+    private void checkRequiredOptions(CommandConfig commandConfig, List<CommandOptionConfig> options,
+                                      CommandOptionConfig[] optionConfigs, ByteWord[] optionValues) {
+        for (CommandOptionConfig optionConfig : options) {
+            if (optionConfig.required() && optionValues[getOptionId(optionConfigs, optionConfig)] == null) {
+                throw new InvalidCommandException(commandConfig.name(),
+                        String.format("option %s is required", optionConfig.name()));
+            }
+        }
     }
 
-    private int parseOptions(CommandConfig commandConfig, List<CommandOptionConfig> optionConfigs, List<ByteWord> words,
-                             int index, Map<String, ByteWord> optionMap) {
+    /**
+     * Parse options from given index.
+     *
+     * @param beforeValues whether options are before values, if true, stop at the first word that is not an option,
+     *                     it's the first value, otherwise unknown words are skipped
+     * @return index of next word
+     */
+    private int parseOptions(CommandConfig commandConfig, List<CommandOptionConfig> options,
+                             CommandOptionConfig[] optionConfigs, List<ByteWord> words,
+                             int index, ByteWord[] optionValues, boolean beforeValues) {
         while (index < words.size()) {
             ByteWord byteWord = words.get(index);
-            String name = byteWord.getString();
             boolean parsed = false;
-            for (CommandOptionConfig option : optionConfigs) {
-                if (option.name().equals(name)) {
+            for (CommandOptionConfig option : options) {
+                if (byteWord.equalsIgnoreCase(option.name())) {
                     index++;
-                    index = parseOption(commandConfig, option, words, index, optionMap);
+                    index = parseOption(commandConfig, option, optionConfigs, words, index, optionValues,
+                            beforeValues);
                     parsed = true;
                     break;
                 }
             }
+            if (!parsed && beforeValues) {
+                break;
+            }
             // found an unknown option, what to do?
             if (!parsed) {
                 index++;
@@ -200,8 +287,9 @@ public class CommandFactory {
         return index;
     }
 
-    private int parseOption(CommandConfig commandConfig, CommandOptionConfig optionConfig, List<ByteWord> words,
-                            int index, Map<String, ByteWord> optionMap) {
+    private int parseOption(CommandConfig commandConfig, CommandOptionConfig optionConfig,
+                            CommandOptionConfig[] optionConfigs, List<ByteWord> words,
+                            int index, ByteWord[] optionValues, boolean beforeValues) {
         ByteWord value = ByteWord.NULL;
         if (optionConfig.valueRequired() && index < words.size()) {
             value = words.get(index++);
@@ -214,16 +302,12 @@ public class CommandFactory {
             throw new InvalidCommandException(commandConfig.name(),
                     String.format("option %s value is required", optionConfig.name()));
         }
-        optionMap.put(optionConfig.name(), value);
+        optionValues[getOptionId(optionConfigs, optionConfig)] = value;
 
         if (optionConfig.nextOptions() != null && !optionConfig.nextOptions().isEmpty()) {
-            index = parseOptions(commandConfig, optionConfig.nextOptions(), words, index, optionMap);
-            for (CommandOptionConfig config : optionConfig.nextOptions()) {
-                if (config.required() && !optionMap.containsKey(config.name())) {
-                    throw new InvalidCommandException(commandConfig.name(),
-                            String.format("option %s is required", config.name()));
-                }
-            }
+            index = parseOptions(commandConfig, optionConfig.nextOptions(), optionConfigs, words, index,
+                    optionValues, beforeValues);
+            checkRequiredOptions(commandConfig, optionConfig.nextOptions(), optionConfigs, optionValues);
         }
         return index;
     }
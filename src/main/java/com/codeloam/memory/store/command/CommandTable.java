@@ -0,0 +1,70 @@
+package com.codeloam.memory.store.command;
+
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Lookup table of command configurations, keyed on command name bytes, ignoring case.
+ *
+ * <p>It's an open addressing table that is built once and never changes. A name is looked up
+ * with its bytes directly, it's not converted to a string, so there is no allocation for each request.
+ * The table is at least four times larger than number of commands, so a lookup usually probes one slot.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+final class CommandTable {
+    private final byte[][] names;
+    private final CommandConfig[] configs;
+    private final int mask;
+
+    /**
+     * Constructor.
+     *
+     * @param commandConfigs configurations, names should be upper case and unique
+     */
+    CommandTable(Collection<CommandConfig> commandConfigs) {
+        int size = Integer.highestOneBit(Math.max(commandConfigs.size() * 4 - 1, 1)) << 1;
+        names = new byte[size][];
+        configs = new CommandConfig[size];
+        mask = size - 1;
+        for (CommandConfig commandConfig : commandConfigs) {
+            byte[] name = commandConfig.name().getBytes(StandardCharsets.US_ASCII);
+            ByteWord word = ByteWord.create(name);
+            if (get(word) != null) {
+                throw new IllegalArgumentException("Duplicate command " + commandConfig.name());
+            }
+            int index = indexOf(word);
+            while (names[index] != null) {
+                index = (index + 1) & mask;
+            }
+            names[index] = name;
+            configs[index] = commandConfig;
+        }
+    }
+
+    /**
+     * Get configuration of given command name.
+     *
+     * @param name command name, in any case
+     * @return configuration, or null if the command is unknown
+     */
+    CommandConfig get(ByteWord name) {
+        int index = indexOf(name);
+        byte[] candidate;
+        while ((candidate = names[index]) != null) {
+            if (name.equalsIgnoreCase(candidate)) {
+                return configs[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private int indexOf(ByteWord name) {
+        int hash = name.hashCodeIgnoreCase();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
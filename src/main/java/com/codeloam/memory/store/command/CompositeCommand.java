@@ -4,6 +4,7 @@ import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.network.ByteWord;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Compound command include more than one commands.
@@ -42,4 +43,9 @@ public class CompositeCommand extends Command {
     public boolean hasOption(String optionName) {
         return false;
     }
+
+    @Override
+    public Map<String, ByteWord> getOptions() {
+        return null;
+    }
 }
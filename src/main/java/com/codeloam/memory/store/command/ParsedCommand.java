@@ -0,0 +1,124 @@
+package com.codeloam.memory.store.command;
+
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A command parsed from words of a request, it references the words instead of copying them.
+ *
+ * <p>Key and values are positions in the word list, so parsing a command only allocates this object.
+ * Options of the command configuration are flattened in depth-first order, the index of an option
+ * is its id, values of options are kept in an array indexed by id, which is only allocated
+ * if the command supports options.
+ *
+ * <p>Like the words, the command is only valid while its request is handled.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+final class ParsedCommand extends Command {
+    private final List<ByteWord> words;
+    /**
+     * Position of key, -1 if there is no key.
+     */
+    private final int keyIndex;
+    /**
+     * Values are words in [valueStart, valueEnd).
+     */
+    private final int valueStart;
+    private final int valueEnd;
+    /**
+     * Option configurations indexed by id, null if the command has no option.
+     */
+    private final CommandOptionConfig[] optionConfigs;
+    /**
+     * Option values indexed by id, null if no option is given.
+     */
+    private final ByteWord[] optionValues;
+    private final boolean multiKey;
+
+    ParsedCommand(CommandConfig config, List<ByteWord> words, int keyIndex, int valueStart, int valueEnd,
+                  CommandOptionConfig[] optionConfigs, ByteWord[] optionValues) {
+        super(config.name(), config.dataType());
+        this.words = words;
+        this.keyIndex = keyIndex;
+        this.valueStart = valueStart;
+        this.valueEnd = valueEnd;
+        this.optionConfigs = optionConfigs;
+        this.optionValues = optionValues;
+        this.multiKey = config.valuesAreKeys();
+    }
+
+    @Override
+    public ByteWord getKey() {
+        return keyIndex < 0 ? null : words.get(keyIndex);
+    }
+
+    @Override
+    public List<ByteWord> getValues() {
+        return valueStart == valueEnd ? null : words.subList(valueStart, valueEnd);
+    }
+
+    @Override
+    public int getValueCount() {
+        return valueEnd - valueStart;
+    }
+
+    @Override
+    public ByteWord getValue(int index) {
+        if (index < 0 || index >= valueEnd - valueStart) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return words.get(valueStart + index);
+    }
+
+    @Override
+    public boolean isMultiKey() {
+        return multiKey;
+    }
+
+    @Override
+    public ByteWord getOption(String optionName) {
+        if (optionValues == null) {
+            return null;
+        }
+        for (int id = 0; id < optionConfigs.length; ++id) {
+            if (optionConfigs[id].name().equals(optionName)) {
+                return optionValues[id];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasOption(String optionName) {
+        return getOption(optionName) != null;
+    }
+
+    @Override
+    public Map<String, ByteWord> getOptions() {
+        if (optionValues == null) {
+            return null;
+        }
+        Map<String, ByteWord> options = new HashMap<>();
+        for (int id = 0; id < optionConfigs.length; ++id) {
+            if (optionValues[id] != null) {
+                options.put(optionConfigs[id].name(), optionValues[id]);
+            }
+        }
+        return options;
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedCommand{"
+                + "name='" + name + '\''
+                + ", key=" + getKey()
+                + ", values=" + getValues()
+                + ", options=" + getOptions()
+                + '}';
+    }
+}
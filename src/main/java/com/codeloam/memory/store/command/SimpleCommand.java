@@ -5,7 +5,6 @@ import com.codeloam.memory.store.network.ByteWord;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 
 /**
  * Represents a single command.
@@ -62,31 +61,11 @@ public class SimpleCommand extends Command {
         return values;
     }
 
+    @Override
     public Map<String, ByteWord> getOptions() {
         return options;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
-        }
-        if (!(o instanceof SimpleCommand that)) {
-            return false;
-        }
-        if (!super.equals(o)) {
-            return false;
-        }
-        return Objects.equals(key, that.key)
-                && Objects.equals(values, that.values)
-                && Objects.equals(options, that.options);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(super.hashCode(), key, values, options);
-    }
-
     @Override
     public String toString() {
         return "SimpleCommand{"
@@ -9,7 +9,7 @@ import com.codeloam.memory.store.network.data.NetworkData;
  * @author jinyu.li
  * @since 1.0
  */
-public interface Database {
+public interface Database extends AutoCloseable {
     /**
      * Execute a command.
      *
@@ -17,4 +17,28 @@ public interface Database {
      * @return result, should not be null
      */
     NetworkData execute(Command command);
+
+    /**
+     * Number of keys. It's read without lock, so it may be stale while commands are being executed.
+     *
+     * @return number of keys
+     */
+    long size();
+
+    /**
+     * Whether commands can be executed concurrently, if not, caller should execute commands one by one.
+     *
+     * @return true if it's thread safe
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Release resources of the database, e.g. its threads. It does nothing by default.
+     * Commands executed after close may fail.
+     */
+    @Override
+    default void close() {
+    }
 }
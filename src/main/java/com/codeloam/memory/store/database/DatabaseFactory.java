@@ -1,5 +1,7 @@
 package com.codeloam.memory.store.database;
 
+import com.codeloam.memory.store.database.concurrent.ConcurrentDatabase;
+import com.codeloam.memory.store.database.sharded.ShardedDatabase;
 import com.codeloam.memory.store.database.simple.SimpleDatabase;
 
 /**
@@ -11,12 +13,15 @@ import com.codeloam.memory.store.database.simple.SimpleDatabase;
 public class DatabaseFactory {
     /**
      * Create an instance of Database with given type.
-     * Currently only support SimpleDatabase.
      *
      * @param type database type
      * @return an instance of Database
      */
     public static Database create(DatabaseType type) {
-        return new SimpleDatabase();
+        return switch (type) {
+            case Sharded -> new ShardedDatabase();
+            case Concurrent -> new ConcurrentDatabase();
+            default -> new SimpleDatabase();
+        };
     }
 }
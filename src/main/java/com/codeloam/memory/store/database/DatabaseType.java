@@ -7,5 +7,13 @@ package com.codeloam.memory.store.database;
  * @since 1.0
  */
 public enum DatabaseType {
-    Simple;
+    Simple,
+    /**
+     * Keyspace is split into shards, each shard is protected by its own lock.
+     */
+    Sharded,
+    /**
+     * Keyspace is shared by all threads, protected by striped locks.
+     */
+    Concurrent;
 }
@@ -11,4 +11,11 @@ import com.codeloam.memory.store.network.ByteWord;
 public abstract class JimdsData {
     public abstract DataType getDataType();
     public abstract ByteWord getData();
+
+    /**
+     * Called when the data is overwritten or removed from database, resources that are not managed by GC
+     * should be released here.
+     */
+    public void free() {
+    }
 }
@@ -1,5 +1,7 @@
 package com.codeloam.memory.store.database;
 
+import java.util.function.BiConsumer;
+
 /**
  * Abstract Hash.
  *
@@ -48,4 +50,19 @@ public abstract class JimdsHash<K extends Comparable<K>, T> extends JimdsData {
      * @return true if key is in hash, or false
      */
     public abstract boolean exist(K key);
+
+    /**
+     * Remove given key from hash.
+     *
+     * @param key key
+     * @return old value if exists, or null
+     */
+    public abstract T remove(K key);
+
+    /**
+     * Visit all keys and values, the hash must not be modified by the action.
+     *
+     * @param action action called with each key and its value
+     */
+    public abstract void forEach(BiConsumer<? super K, ? super T> action);
 }
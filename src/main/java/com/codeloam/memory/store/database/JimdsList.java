@@ -1,6 +1,7 @@
 package com.codeloam.memory.store.database;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.ListIterator;
 
 /**
@@ -17,6 +18,15 @@ public abstract class JimdsList<T> extends JimdsData {
 
     public abstract ListIterator<T> reverseIterator();
     public abstract ListIterator<T> iterator();
+
+    /**
+     * Iterator that starts at given index, the first call to next() returns the element at the index.
+     *
+     * @param index index from 0 to size
+     * @return iterator
+     */
+    public abstract ListIterator<T> listIterator(int index);
+
     public abstract int size();
     public abstract void addFirst(T t);
     public abstract void addLast(T t);
@@ -24,4 +34,29 @@ public abstract class JimdsList<T> extends JimdsData {
     public abstract T removeLast();
     public abstract T set(int index, T t);
     public abstract T get(int index);
+
+    /**
+     * Find the first element equal to given element.
+     *
+     * @param t element
+     * @return index of the element, or -1 if there is none
+     */
+    public abstract int indexOf(T t);
+
+    /**
+     * Copy elements in a range out of the list.
+     *
+     * @param from index of the first element, inclusive
+     * @param to   index after the last element, exclusive
+     * @return elements in the range, changes of the list are not visible in it
+     */
+    public abstract List<T> range(int from, int to);
+
+    /**
+     * Keep elements in a range and remove all other elements.
+     *
+     * @param from index of the first kept element, inclusive
+     * @param to   index after the last kept element, exclusive
+     */
+    public abstract void trim(int from, int to);
 }
@@ -1,5 +1,7 @@
 package com.codeloam.memory.store.database;
 
+import java.util.function.Consumer;
+
 /**
  * Set.
  *
@@ -23,8 +25,9 @@ public abstract class JimdsSet<K extends Comparable<K>> extends JimdsData {
      * Add an object to set.
      *
      * @param key key
+     * @return true if the key is added, false if it's already in set
      */
-    public abstract void add(K key);
+    public abstract boolean add(K key);
 
     /**
      * Whether given key exists in set.
@@ -33,4 +36,19 @@ public abstract class JimdsSet<K extends Comparable<K>> extends JimdsData {
      * @return true if key is in hash, or false
      */
     public abstract boolean exist(K key);
+
+    /**
+     * Remove an object from set.
+     *
+     * @param key key
+     * @return true if the key is removed, false if it's not in set
+     */
+    public abstract boolean remove(K key);
+
+    /**
+     * Visit all keys, the set must not be modified by the action.
+     *
+     * @param action action called with each key
+     */
+    public abstract void forEach(Consumer<? super K> action);
 }
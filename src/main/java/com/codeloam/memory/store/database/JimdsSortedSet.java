@@ -1,7 +1,13 @@
 package com.codeloam.memory.store.database;
 
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.function.ObjDoubleConsumer;
+
 /**
- * Sorted set.
+ * Sorted set, members are ordered by score, and members with the same score are ordered by their bytes.
+ *
+ * <p>Scores are not NaN. Ranks start from 0, the member with the lowest score has rank 0.
  *
  * @author jinyu.li
  * @since 1.0
@@ -11,4 +17,76 @@ public abstract class JimdsSortedSet extends JimdsData {
     public DataType getDataType() {
         return DataType.SortedSet;
     }
+
+    /**
+     * Member count.
+     *
+     * @return size
+     */
+    public abstract int size();
+
+    /**
+     * Add a member, or update its score if it's in set.
+     *
+     * @param member member
+     * @param score  score
+     * @return true if the member is added, false if its score is updated
+     */
+    public abstract boolean add(ByteWord member, double score);
+
+    /**
+     * Add increment to score of a member, a member that is not in set is added with the increment as score.
+     *
+     * @param member    member
+     * @param increment increment
+     * @return new score
+     */
+    public abstract double incrementScore(ByteWord member, double increment);
+
+    /**
+     * Get score of a member.
+     *
+     * @param member member
+     * @return score, or NaN if the member is not in set
+     */
+    public abstract double getScore(ByteWord member);
+
+    /**
+     * Get rank of a member.
+     *
+     * @param member member
+     * @return rank, or -1 if the member is not in set
+     */
+    public abstract int getRank(ByteWord member);
+
+    /**
+     * Remove a member.
+     *
+     * @param member member
+     * @return true if the member is removed, false if it's not in set
+     */
+    public abstract boolean remove(ByteWord member);
+
+    /**
+     * Visit members with rank in [from, to), in order.
+     *
+     * @param from   first rank, inclusive
+     * @param to     last rank, exclusive
+     * @param action action called with each member and its score
+     */
+    public abstract void range(int from, int to, ObjDoubleConsumer<ByteWord> action);
+
+    /**
+     * Visit members with score in given range, in order.
+     *
+     * @param min          min score
+     * @param minExclusive whether min score is excluded
+     * @param max          max score
+     * @param maxExclusive whether max score is excluded
+     * @param offset       number of members in range that are skipped
+     * @param count        max number of visited members, negative for all
+     * @param action       action called with each member and its score
+     */
+    public abstract void rangeByScore(double min, boolean minExclusive, double max, boolean maxExclusive,
+                                      int offset, int count, ObjDoubleConsumer<ByteWord> action);
 }
@@ -0,0 +1,151 @@
+package com.codeloam.memory.store.database.concurrent;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.database.Database;
+import com.codeloam.memory.store.database.JimdsData;
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.database.simple.executor.Executor;
+import com.codeloam.memory.store.database.simple.executor.HashExecutor;
+import com.codeloam.memory.store.database.simple.executor.ListExecutor;
+import com.codeloam.memory.store.database.simple.executor.NumberExecutor;
+import com.codeloam.memory.store.database.simple.executor.SetExecutor;
+import com.codeloam.memory.store.database.simple.executor.SortedSetExecutor;
+import com.codeloam.memory.store.database.simple.executor.StringExecutor;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Database that can be called from multiple threads at once.
+ *
+ * <p>Keyspace is a {@link ConcurrentHash}. Values like numbers and lists are modified in place,
+ * so a command is executed while holding the lock of its key. Locks are striped,
+ * keys with the same stripe share a lock, commands on different stripes are executed in parallel.
+ * A command with multiple keys takes locks of all its keys in stripe order, so commands never deadlock.
+ *
+ * <p>This database is thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ConcurrentDatabase implements Database {
+    private static final int DEFAULT_STRIPE_COUNT = 256;
+
+    private final JimdsHash<ByteWord, JimdsData> database;
+    /**
+     * Executors indexed by ordinal of data type, null if the type is not supported.
+     */
+    private final Executor[] executors;
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+
+    public ConcurrentDatabase() {
+        this(DEFAULT_STRIPE_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param stripeCount number of locks, it's rounded up to a power of 2
+     */
+    public ConcurrentDatabase(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Invalid stripe count " + stripeCount);
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; ++i) {
+            locks[i] = new ReentrantLock();
+        }
+        stripeMask = size - 1;
+
+        database = new ConcurrentHash<>();
+        executors = new Executor[DataType.values().length];
+        executors[DataType.String.ordinal()] = new StringExecutor();
+        executors[DataType.Number.ordinal()] = new NumberExecutor();
+        executors[DataType.List.ordinal()] = new ListExecutor();
+        executors[DataType.Hash.ordinal()] = new HashExecutor();
+        executors[DataType.Set.ordinal()] = new SetExecutor();
+        executors[DataType.SortedSet.ordinal()] = new SortedSetExecutor();
+    }
+
+    @Override
+    public NetworkData execute(Command command) {
+        Executor executor = executors[command.getDataType().ordinal()];
+        if (executor == null) {
+            return new NetworkError("Unsupported data type " + command.getName());
+        }
+        if (command.isMultiKey()) {
+            return executeMultiKey(executor, command);
+        }
+        ByteWord key = command.getKey();
+        ReentrantLock lock = key == null ? null : getLock(key);
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            return executor.execute(database, command);
+        } catch (Throwable t) {
+            return new NetworkError(t.getMessage());
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private NetworkData executeMultiKey(Executor executor, Command command) {
+        int[] stripes = new int[command.getValueCount() + 1];
+        stripes[0] = getStripe(command.getKey());
+        for (int i = 0; i < command.getValueCount(); ++i) {
+            stripes[i + 1] = getStripe(command.getValue(i));
+        }
+        Arrays.sort(stripes);
+        // locks are reentrant, a stripe of multiple keys is simply locked multiple times
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            return executor.execute(database, command);
+        } catch (Throwable t) {
+            return new NetworkError(t.getMessage());
+        } finally {
+            for (int stripe : stripes) {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return database.size();
+    }
+
+    /**
+     * Get the lock of given key.
+     *
+     * @param key key
+     * @return lock
+     */
+    ReentrantLock getLock(ByteWord key) {
+        return locks[getStripe(key)];
+    }
+
+    private int getStripe(ByteWord key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return hash & stripeMask;
+    }
+}
@@ -0,0 +1,58 @@
+package com.codeloam.memory.store.database.concurrent;
+
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread safe implementation of Hash, use Java builtin ConcurrentHashMap.
+ *
+ * <p>Single operations are atomic, read-modify-write of a value should be protected by caller.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ConcurrentHash<K extends Comparable<K>, V> extends JimdsHash<K, V> {
+    private final ConcurrentHashMap<K, V> hashMap;
+
+    public ConcurrentHash() {
+        hashMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return hashMap.size();
+    }
+
+    @Override
+    public V get(K key) {
+        return hashMap.get(key);
+    }
+
+    @Override
+    public V set(K key, V value) {
+        return hashMap.put(key, value);
+    }
+
+    @Override
+    public boolean exist(K key) {
+        return hashMap.containsKey(key);
+    }
+
+    @Override
+    public V remove(K key) {
+        return hashMap.remove(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        hashMap.forEach(action);
+    }
+
+    @Override
+    public ByteWord getData() {
+        return null;
+    }
+}
@@ -0,0 +1,121 @@
+package com.codeloam.memory.store.database.sharded;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.database.Database;
+import com.codeloam.memory.store.database.simple.SimpleDatabase;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Database that splits keyspace into multiple shards.
+ *
+ * <p>Each shard is a {@link SimpleDatabase} with its own lock. A command is routed to its shard by the hash
+ * of its key, and executed on the caller thread while holding the lock of the shard,
+ * so there is no hand-off to another thread. Commands on different shards are executed in parallel.
+ * All keys of a command with multiple keys must be in the same shard, like keys in the same slot of redis cluster.
+ *
+ * <p>This database is thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ShardedDatabase implements Database {
+    private final Shard[] shards;
+
+    public ShardedDatabase() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param shardCount number of shards
+     */
+    public ShardedDatabase(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Invalid shard count " + shardCount);
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; ++i) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public NetworkData execute(Command command) {
+        int index = getShardIndex(command.getKey());
+        if (command.isMultiKey()) {
+            for (int i = 0; i < command.getValueCount(); ++i) {
+                if (getShardIndex(command.getValue(i)) != index) {
+                    return new NetworkError("Keys of " + command.getName() + " are in different shards");
+                }
+            }
+        }
+        return shards[index].execute(command);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * Sum of key counts of shards, shards are read without their locks.
+     *
+     * @return number of keys
+     */
+    @Override
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.database.size();
+        }
+        return size;
+    }
+
+    /**
+     * Get number of shards.
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Get index of the shard that owns given key.
+     *
+     * @param key key, commands without key are executed in the first shard
+     * @return index of shard
+     */
+    int getShardIndex(ByteWord key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shards.length);
+    }
+
+    /**
+     * A shard and its lock.
+     */
+    private static final class Shard {
+        private final SimpleDatabase database = new SimpleDatabase();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        NetworkData execute(Command command) {
+            lock.lock();
+            try {
+                return database.execute(command);
+            } catch (Throwable t) {
+                return new NetworkError(t.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Hash with ByteWord keys, it's used as keyspace of database.
+ *
+ * <p>It's an open-addressing table with linear probing. Key bytes, cached hashes and values are stored
+ * in parallel arrays, so there is no node object per entry, and keys are compared as byte arrays.
+ * A key is only copied when it's added, lookups compare the given word in place,
+ * so a word that references the network buffer is never materialized by a read.
+ * Removing a key shifts following entries of the same probe sequence back, no tombstone is left.
+ *
+ * <p>The table grows progressively. When it's full, a table with double size is created,
+ * and each following operation moves a few entries from the old table to the new one,
+ * so no single operation pays for copying the whole table. New keys are only added to the new table,
+ * lookups check both tables until the old one is empty.
+ * Entries moved or removed from the old table are replaced with a tombstone,
+ * so probe sequences of remaining entries are kept.
+ *
+ * <p>This hash is not thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ByteWordHash<V> extends JimdsHash<ByteWord, V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    /**
+     * Max slots of old table visited by one operation when rehashing.
+     */
+    private static final int REHASH_STEP = 64;
+    private static final byte[] TOMBSTONE = new byte[0];
+
+    private byte[][] keys;
+    private int[] hashes;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+
+    /**
+     * Old table, not null only when rehashing.
+     */
+    private byte[][] oldKeys;
+    private int[] oldHashes;
+    private Object[] oldValues;
+    private int oldMask;
+    /**
+     * Slots before this index of the old table have been moved.
+     */
+    private int rehashIndex;
+
+    /**
+     * Entry count of both tables.
+     */
+    private int size;
+
+    public ByteWordHash() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity initial capacity, it's rounded up to a power of 2
+     */
+    public ByteWordHash(int capacity) {
+        int tableSize = DEFAULT_CAPACITY;
+        while (tableSize < capacity && tableSize < MAX_CAPACITY) {
+            tableSize <<= 1;
+        }
+        allocate(tableSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(ByteWord key) {
+        rehashStep();
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        if (index >= 0) {
+            return (V) values[index];
+        }
+        if (oldKeys != null) {
+            index = oldIndexOf(key, hash);
+            if (index >= 0) {
+                return (V) oldValues[index];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V set(ByteWord key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        rehashStep();
+        int hash = hash(key);
+        int index = hash & mask;
+        while (keys[index] != null) {
+            if (hashes[index] == hash && key.contentEquals(keys[index])) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+        V old = null;
+        if (oldKeys != null) {
+            int oldIndex = oldIndexOf(key, hash);
+            if (oldIndex >= 0) {
+                // move the key to new table
+                old = (V) oldValues[oldIndex];
+                removeFromOldTable(oldIndex);
+                size--;
+            }
+        }
+        insert(key.compact().get(), hash, value, index);
+        return old;
+    }
+
+    @Override
+    public boolean exist(ByteWord key) {
+        rehashStep();
+        int hash = hash(key);
+        return indexOf(key, hash) >= 0 || (oldKeys != null && oldIndexOf(key, hash) >= 0);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(ByteWord key) {
+        rehashStep();
+        int hash = hash(key);
+        int index = indexOf(key, hash);
+        if (index < 0) {
+            if (oldKeys != null) {
+                index = oldIndexOf(key, hash);
+                if (index >= 0) {
+                    V old = (V) oldValues[index];
+                    removeFromOldTable(index);
+                    size--;
+                    return old;
+                }
+            }
+            return null;
+        }
+        V old = (V) values[index];
+        // shift back entries whose probe sequence passes the removed slot
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                hashes[hole] = hashes[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return old;
+    }
+
+    /**
+     * Keys are created as words over the stored arrays, they are not copied.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super ByteWord, ? super V> action) {
+        if (oldKeys != null) {
+            for (int i = rehashIndex; i < oldKeys.length; ++i) {
+                byte[] k = oldKeys[i];
+                if (k != null && k != TOMBSTONE) {
+                    action.accept(ByteWord.create(k), (V) oldValues[i]);
+                }
+            }
+        }
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                action.accept(ByteWord.create(keys[i]), (V) values[i]);
+            }
+        }
+    }
+
+    @Override
+    public ByteWord getData() {
+        return null;
+    }
+
+    /**
+     * Whether the table is growing.
+     *
+     * @return true if there are entries in old table
+     */
+    boolean isRehashing() {
+        return oldKeys != null;
+    }
+
+    private int indexOf(ByteWord key, int hash) {
+        int index = hash & mask;
+        while (keys[index] != null) {
+            if (hashes[index] == hash && key.contentEquals(keys[index])) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int oldIndexOf(ByteWord key, int hash) {
+        int index = hash & oldMask;
+        byte[] k;
+        while ((k = oldKeys[index]) != null) {
+            if (k != TOMBSTONE && oldHashes[index] == hash && key.contentEquals(k)) {
+                return index;
+            }
+            index = (index + 1) & oldMask;
+        }
+        return -1;
+    }
+
+    private void insert(byte[] bytes, int hash, Object value, int index) {
+        keys[index] = bytes;
+        hashes[index] = hash;
+        values[index] = value;
+        if (++size > threshold) {
+            grow();
+        }
+    }
+
+    private void removeFromOldTable(int index) {
+        oldKeys[index] = TOMBSTONE;
+        oldValues[index] = null;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new byte[tableSize][];
+        hashes = new int[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+        // keep load factor at 0.75, probe sequences are short
+        threshold = tableSize == MAX_CAPACITY ? Integer.MAX_VALUE : tableSize - (tableSize >>> 2);
+    }
+
+    private void grow() {
+        if (oldKeys != null) {
+            // should not happen, new table is much larger than old one, just in case
+            while (oldKeys != null) {
+                rehashStep();
+            }
+        }
+        oldKeys = keys;
+        oldHashes = hashes;
+        oldValues = values;
+        oldMask = mask;
+        rehashIndex = 0;
+        allocate(keys.length << 1);
+    }
+
+    /**
+     * Move a few entries from old table to new table.
+     */
+    private void rehashStep() {
+        if (oldKeys == null) {
+            return;
+        }
+        int end = Math.min(rehashIndex + REHASH_STEP, oldKeys.length);
+        for (int i = rehashIndex; i < end; ++i) {
+            byte[] k = oldKeys[i];
+            if (k != null && k != TOMBSTONE) {
+                int index = oldHashes[i] & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = k;
+                hashes[index] = oldHashes[i];
+                values[index] = oldValues[i];
+                removeFromOldTable(i);
+            }
+        }
+        rehashIndex = end;
+        if (rehashIndex == oldKeys.length) {
+            oldKeys = null;
+            oldHashes = null;
+            oldValues = null;
+        }
+    }
+
+    /**
+     * Hash of key, hash code of ByteWord only depends on its byte sequence.
+     *
+     * @param key key
+     * @return hash
+     */
+    static int hash(ByteWord key) {
+        int hash = key.hashCode();
+        // spread bits, index is taken from low bits
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
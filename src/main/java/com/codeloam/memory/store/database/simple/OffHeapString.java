@@ -0,0 +1,49 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.database.JimdsString;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.OffHeapByteWord;
+
+/**
+ * String stored in off-heap memory, it's used for large values.
+ *
+ * <p>{@link #getData()} returns a new view of the memory, caller should release it after use,
+ * {@link com.codeloam.memory.store.network.data.NetworkBulkString} releases it once it's written.
+ * The memory is freed after the string is freed and all views are released.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class OffHeapString extends JimdsString {
+    private final OffHeapByteWord byteWord;
+
+    /**
+     * Constructor, the value is copied to off-heap memory.
+     * A value that has been read to off-heap memory by the decoder is not copied, this string retains
+     * its own reference, so the caller still releases the value.
+     *
+     * @param byteWord value
+     */
+    public OffHeapString(ByteWord byteWord) {
+        if (byteWord == null) {
+            throw new NullPointerException("null string");
+        }
+        this.byteWord = byteWord instanceof OffHeapByteWord offHeapByteWord
+                ? offHeapByteWord.retain() : OffHeapByteWord.create(byteWord);
+    }
+
+    @Override
+    public int size() {
+        return byteWord.size();
+    }
+
+    @Override
+    public ByteWord getData() {
+        return byteWord.retain();
+    }
+
+    @Override
+    public void free() {
+        byteWord.release();
+    }
+}
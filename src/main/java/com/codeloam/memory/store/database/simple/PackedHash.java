@@ -0,0 +1,214 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash value of database, small hashes are packed into one byte array, like listpack of redis.
+ *
+ * <p>A packed entry is the length of its field, the field, the length of its value and the value,
+ * lengths are variable-length integers. Lookups scan entries and compare fields in place,
+ * which is faster than hashing for a few entries, and an entry costs two more bytes,
+ * instead of a table slot, a node and two word objects.
+ *
+ * <p>When the hash has more than {@link #MAX_PACKED_ENTRIES} entries, or a field or value is longer than
+ * {@link #MAX_PACKED_LENGTH}, entries are moved to a {@link ByteWordHash} and the hash is never packed again.
+ *
+ * <p>Fields and values are copied into the hash, and values are copied out as new words.
+ * This hash is not thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class PackedHash extends JimdsHash<ByteWord, ByteWord> {
+    public static final int MAX_PACKED_ENTRIES = 64;
+    public static final int MAX_PACKED_LENGTH = 64;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] packed;
+    private int used;
+    private int count;
+    /**
+     * Table of a large hash, packed is null when it's used.
+     */
+    private ByteWordHash<ByteWord> table;
+
+    public PackedHash() {
+        packed = new byte[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return table == null ? count : table.size();
+    }
+
+    @Override
+    public ByteWord get(ByteWord key) {
+        if (table != null) {
+            return table.get(key);
+        }
+        int pos = find(key);
+        if (pos < 0) {
+            return null;
+        }
+        int valuePos = skip(pos);
+        int length = VarInt.read(packed, valuePos);
+        int offset = valuePos + VarInt.size(length);
+        return ByteWord.create(Arrays.copyOfRange(packed, offset, offset + length));
+    }
+
+    @Override
+    public ByteWord set(ByteWord key, ByteWord value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        if (table == null && (key.size() > MAX_PACKED_LENGTH || value.size() > MAX_PACKED_LENGTH)) {
+            convert();
+        }
+        if (table != null) {
+            return table.set(key, value.compact());
+        }
+
+        int pos = find(key);
+        if (pos < 0) {
+            if (count >= MAX_PACKED_ENTRIES) {
+                convert();
+                return table.set(key, value.compact());
+            }
+            int size = VarInt.size(key.size()) + key.size() + VarInt.size(value.size()) + value.size();
+            ensureCapacity(used + size);
+            pos = VarInt.write(packed, used, key.size());
+            key.copyTo(packed, pos);
+            pos = VarInt.write(packed, pos + key.size(), value.size());
+            value.copyTo(packed, pos);
+            used += size;
+            count++;
+            return null;
+        }
+
+        // replace value in place, following entries are moved if its size changes
+        int valuePos = skip(pos);
+        int oldLength = VarInt.read(packed, valuePos);
+        int oldOffset = valuePos + VarInt.size(oldLength);
+        ByteWord old = ByteWord.create(Arrays.copyOfRange(packed, oldOffset, oldOffset + oldLength));
+        int oldEnd = oldOffset + oldLength;
+        int newEnd = valuePos + VarInt.size(value.size()) + value.size();
+        if (newEnd != oldEnd) {
+            ensureCapacity(used + newEnd - oldEnd);
+            System.arraycopy(packed, oldEnd, packed, newEnd, used - oldEnd);
+            used += newEnd - oldEnd;
+        }
+        value.copyTo(packed, VarInt.write(packed, valuePos, value.size()));
+        return old;
+    }
+
+    @Override
+    public boolean exist(ByteWord key) {
+        if (table != null) {
+            return table.exist(key);
+        }
+        return find(key) >= 0;
+    }
+
+    @Override
+    public ByteWord remove(ByteWord key) {
+        if (table != null) {
+            return table.remove(key);
+        }
+        int pos = find(key);
+        if (pos < 0) {
+            return null;
+        }
+        int valuePos = skip(pos);
+        int length = VarInt.read(packed, valuePos);
+        int offset = valuePos + VarInt.size(length);
+        ByteWord old = ByteWord.create(Arrays.copyOfRange(packed, offset, offset + length));
+        int end = offset + length;
+        System.arraycopy(packed, end, packed, pos, used - end);
+        used -= end - pos;
+        count--;
+        return old;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super ByteWord, ? super ByteWord> action) {
+        if (table != null) {
+            table.forEach(action);
+            return;
+        }
+        int pos = 0;
+        while (pos < used) {
+            int keyLength = VarInt.read(packed, pos);
+            int keyOffset = pos + VarInt.size(keyLength);
+            int valueLength = VarInt.read(packed, keyOffset + keyLength);
+            int valueOffset = keyOffset + keyLength + VarInt.size(valueLength);
+            action.accept(ByteWord.create(Arrays.copyOfRange(packed, keyOffset, keyOffset + keyLength)),
+                    ByteWord.create(Arrays.copyOfRange(packed, valueOffset, valueOffset + valueLength)));
+            pos = valueOffset + valueLength;
+        }
+    }
+
+    @Override
+    public ByteWord getData() {
+        return null;
+    }
+
+    /**
+     * Whether entries are packed, it's used by tests.
+     *
+     * @return true if entries are in the packed array
+     */
+    boolean isPacked() {
+        return table == null;
+    }
+
+    /**
+     * Find position of the entry with given field.
+     *
+     * @return position of the entry, or -1
+     */
+    private int find(ByteWord key) {
+        int pos = 0;
+        while (pos < used) {
+            int keyLength = VarInt.read(packed, pos);
+            int keyOffset = pos + VarInt.size(keyLength);
+            if (key.contentEquals(packed, keyOffset, keyLength)) {
+                return pos;
+            }
+            int valueLength = VarInt.read(packed, keyOffset + keyLength);
+            pos = keyOffset + keyLength + VarInt.size(valueLength) + valueLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Skip the field of an entry.
+     *
+     * @return position of the value length
+     */
+    private int skip(int pos) {
+        int keyLength = VarInt.read(packed, pos);
+        return pos + VarInt.size(keyLength) + keyLength;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > packed.length) {
+            packed = Arrays.copyOf(packed, Math.max(capacity, packed.length + (packed.length >> 1)));
+        }
+    }
+
+    /**
+     * Move packed entries to a table.
+     */
+    private void convert() {
+        ByteWordHash<ByteWord> converted = new ByteWordHash<>(count * 2);
+        forEach(converted::set);
+        table = converted;
+        packed = null;
+        used = 0;
+        count = 0;
+    }
+}
@@ -6,16 +6,16 @@ import com.codeloam.memory.store.database.Database;
 import com.codeloam.memory.store.database.JimdsData;
 import com.codeloam.memory.store.database.JimdsHash;
 import com.codeloam.memory.store.database.simple.executor.Executor;
+import com.codeloam.memory.store.database.simple.executor.HashExecutor;
 import com.codeloam.memory.store.database.simple.executor.ListExecutor;
 import com.codeloam.memory.store.database.simple.executor.NumberExecutor;
+import com.codeloam.memory.store.database.simple.executor.SetExecutor;
+import com.codeloam.memory.store.database.simple.executor.SortedSetExecutor;
 import com.codeloam.memory.store.database.simple.executor.StringExecutor;
 import com.codeloam.memory.store.network.ByteWord;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Simple database implementation.
  *
@@ -26,20 +26,26 @@ import java.util.Map;
  */
 public class SimpleDatabase implements Database {
     private final JimdsHash<ByteWord, JimdsData> database;
-    private final Map<DataType, Executor> executorMap;
+    /**
+     * Executors indexed by ordinal of data type, null if the type is not supported.
+     */
+    private final Executor[] executors;
 
     public SimpleDatabase() {
-        database = new SimpleHash<>();
-        executorMap = new HashMap<>();
-        executorMap.put(DataType.String, new StringExecutor());
-        executorMap.put(DataType.Number, new NumberExecutor());
-        executorMap.put(DataType.List, new ListExecutor());
+        database = new ByteWordHash<>();
+        executors = new Executor[DataType.values().length];
+        executors[DataType.String.ordinal()] = new StringExecutor();
+        executors[DataType.Number.ordinal()] = new NumberExecutor();
+        executors[DataType.List.ordinal()] = new ListExecutor();
+        executors[DataType.Hash.ordinal()] = new HashExecutor();
+        executors[DataType.Set.ordinal()] = new SetExecutor();
+        executors[DataType.SortedSet.ordinal()] = new SortedSetExecutor();
     }
 
     @Override
     public NetworkData execute(Command command) {
         try {
-            Executor executor = executorMap.get(command.getDataType());
+            Executor executor = executors[command.getDataType().ordinal()];
             if (executor == null) {
                 return new NetworkError("Unsupported data type " + command.getName());
             }
@@ -48,4 +54,9 @@ public class SimpleDatabase implements Database {
             return new NetworkError(t.getMessage());
         }
     }
+
+    @Override
+    public long size() {
+        return database.size();
+    }
 }
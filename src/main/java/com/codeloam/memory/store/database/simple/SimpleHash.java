@@ -4,6 +4,7 @@ import com.codeloam.memory.store.database.JimdsHash;
 import com.codeloam.memory.store.network.ByteWord;
 
 import java.util.HashMap;
+import java.util.function.BiConsumer;
 
 /**
  * Simple implementation of Hash, use Java builtin HashMap.
@@ -38,6 +39,16 @@ public class SimpleHash<K extends Comparable<K>, V> extends JimdsHash<K, V> {
         return hashMap.containsKey(key);
     }
 
+    @Override
+    public V remove(K key) {
+        return hashMap.remove(key);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        hashMap.forEach(action);
+    }
+
     @Override
     public ByteWord getData() {
         return null;
@@ -3,23 +3,53 @@ package com.codeloam.memory.store.database.simple;
 import com.codeloam.memory.store.database.JimdsList;
 import com.codeloam.memory.store.network.ByteWord;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 /**
- * Simple implementation of JimdsList.
+ * Simple implementation of JimdsList, a doubly linked list of packed segments, like quicklist of redis.
+ *
+ * <p>A segment keeps many elements in one byte array. An element is stored as its length, its bytes,
+ * and its length again, lengths are variable-length integers, the trailing one is stored backwards,
+ * so a segment can be walked from both ends. A small element costs two more bytes,
+ * instead of a list node and a word object.
+ *
+ * <p>A segment has free space at both ends, so push and pop at both ends of the list are O(1).
+ * Indexing walks from the closer end of the list, and skips whole segments by their element count.
+ * A segment is at most segmentSize bytes, unless it holds a single larger element,
+ * it's split when an element is inserted into a full segment, and unlinked when it's empty.
+ *
+ * <p>Elements are copied into the list, and copied out as new words, so words are never shared with callers.
+ * A range is copied out into a single array, and trimming drops whole segments without reading their elements.
  *
  * @author jinyu.li
  * @since 1.0
  */
-public class SimpleList<T> extends JimdsList<T> {
-    private final List<T> list;
+public class SimpleList extends JimdsList<ByteWord> {
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024;
+
+    private final int segmentSize;
+    private Segment head;
+    private Segment tail;
+    private int size;
 
     public SimpleList() {
-        list = new LinkedList<>();
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param segmentSize max bytes of a segment
+     */
+    public SimpleList(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
     }
 
     @Override
@@ -28,46 +58,595 @@ public class SimpleList<T> extends JimdsList<T> {
     }
 
     @Override
-    public ListIterator<T> reverseIterator() {
-        return list.listIterator(list.size() - 1);
+    public ListIterator<ByteWord> reverseIterator() {
+        return new Itr(size);
+    }
+
+    @Override
+    public ListIterator<ByteWord> iterator() {
+        return new Itr(0);
     }
 
     @Override
-    public ListIterator<T> iterator() {
-        return list.listIterator();
+    public ListIterator<ByteWord> listIterator(int index) {
+        return new Itr(index);
     }
 
+    @Override
     public int size() {
-        return list.size();
+        return size;
+    }
+
+    @Override
+    public void addFirst(ByteWord word) {
+        int entrySize = entrySize(word.size());
+        if (head == null || head.used() + entrySize > segmentSize) {
+            link(new Segment(entrySize, true), null, head);
+        }
+        insert(head, head.start, word, entrySize);
+    }
+
+    @Override
+    public void addLast(ByteWord word) {
+        int entrySize = entrySize(word.size());
+        if (tail == null || tail.used() + entrySize > segmentSize) {
+            link(new Segment(entrySize, false), tail, null);
+        }
+        insert(tail, tail.end, word, entrySize);
     }
 
     @Override
-    public void addFirst(T t) {
-        list.add(0, t);
+    public ByteWord removeFirst() {
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        Segment segment = head;
+        int length = VarInt.read(segment.data, segment.start);
+        ByteWord word = segment.word(segment.start, length);
+        remove(segment, segment.start, entrySize(length));
+        return word;
     }
 
     @Override
-    public void addLast(T t) {
-        list.add(t);
+    public ByteWord removeLast() {
+        if (tail == null) {
+            throw new NoSuchElementException();
+        }
+        Segment segment = tail;
+        int length = readLengthBackward(segment.data, segment.end);
+        int pos = segment.end - entrySize(length);
+        ByteWord word = segment.word(pos, length);
+        remove(segment, pos, entrySize(length));
+        return word;
     }
 
     @Override
-    public T removeFirst() {
-        return list.remove(0);
+    public ByteWord set(int index, ByteWord word) {
+        checkIndex(index);
+        ListIterator<ByteWord> iterator = new Itr(index);
+        ByteWord old = iterator.next();
+        iterator.set(word);
+        return old;
     }
 
     @Override
-    public T removeLast() {
-        return list.remove(list.size() - 1);
+    public ByteWord get(int index) {
+        checkIndex(index);
+        return new Itr(index).next();
     }
 
+    /**
+     * Elements are compared in their segments, so nothing is copied out while scanning.
+     */
     @Override
-    public T set(int index, T t) {
-        return list.set(index, t);
+    public int indexOf(ByteWord word) {
+        int index = 0;
+        for (Segment segment = head; segment != null; segment = segment.next) {
+            int pos = segment.start;
+            while (pos < segment.end) {
+                int length = VarInt.read(segment.data, pos);
+                if (word.contentEquals(segment.data, pos + VarInt.size(length), length)) {
+                    return index;
+                }
+                pos += entrySize(length);
+                index++;
+            }
+        }
+        return -1;
     }
 
+    /**
+     * Elements in [from, to) are copied into one byte array, returned words are slices of it,
+     * so a range costs one array however many elements it has.
+     */
     @Override
-    public T get(int index) {
-        return list.get(index);
+    public List<ByteWord> range(int from, int to) {
+        checkRange(from, to);
+        ByteWord[] words = new ByteWord[to - from];
+        if (words.length == 0) {
+            return Arrays.asList(words);
+        }
+        Itr itr = new Itr(from);
+        // count bytes first, so elements are copied only once
+        Segment segment = itr.segment;
+        int pos = itr.pos;
+        int total = 0;
+        for (int i = 0; i < words.length; ++i) {
+            if (pos == segment.end) {
+                segment = segment.next;
+                pos = segment.start;
+            }
+            int length = VarInt.read(segment.data, pos);
+            total += length;
+            pos += entrySize(length);
+        }
+
+        byte[] bytes = new byte[total];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        segment = itr.segment;
+        pos = itr.pos;
+        int offset = 0;
+        for (int i = 0; i < words.length; ++i) {
+            if (pos == segment.end) {
+                segment = segment.next;
+                pos = segment.start;
+            }
+            int length = VarInt.read(segment.data, pos);
+            int n = VarInt.size(length);
+            System.arraycopy(segment.data, pos + n, bytes, offset, length);
+            words[i] = length == 0 ? ByteWord.create(new byte[0]) : ByteWord.slice(buffer, offset, length);
+            offset += length;
+            pos += n + length + n;
+        }
+        return Arrays.asList(words);
+    }
+
+    /**
+     * Whole segments out of the range are unlinked without reading their elements,
+     * only the two segments at the ends of the range are walked, and their bytes are not moved.
+     */
+    @Override
+    public void trim(int from, int to) {
+        checkRange(from, to);
+        int first = from;
+        while (first > 0 && head.count <= first) {
+            first -= head.count;
+            size -= head.count;
+            unlink(head);
+        }
+        if (first > 0) {
+            head.start = head.locate(first);
+            head.count -= first;
+            size -= first;
+        }
+
+        int last = size - (to - from);
+        while (last > 0 && tail.count <= last) {
+            last -= tail.count;
+            size -= tail.count;
+            unlink(tail);
+        }
+        if (last > 0) {
+            tail.end = tail.locate(tail.count - last);
+            tail.count -= last;
+            size -= last;
+        }
+    }
+
+    /**
+     * Number of segments, it's used by tests.
+     *
+     * @return number of segments
+     */
+    int segmentCount() {
+        int count = 0;
+        for (Segment segment = head; segment != null; segment = segment.next) {
+            count++;
+        }
+        return count;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") of size " + size);
+        }
+    }
+
+    /**
+     * Write an element to the segment at given position.
+     *
+     * @return position after the element
+     */
+    private int insert(Segment segment, int pos, ByteWord word, int entrySize) {
+        int gap = segment.openGap(pos, entrySize, segmentSize);
+        writeEntry(segment.data, gap, word);
+        segment.count++;
+        size++;
+        return gap + entrySize;
+    }
+
+    /**
+     * Remove an element from the segment, the segment is unlinked if it's empty.
+     *
+     * @return position of the element that follows the removed one
+     */
+    private int remove(Segment segment, int pos, int entrySize) {
+        int following = segment.remove(pos, entrySize);
+        size--;
+        if (segment.count == 0) {
+            unlink(segment);
+        }
+        return following;
+    }
+
+    private void link(Segment segment, Segment prev, Segment next) {
+        segment.prev = prev;
+        segment.next = next;
+        if (prev == null) {
+            head = segment;
+        } else {
+            prev.next = segment;
+        }
+        if (next == null) {
+            tail = segment;
+        } else {
+            next.prev = segment;
+        }
+    }
+
+    private void unlink(Segment segment) {
+        if (segment.prev == null) {
+            head = segment.next;
+        } else {
+            segment.prev.next = segment.next;
+        }
+        if (segment.next == null) {
+            tail = segment.prev;
+        } else {
+            segment.next.prev = segment.prev;
+        }
+    }
+
+    /**
+     * Split a segment before given position, elements from the position are moved to a new segment after it.
+     */
+    private void split(Segment segment, int pos) {
+        int count = 0;
+        for (int p = pos; p < segment.end; p += entrySize(VarInt.read(segment.data, p))) {
+            count++;
+        }
+        Segment right = new Segment(segment.end - pos, false);
+        System.arraycopy(segment.data, pos, right.data, 0, segment.end - pos);
+        right.end = segment.end - pos;
+        right.count = count;
+        segment.end = pos;
+        segment.count -= count;
+        link(right, segment, segment.next);
+    }
+
+    /**
+     * Bytes of an element with given length, including its leading and trailing lengths.
+     */
+    private static int entrySize(int length) {
+        return length + 2 * VarInt.size(length);
+    }
+
+    private static void writeEntry(byte[] data, int pos, ByteWord word) {
+        int length = word.size();
+        int n = VarInt.size(length);
+        int end = pos + n + length + n;
+        for (int i = 0, v = length; i < n; ++i, v >>>= 7) {
+            byte b = (byte) ((v & 0x7f) | (i < n - 1 ? 0x80 : 0));
+            data[pos + i] = b;
+            data[end - 1 - i] = b;
+        }
+        word.copyTo(data, pos + n);
+    }
+
+    /**
+     * Read length of the element that ends at given position.
+     */
+    private static int readLengthBackward(byte[] data, int end) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[--end];
+            length |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return length;
+    }
+
+    /**
+     * A segment, elements are in data[start, end).
+     */
+    private static final class Segment {
+        private byte[] data;
+        private int start;
+        private int end;
+        private int count;
+        private Segment prev;
+        private Segment next;
+
+        /**
+         * Create an empty segment.
+         *
+         * @param capacity initial capacity
+         * @param atEnd    whether free space is at the end, so elements are added before it
+         */
+        Segment(int capacity, boolean atEnd) {
+            data = new byte[capacity];
+            start = atEnd ? capacity : 0;
+            end = start;
+        }
+
+        int used() {
+            return end - start;
+        }
+
+        ByteWord word(int pos, int length) {
+            int offset = pos + VarInt.size(length);
+            return ByteWord.create(Arrays.copyOfRange(data, offset, offset + length));
+        }
+
+        /**
+         * Find position of the element at given index of this segment, it walks from the closer end.
+         */
+        int locate(int index) {
+            int pos;
+            if (index <= count / 2) {
+                pos = start;
+                for (int i = 0; i < index; ++i) {
+                    pos += entrySize(VarInt.read(data, pos));
+                }
+            } else {
+                pos = end;
+                for (int i = count; i > index; --i) {
+                    pos -= entrySize(readLengthBackward(data, pos));
+                }
+            }
+            return pos;
+        }
+
+        /**
+         * Open a gap of given size at given position, the smaller part is moved if there is free space,
+         * otherwise data is copied to a larger array.
+         *
+         * @return start of the gap
+         */
+        int openGap(int pos, int size, int maxCapacity) {
+            int head = pos - start;
+            int tail = end - pos;
+            if (start >= size && (head <= tail || data.length - end < size)) {
+                System.arraycopy(data, start, data, start - size, head);
+                start -= size;
+                return pos - size;
+            }
+            if (data.length - end >= size) {
+                System.arraycopy(data, pos, data, pos + size, tail);
+                end += size;
+                return pos;
+            }
+            int used = end - start + size;
+            int capacity = used <= data.length ? data.length : Math.max(used, Math.min(data.length * 2, maxCapacity));
+            int free = capacity - used;
+            // keep free space at the end that grows, or at both ends
+            int newStart = tail == 0 && head > 0 ? 0 : head == 0 && tail > 0 ? free : free / 2;
+            byte[] newData = new byte[capacity];
+            System.arraycopy(data, start, newData, newStart, head);
+            System.arraycopy(data, pos, newData, newStart + head + size, tail);
+            data = newData;
+            start = newStart;
+            end = newStart + used;
+            return newStart + head;
+        }
+
+        /**
+         * Remove bytes of an element, the smaller part is moved.
+         *
+         * @return position of the element that follows the removed one
+         */
+        int remove(int pos, int size) {
+            count--;
+            if (pos - start < end - pos - size) {
+                System.arraycopy(data, start, data, start + size, pos - start);
+                start += size;
+                return pos + size;
+            }
+            System.arraycopy(data, pos + size, data, pos, end - pos - size);
+            end -= size;
+            return pos;
+        }
+    }
+
+    /**
+     * Iterator of the list, the cursor is a position in a segment.
+     */
+    private final class Itr implements ListIterator<ByteWord> {
+        private Segment segment;
+        private int pos;
+        private int index;
+        /**
+         * Element returned by last next() or previous(), lastPos is -1 if there is none.
+         */
+        private Segment lastSegment;
+        private int lastPos = -1;
+        private boolean lastNext;
+
+        Itr(int index) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            this.index = index;
+            if (index == size) {
+                segment = tail;
+                pos = tail == null ? 0 : tail.end;
+            } else if (index < size / 2) {
+                Segment s = head;
+                int i = index;
+                while (i >= s.count) {
+                    i -= s.count;
+                    s = s.next;
+                }
+                segment = s;
+                pos = s.locate(i);
+            } else {
+                // number of elements from index to the end
+                Segment s = tail;
+                int i = size - index;
+                while (i > s.count) {
+                    i -= s.count;
+                    s = s.prev;
+                }
+                segment = s;
+                pos = s.locate(s.count - i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public ByteWord next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            if (pos == segment.end) {
+                segment = segment.next;
+                pos = segment.start;
+            }
+            int length = VarInt.read(segment.data, pos);
+            lastSegment = segment;
+            lastPos = pos;
+            lastNext = true;
+            pos += entrySize(length);
+            index++;
+            return segment.word(lastPos, length);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public ByteWord previous() {
+            if (index <= 0) {
+                throw new NoSuchElementException();
+            }
+            if (pos == segment.start) {
+                segment = segment.prev;
+                pos = segment.end;
+            }
+            int length = readLengthBackward(segment.data, pos);
+            pos -= entrySize(length);
+            lastSegment = segment;
+            lastPos = pos;
+            lastNext = false;
+            index--;
+            return segment.word(pos, length);
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastPos < 0) {
+                throw new IllegalStateException();
+            }
+            Segment removed = lastSegment;
+            int following = SimpleList.this.remove(removed, lastPos, entrySize(VarInt.read(removed.data, lastPos)));
+            if (lastNext) {
+                index--;
+            }
+            if (removed.count > 0) {
+                segment = removed;
+                pos = following;
+            } else if (removed.next != null) {
+                segment = removed.next;
+                pos = segment.start;
+            } else {
+                segment = removed.prev;
+                pos = segment == null ? 0 : segment.end;
+            }
+            lastPos = -1;
+        }
+
+        @Override
+        public void set(ByteWord word) {
+            if (lastPos < 0) {
+                throw new IllegalStateException();
+            }
+            int newSize = entrySize(word.size());
+            if (entrySize(VarInt.read(lastSegment.data, lastPos)) == newSize) {
+                writeEntry(lastSegment.data, lastPos, word);
+                return;
+            }
+            boolean forward = lastNext;
+            remove();
+            add(word);
+            // the new element is right before cursor
+            lastSegment = segment;
+            lastPos = pos - newSize;
+            lastNext = forward;
+            if (!forward) {
+                pos = lastPos;
+                index--;
+            }
+        }
+
+        /**
+         * Insert an element before cursor. If the segment is full, it's split at cursor,
+         * and the element is added to a neighbour segment with free space, or a new segment.
+         *
+         * @param word element
+         */
+        @Override
+        public void add(ByteWord word) {
+            int entrySize = entrySize(word.size());
+            if (segment == null) {
+                link(new Segment(entrySize, false), null, null);
+                segment = head;
+                pos = head.start;
+            } else if (segment.used() + entrySize > segmentSize) {
+                if (pos > segment.start && pos < segment.end) {
+                    split(segment, pos);
+                }
+                Segment neighbour = pos == segment.start ? segment.prev : segment.next;
+                if (neighbour != null && neighbour.used() + entrySize <= segmentSize) {
+                    pos = pos == segment.start ? neighbour.end : neighbour.start;
+                    segment = neighbour;
+                } else {
+                    Segment created = new Segment(entrySize, pos == segment.start);
+                    if (pos == segment.start) {
+                        link(created, segment.prev, segment);
+                    } else {
+                        link(created, segment, segment.next);
+                    }
+                    segment = created;
+                    pos = created.start;
+                }
+            }
+            pos = insert(segment, pos, word, entrySize);
+            index++;
+            lastPos = -1;
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.database.JimdsSet;
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Set value of database, a set of integers is a sorted long array, like intset of redis.
+ *
+ * <p>A member is an integer if it's a long in canonical form, e.g. 12 but not 012 or -0,
+ * so it's written back with the same bytes. An integer costs 8 bytes, instead of a table slot
+ * and a byte array, and it's found by binary search.
+ *
+ * <p>When a member that is not an integer is added, or the set has more than {@link #MAX_INTSET_ENTRIES}
+ * members, members are moved to a {@link ByteWordHash} and the set never goes back to an array.
+ *
+ * <p>This set is not thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SimpleSet extends JimdsSet<ByteWord> {
+    public static final int MAX_INTSET_ENTRIES = 512;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] integers;
+    private int count;
+    /**
+     * Table of members, integers is null when it's used, values are always true.
+     */
+    private ByteWordHash<Boolean> table;
+
+    public SimpleSet() {
+        integers = new long[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return table == null ? count : table.size();
+    }
+
+    @Override
+    public boolean add(ByteWord member) {
+        if (table == null) {
+            if (isInteger(member)) {
+                long value = member.getLong();
+                int index = Arrays.binarySearch(integers, 0, count, value);
+                if (index >= 0) {
+                    return false;
+                }
+                if (count < MAX_INTSET_ENTRIES) {
+                    index = -index - 1;
+                    if (count == integers.length) {
+                        integers = Arrays.copyOf(integers, Math.min(count * 2, MAX_INTSET_ENTRIES));
+                    }
+                    System.arraycopy(integers, index, integers, index + 1, count - index);
+                    integers[index] = value;
+                    count++;
+                    return true;
+                }
+            }
+            convert();
+        }
+        return table.set(member, Boolean.TRUE) == null;
+    }
+
+    @Override
+    public boolean exist(ByteWord member) {
+        if (table != null) {
+            return table.exist(member);
+        }
+        return isInteger(member) && Arrays.binarySearch(integers, 0, count, member.getLong()) >= 0;
+    }
+
+    @Override
+    public boolean remove(ByteWord member) {
+        if (table != null) {
+            return table.remove(member) != null;
+        }
+        if (!isInteger(member)) {
+            return false;
+        }
+        int index = Arrays.binarySearch(integers, 0, count, member.getLong());
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(integers, index + 1, integers, index, count - index - 1);
+        count--;
+        return true;
+    }
+
+    /**
+     * Integers are visited in ascending order.
+     */
+    @Override
+    public void forEach(Consumer<? super ByteWord> action) {
+        if (table != null) {
+            table.forEach((member, present) -> action.accept(member));
+            return;
+        }
+        for (int i = 0; i < count; ++i) {
+            action.accept(ByteWord.create(integers[i]));
+        }
+    }
+
+    @Override
+    public ByteWord getData() {
+        return null;
+    }
+
+    /**
+     * Whether members are in the integer array, it's used by tests.
+     *
+     * @return true if members are integers in the array
+     */
+    boolean isIntSet() {
+        return table == null;
+    }
+
+    /**
+     * Move integers to a table.
+     */
+    private void convert() {
+        ByteWordHash<Boolean> converted = new ByteWordHash<>(count * 2);
+        for (int i = 0; i < count; ++i) {
+            converted.set(ByteWord.create(integers[i]), Boolean.TRUE);
+        }
+        table = converted;
+        integers = null;
+        count = 0;
+    }
+
+    /**
+     * Whether the member is a long written in canonical form, a longer form of the same value,
+     * with leading zeros or as -0, has more bytes than the canonical one.
+     */
+    private static boolean isInteger(ByteWord member) {
+        return member.isLong() && member.size() == stringSize(member.getLong());
+    }
+
+    private static int stringSize(long value) {
+        int size = value < 0 ? 2 : 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,474 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.database.JimdsSortedSet;
+import com.codeloam.memory.store.network.ByteWord;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Sorted set value of database, a small set is packed into one byte array, a large set is a skiplist
+ * and a hash from member to skiplist node, like zset of redis.
+ *
+ * <p>A packed entry is the score, the length of its member and the member, entries are kept in order,
+ * so lookups, ranks and ranges scan entries from the start. It's faster than a skiplist for a few entries,
+ * and an entry costs 9 more bytes, instead of a node, two arrays of levels and a hash slot.
+ *
+ * <p>When the set has more than {@link #MAX_PACKED_ENTRIES} members, or a member is longer than
+ * {@link #MAX_PACKED_LENGTH}, members are moved to a skiplist and the set is never packed again.
+ * Each level of a skiplist node keeps the span to the next node of the level, the number of nodes it skips,
+ * so rank of a node and node of a rank are found in O(log n) by summing spans along the search path.
+ * Score of a member is found in O(1) through the hash, and a range is found in O(log n),
+ * members of the range are then visited along the lowest level.
+ *
+ * <p>Members with the same score are ordered by their bytes as unsigned values. A score of -0.0 is stored as 0.0.
+ * This set is not thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SimpleSortedSet extends JimdsSortedSet {
+    public static final int MAX_PACKED_ENTRIES = 128;
+    public static final int MAX_PACKED_LENGTH = 64;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SCORE_SIZE = 8;
+    private static final VarHandle SCORE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+
+    private byte[] packed;
+    private int used;
+    private int count;
+    /**
+     * Skiplist and hash of a large set, packed is null when they are used.
+     */
+    private SkipList list;
+    private ByteWordHash<Node> dict;
+
+    public SimpleSortedSet() {
+        packed = new byte[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return list == null ? count : list.length;
+    }
+
+    @Override
+    public boolean add(ByteWord member, double score) {
+        if (Double.isNaN(score)) {
+            throw new IllegalArgumentException("score is not a number");
+        }
+        // -0.0 and 0.0 are the same score
+        score += 0.0;
+        if (list == null) {
+            int pos = find(member);
+            if (pos >= 0) {
+                if (scoreAt(pos) != score) {
+                    byte[] bytes = memberAt(pos);
+                    removeAt(pos);
+                    insertPacked(score, bytes);
+                }
+                return false;
+            }
+            if (count < MAX_PACKED_ENTRIES && member.size() <= MAX_PACKED_LENGTH) {
+                insertPacked(score, member.get());
+                return true;
+            }
+            convert();
+        }
+
+        Node node = dict.get(member);
+        if (node != null) {
+            updateScore(node, score);
+            return false;
+        }
+        byte[] bytes = member.compact().get();
+        // the hash keeps the same array as the node
+        dict.set(ByteWord.create(bytes), list.insert(score, bytes));
+        return true;
+    }
+
+    @Override
+    public double incrementScore(ByteWord member, double increment) {
+        double old = getScore(member);
+        double score = Double.isNaN(old) ? increment : old + increment;
+        add(member, score);
+        return score + 0.0;
+    }
+
+    @Override
+    public double getScore(ByteWord member) {
+        if (list == null) {
+            int pos = find(member);
+            return pos < 0 ? Double.NaN : scoreAt(pos);
+        }
+        Node node = dict.get(member);
+        return node == null ? Double.NaN : node.score;
+    }
+
+    @Override
+    public int getRank(ByteWord member) {
+        if (list == null) {
+            int rank = 0;
+            for (int pos = 0; pos < used; pos = next(pos), ++rank) {
+                if (memberEquals(member, pos)) {
+                    return rank;
+                }
+            }
+            return -1;
+        }
+        Node node = dict.get(member);
+        return node == null ? -1 : list.getRank(node) - 1;
+    }
+
+    @Override
+    public boolean remove(ByteWord member) {
+        if (list == null) {
+            int pos = find(member);
+            if (pos < 0) {
+                return false;
+            }
+            removeAt(pos);
+            return true;
+        }
+        Node node = dict.remove(member);
+        if (node == null) {
+            return false;
+        }
+        list.delete(node.score, node.member);
+        return true;
+    }
+
+    @Override
+    public void range(int from, int to, ObjDoubleConsumer<ByteWord> action) {
+        if (from < 0 || to > size() || from >= to) {
+            return;
+        }
+        if (list == null) {
+            int pos = 0;
+            for (int rank = 0; rank < to; ++rank, pos = next(pos)) {
+                if (rank >= from) {
+                    action.accept(ByteWord.create(memberAt(pos)), scoreAt(pos));
+                }
+            }
+            return;
+        }
+        Node node = list.getByRank(from + 1);
+        for (int rank = from; rank < to; ++rank, node = node.forward[0]) {
+            action.accept(ByteWord.create(node.member), node.score);
+        }
+    }
+
+    @Override
+    public void rangeByScore(double min, boolean minExclusive, double max, boolean maxExclusive,
+                             int offset, int count, ObjDoubleConsumer<ByteWord> action) {
+        if (list == null) {
+            for (int pos = 0; pos < used && count != 0; pos = next(pos)) {
+                double score = scoreAt(pos);
+                if (!aboveMin(score, min, minExclusive)) {
+                    continue;
+                }
+                if (!belowMax(score, max, maxExclusive)) {
+                    return;
+                }
+                if (offset > 0) {
+                    offset--;
+                    continue;
+                }
+                action.accept(ByteWord.create(memberAt(pos)), score);
+                count--;
+            }
+            return;
+        }
+        int rank = list.getFirstRank(min, minExclusive);
+        // skip offset members by rank, instead of walking them
+        Node node = (long) rank + offset <= list.length ? list.getByRank(rank + offset) : null;
+        for (; node != null && count != 0 && belowMax(node.score, max, maxExclusive); node = node.forward[0]) {
+            action.accept(ByteWord.create(node.member), node.score);
+            count--;
+        }
+    }
+
+    @Override
+    public ByteWord getData() {
+        return null;
+    }
+
+    /**
+     * Whether members are in the packed array, it's used by tests.
+     *
+     * @return true if members are packed
+     */
+    boolean isPacked() {
+        return list == null;
+    }
+
+    private void updateScore(Node node, double score) {
+        if (node.score == score) {
+            return;
+        }
+        // keep the node if it stays between its neighbours, otherwise move it
+        Node prev = node.backward;
+        Node following = node.forward[0];
+        if ((prev == null || compare(prev.score, prev.member, score, node.member) < 0)
+                && (following == null || compare(following.score, following.member, score, node.member) > 0)) {
+            node.score = score;
+            return;
+        }
+        list.delete(node.score, node.member);
+        dict.set(ByteWord.create(node.member), list.insert(score, node.member));
+    }
+
+    /**
+     * Find position of the entry with given member.
+     *
+     * @return position of the entry, or -1
+     */
+    private int find(ByteWord member) {
+        for (int pos = 0; pos < used; pos = next(pos)) {
+            if (memberEquals(member, pos)) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private boolean memberEquals(ByteWord member, int pos) {
+        int length = VarInt.read(packed, pos + SCORE_SIZE);
+        return member.contentEquals(packed, pos + SCORE_SIZE + VarInt.size(length), length);
+    }
+
+    private int next(int pos) {
+        int length = VarInt.read(packed, pos + SCORE_SIZE);
+        return pos + SCORE_SIZE + VarInt.size(length) + length;
+    }
+
+    private double scoreAt(int pos) {
+        return (double) SCORE.get(packed, pos);
+    }
+
+    private byte[] memberAt(int pos) {
+        int length = VarInt.read(packed, pos + SCORE_SIZE);
+        int offset = pos + SCORE_SIZE + VarInt.size(length);
+        return Arrays.copyOfRange(packed, offset, offset + length);
+    }
+
+    /**
+     * Insert an entry before the first entry that is greater.
+     */
+    private void insertPacked(double score, byte[] member) {
+        int pos = 0;
+        while (pos < used) {
+            int length = VarInt.read(packed, pos + SCORE_SIZE);
+            int offset = pos + SCORE_SIZE + VarInt.size(length);
+            int c = Double.compare(scoreAt(pos), score);
+            if (c > 0 || (c == 0 && Arrays.compareUnsigned(packed, offset, offset + length,
+                    member, 0, member.length) > 0)) {
+                break;
+            }
+            pos = offset + length;
+        }
+        int size = SCORE_SIZE + VarInt.size(member.length) + member.length;
+        if (used + size > packed.length) {
+            packed = Arrays.copyOf(packed, Math.max(used + size, packed.length + (packed.length >> 1)));
+        }
+        System.arraycopy(packed, pos, packed, pos + size, used - pos);
+        SCORE.set(packed, pos, score);
+        int offset = VarInt.write(packed, pos + SCORE_SIZE, member.length);
+        System.arraycopy(member, 0, packed, offset, member.length);
+        used += size;
+        count++;
+    }
+
+    private void removeAt(int pos) {
+        int end = next(pos);
+        System.arraycopy(packed, end, packed, pos, used - end);
+        used -= end - pos;
+        count--;
+    }
+
+    /**
+     * Move packed entries to a skiplist, entries are in order, so each one is appended.
+     */
+    private void convert() {
+        SkipList converted = new SkipList();
+        ByteWordHash<Node> convertedDict = new ByteWordHash<>(count * 2);
+        for (int pos = 0; pos < used; pos = next(pos)) {
+            byte[] member = memberAt(pos);
+            convertedDict.set(ByteWord.create(member), converted.insert(scoreAt(pos), member));
+        }
+        list = converted;
+        dict = convertedDict;
+        packed = null;
+        used = 0;
+        count = 0;
+    }
+
+    private static int compare(double score1, byte[] member1, double score2, byte[] member2) {
+        int c = Double.compare(score1, score2);
+        return c != 0 ? c : Arrays.compareUnsigned(member1, member2);
+    }
+
+    private static boolean aboveMin(double score, double min, boolean exclusive) {
+        return exclusive ? score > min : score >= min;
+    }
+
+    private static boolean belowMax(double score, double max, boolean exclusive) {
+        return exclusive ? score < max : score <= max;
+    }
+
+    /**
+     * A skiplist node, forward[i] is the next node at level i, and span[i] is the number of nodes
+     * from this node to forward[i], or to the end of the list if forward[i] is null.
+     */
+    private static final class Node {
+        private final byte[] member;
+        private double score;
+        private Node backward;
+        private final Node[] forward;
+        private final int[] span;
+
+        Node(int level, double score, byte[] member) {
+            this.member = member;
+            this.score = score;
+            forward = new Node[level];
+            span = new int[level];
+        }
+    }
+
+    /**
+     * Skiplist ordered by score and member, ranks of its methods start from 1, 0 means no node.
+     */
+    private static final class SkipList {
+        private static final int MAX_LEVEL = 32;
+
+        private final Node header = new Node(MAX_LEVEL, 0, null);
+        private int length;
+        private int level = 1;
+
+        Node insert(double score, byte[] member) {
+            Node[] update = new Node[MAX_LEVEL];
+            int[] rank = new int[MAX_LEVEL];
+            Node x = header;
+            for (int i = level - 1; i >= 0; --i) {
+                rank[i] = i == level - 1 ? 0 : rank[i + 1];
+                while (x.forward[i] != null && compare(x.forward[i].score, x.forward[i].member, score, member) < 0) {
+                    rank[i] += x.span[i];
+                    x = x.forward[i];
+                }
+                update[i] = x;
+            }
+            int newLevel = randomLevel();
+            if (newLevel > level) {
+                for (int i = level; i < newLevel; ++i) {
+                    rank[i] = 0;
+                    update[i] = header;
+                    header.span[i] = length;
+                }
+                level = newLevel;
+            }
+            x = new Node(newLevel, score, member);
+            for (int i = 0; i < newLevel; ++i) {
+                x.forward[i] = update[i].forward[i];
+                update[i].forward[i] = x;
+                x.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+                update[i].span[i] = rank[0] - rank[i] + 1;
+            }
+            for (int i = newLevel; i < level; ++i) {
+                update[i].span[i]++;
+            }
+            x.backward = update[0] == header ? null : update[0];
+            if (x.forward[0] != null) {
+                x.forward[0].backward = x;
+            }
+            length++;
+            return x;
+        }
+
+        void delete(double score, byte[] member) {
+            Node[] update = new Node[MAX_LEVEL];
+            Node x = header;
+            for (int i = level - 1; i >= 0; --i) {
+                while (x.forward[i] != null && compare(x.forward[i].score, x.forward[i].member, score, member) < 0) {
+                    x = x.forward[i];
+                }
+                update[i] = x;
+            }
+            x = x.forward[0];
+            for (int i = 0; i < level; ++i) {
+                if (update[i].forward[i] == x) {
+                    update[i].span[i] += x.span[i] - 1;
+                    update[i].forward[i] = x.forward[i];
+                } else {
+                    update[i].span[i]--;
+                }
+            }
+            if (x.forward[0] != null) {
+                x.forward[0].backward = x.backward;
+            }
+            while (level > 1 && header.forward[level - 1] == null) {
+                level--;
+            }
+            length--;
+        }
+
+        int getRank(Node node) {
+            int rank = 0;
+            Node x = header;
+            for (int i = level - 1; i >= 0; --i) {
+                while (x.forward[i] != null
+                        && compare(x.forward[i].score, x.forward[i].member, node.score, node.member) <= 0) {
+                    rank += x.span[i];
+                    x = x.forward[i];
+                }
+                if (x == node) {
+                    return rank;
+                }
+            }
+            return 0;
+        }
+
+        Node getByRank(int rank) {
+            int traversed = 0;
+            Node x = header;
+            for (int i = level - 1; i >= 0; --i) {
+                while (x.forward[i] != null && traversed + x.span[i] <= rank) {
+                    traversed += x.span[i];
+                    x = x.forward[i];
+                }
+                if (traversed == rank) {
+                    return x == header ? null : x;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Rank of the first node with score above min, length + 1 if there is none.
+         */
+        int getFirstRank(double min, boolean exclusive) {
+            int rank = 0;
+            Node x = header;
+            for (int i = level - 1; i >= 0; --i) {
+                while (x.forward[i] != null && !aboveMin(x.forward[i].score, min, exclusive)) {
+                    rank += x.span[i];
+                    x = x.forward[i];
+                }
+            }
+            return rank + 1;
+        }
+
+        private static int randomLevel() {
+            // each level has 1/4 nodes of the level below
+            int level = 1;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (level < MAX_LEVEL && random.nextInt(4) == 0) {
+                level++;
+            }
+            return level;
+        }
+    }
+}
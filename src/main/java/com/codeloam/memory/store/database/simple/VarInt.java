@@ -0,0 +1,68 @@
+package com.codeloam.memory.store.database.simple;
+
+/**
+ * Variable-length integers of packed encodings, 7 bits per byte, low bits first,
+ * the high bit of a byte is set if more bytes follow. Values less than 128 take one byte.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+final class VarInt {
+    private VarInt() {
+    }
+
+    /**
+     * Bytes of given value.
+     *
+     * @param value non-negative value
+     * @return number of bytes
+     */
+    static int size(int value) {
+        if (value < 1 << 7) {
+            return 1;
+        } else if (value < 1 << 14) {
+            return 2;
+        } else if (value < 1 << 21) {
+            return 3;
+        } else if (value < 1 << 28) {
+            return 4;
+        }
+        return 5;
+    }
+
+    /**
+     * Write a value at given position.
+     *
+     * @param data  target array
+     * @param pos   position of the first byte
+     * @param value non-negative value
+     * @return position after the value
+     */
+    static int write(byte[] data, int pos, int value) {
+        while (value >= 1 << 7) {
+            data[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * Read the value that starts at given position, its size is {@link #size(int)} of the value.
+     *
+     * @param data array
+     * @param pos  position of the first byte
+     * @return value
+     */
+    static int read(byte[] data, int pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.codeloam.memory.store.database.simple.executor;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.database.JimdsData;
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.database.UnknownCommandException;
+import com.codeloam.memory.store.database.simple.PackedHash;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
+import com.codeloam.memory.store.network.data.NetworkBulkString;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+import com.codeloam.memory.store.network.data.NetworkInteger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HDEL;
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HGET;
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HGETALL;
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HINCRBY;
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HMGET;
+import static com.codeloam.memory.store.command.CommandFactory.HASH_COMMAND_HSET;
+
+/**
+ * Executor for hash type, a hash is stored as {@link PackedHash}.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class HashExecutor extends AbstractExecutor {
+
+    @Override
+    public NetworkData execute(JimdsHash<ByteWord, JimdsData> database, Command command) {
+        ByteWord key = command.getKey();
+        JimdsData object = database.get(key);
+        if (object != null && object.getDataType() != DataType.Hash) {
+            return new NetworkError("Wrong value type");
+        }
+        @SuppressWarnings("unchecked")
+        JimdsHash<ByteWord, ByteWord> hash = (JimdsHash<ByteWord, ByteWord>) object;
+        switch (command.getName()) {
+            case HASH_COMMAND_HSET -> {
+                int valueCount = command.getValueCount();
+                if (valueCount % 2 != 0) {
+                    return new NetworkError("Need field and value pairs for HSET command");
+                }
+                if (hash == null) {
+                    hash = new PackedHash();
+                    database.set(key.compact(), hash);
+                }
+                int added = 0;
+                for (int i = 0; i < valueCount; i += 2) {
+                    if (hash.set(command.getValue(i), command.getValue(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                return new NetworkInteger(added);
+            }
+            case HASH_COMMAND_HGET -> {
+                if (hash == null) {
+                    return NetworkBulkString.NULL;
+                }
+                return new NetworkBulkString(hash.get(command.getValue(0)));
+            }
+            case HASH_COMMAND_HMGET -> {
+                List<NetworkData> result = new ArrayList<>(command.getValueCount());
+                for (int i = 0; i < command.getValueCount(); ++i) {
+                    result.add(hash == null ? NetworkBulkString.NULL
+                            : new NetworkBulkString(hash.get(command.getValue(i))));
+                }
+                return new NetworkArray(result);
+            }
+            case HASH_COMMAND_HDEL -> {
+                if (hash == null) {
+                    return new NetworkInteger(0);
+                }
+                int removed = 0;
+                for (int i = 0; i < command.getValueCount(); ++i) {
+                    if (hash.remove(command.getValue(i)) != null) {
+                        removed++;
+                    }
+                }
+                if (hash.size() == 0) {
+                    database.remove(key);
+                }
+                return new NetworkInteger(removed);
+            }
+            case HASH_COMMAND_HGETALL -> {
+                if (hash == null) {
+                    return new NetworkArray(List.of());
+                }
+                List<NetworkData> result = new ArrayList<>(hash.size() * 2);
+                hash.forEach((field, value) -> {
+                    result.add(new NetworkBulkString(field));
+                    result.add(new NetworkBulkString(value));
+                });
+                return new NetworkArray(result);
+            }
+            case HASH_COMMAND_HINCRBY -> {
+                if (command.getValueCount() < 2) {
+                    return new NetworkError("Need field and increment for HINCRBY command");
+                }
+                ByteWord increment = command.getValue(1);
+                if (!increment.isLong()) {
+                    return new NetworkError("increment should be an integer");
+                }
+                ByteWord field = command.getValue(0);
+                ByteWord old = hash == null ? null : hash.get(field);
+                if (old != null && !old.isLong()) {
+                    return new NetworkError("hash value is not an integer");
+                }
+                long value;
+                try {
+                    value = Math.addExact(old == null ? 0 : old.getLong(), increment.getLong());
+                } catch (ArithmeticException e) {
+                    return new NetworkError("increment would overflow");
+                }
+                if (hash == null) {
+                    hash = new PackedHash();
+                    database.set(key.compact(), hash);
+                }
+                hash.set(field, ByteWord.create(value));
+                return new NetworkInteger(value);
+            }
+            default -> throw new UnknownCommandException(command.getName());
+        }
+    }
+}
@@ -19,11 +19,14 @@ import java.util.Iterator;
 import java.util.ListIterator;
 
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LINDEX;
+import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LINSERT;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LLEN;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LPOP;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LPUSH;
+import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LRANG;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LREM;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LSET;
+import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_LTRIM;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_RPOP;
 import static com.codeloam.memory.store.command.CommandFactory.LIST_COMMAND_RPUSH;
 import static com.codeloam.memory.store.database.DataType.List;
@@ -50,26 +53,36 @@ public class ListExecutor extends AbstractExecutor {
                 }
                 JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
                 long count = 1;
-                if (command.getValues().size() > 0) {
-                    ByteWord value = command.getValues().get(0);
+                if (command.getValueCount() > 1) {
+                    return new NetworkError("syntax error");
+                }
+                if (command.getValueCount() > 0) {
+                    ByteWord value = command.getValue(0);
                     if (!value.isLong()) {
                         return new NetworkError("The given count is not a number");
                     }
                     count = value.getLong();
+                    if (count <= 0) {
+                        return new NetworkError("value is out of range, must be positive");
+                    }
                 }
                 if (list.size() == 0) {
                     return NetworkBulkString.NULL;
                 }
-                Iterator<ByteWord> iterator = list.iterator();
-                java.util.List<NetworkData> result = new ArrayList<>();
-                while (iterator.hasNext() && count > 0) {
-                    result.add(new NetworkBulkString(iterator.next()));
-                    iterator.remove();
-                }
+                NetworkData result;
                 if (count == 1) {
-                    return result.get(0);
+                    result = new NetworkBulkString(list.removeFirst());
+                } else {
+                    java.util.List<NetworkData> values = new ArrayList<>();
+                    for (; count > 0 && list.size() > 0; --count) {
+                        values.add(new NetworkBulkString(list.removeFirst()));
+                    }
+                    result = new NetworkArray(values);
+                }
+                if (list.size() == 0) {
+                    database.remove(key);
                 }
-                return new NetworkArray(result);
+                return result;
             }
             case LIST_COMMAND_RPOP -> {
                 if (object == null) {
@@ -80,32 +93,42 @@ public class ListExecutor extends AbstractExecutor {
                 }
                 JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
                 long count = 1;
-                if (command.getValues().size() > 0) {
-                    ByteWord value = command.getValues().get(0);
+                if (command.getValueCount() > 1) {
+                    return new NetworkError("syntax error");
+                }
+                if (command.getValueCount() > 0) {
+                    ByteWord value = command.getValue(0);
                     if (!value.isLong()) {
                         return new NetworkError("The given count is not a number");
                     }
                     count = value.getLong();
+                    if (count <= 0) {
+                        return new NetworkError("value is out of range, must be positive");
+                    }
                 }
                 if (list.size() == 0) {
                     return NetworkBulkString.NULL;
                 }
-                ListIterator<ByteWord> iterator = list.reverseIterator();
-                java.util.List<NetworkData> result = new ArrayList<>();
-                while (iterator.hasPrevious() && count > 0) {
-                    result.add(new NetworkBulkString(iterator.previous()));
-                    iterator.remove();
-                }
+                NetworkData result;
                 if (count == 1) {
-                    return result.get(0);
+                    result = new NetworkBulkString(list.removeLast());
+                } else {
+                    java.util.List<NetworkData> values = new ArrayList<>();
+                    for (; count > 0 && list.size() > 0; --count) {
+                        values.add(new NetworkBulkString(list.removeLast()));
+                    }
+                    result = new NetworkArray(values);
+                }
+                if (list.size() == 0) {
+                    database.remove(key);
                 }
-                return new NetworkArray(result);
+                return result;
             }
             case LIST_COMMAND_LPUSH -> {
                 JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
                 if (list == null) {
-                    list = new SimpleList<>();
-                    database.set(key, list);
+                    list = new SimpleList();
+                    database.set(key.compact(), list);
                 }
                 if (list.getDataType() != List) {
                     return new NetworkError("Wrong value type");
@@ -118,8 +141,8 @@ public class ListExecutor extends AbstractExecutor {
             case LIST_COMMAND_RPUSH -> {
                 JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
                 if (list == null) {
-                    list = new SimpleList<>();
-                    database.set(key, list);
+                    list = new SimpleList();
+                    database.set(key.compact(), list);
                 }
                 if (list.getDataType() != List) {
                     return new NetworkError("Wrong value type");
@@ -137,7 +160,7 @@ public class ListExecutor extends AbstractExecutor {
                 if (list.getDataType() != List) {
                     return new NetworkError("Wrong value type");
                 }
-                ByteWord value = command.getValues().get(0);
+                ByteWord value = command.getValue(0);
                 if (!value.isNumber()) {
                     return new NetworkError("index should be a number");
                 }
@@ -162,10 +185,10 @@ public class ListExecutor extends AbstractExecutor {
                 if (list.getDataType() != List) {
                     return new NetworkError("Wrong value type");
                 }
-                if (command.getValues().size() < 2) {
+                if (command.getValueCount() < 2) {
                     return new NetworkError("Need element for LSET command");
                 }
-                ByteWord value = command.getValues().get(0);
+                ByteWord value = command.getValue(0);
                 if (!value.isNumber()) {
                     return new NetworkError("index should be a number");
                 }
@@ -179,7 +202,7 @@ public class ListExecutor extends AbstractExecutor {
                 if (index < 0 || index >= list.size()) {
                     return new NetworkError("Index out of range");
                 }
-                list.set(index, command.getValues().get(1));
+                list.set(index, command.getValue(1));
 
                 return NetworkSimpleString.OK;
             }
@@ -195,15 +218,15 @@ public class ListExecutor extends AbstractExecutor {
                     return new NetworkInteger(0);
                 }
 
-                if (command.getValues().size() < 2) {
+                if (command.getValueCount() < 2) {
                     return new NetworkError("Need element for LREM command");
                 }
-                ByteWord value = command.getValues().get(0);
+                ByteWord value = command.getValue(0);
                 if (!value.isNumber()) {
                     return new NetworkError("index should be a number");
                 }
 
-                ByteWord element = command.getValues().get(1);
+                ByteWord element = command.getValue(1);
                 int count = (int) value.getLong();
                 int number = 0;
                 if (count < 0) {
@@ -232,6 +255,67 @@ public class ListExecutor extends AbstractExecutor {
 
                 return new NetworkInteger(number);
             }
+            case LIST_COMMAND_LRANG -> {
+                JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
+                if (list == null) {
+                    return new NetworkArray(java.util.List.of());
+                }
+                if (list.getDataType() != List) {
+                    return new NetworkError("Wrong value type");
+                }
+                if (command.getValueCount() < 2) {
+                    return new NetworkError("Need start and stop for LRANG command");
+                }
+                int[] range = range(list, command.getValue(0), command.getValue(1));
+                if (range == null) {
+                    return new NetworkError("index should be a number");
+                }
+                return NetworkArray.ofWords(list.range(range[0], range[1]));
+            }
+            case LIST_COMMAND_LTRIM -> {
+                JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
+                if (list == null) {
+                    return NetworkSimpleString.OK;
+                }
+                if (list.getDataType() != List) {
+                    return new NetworkError("Wrong value type");
+                }
+                if (command.getValueCount() < 2) {
+                    return new NetworkError("Need start and stop for LTRIM command");
+                }
+                int[] range = range(list, command.getValue(0), command.getValue(1));
+                if (range == null) {
+                    return new NetworkError("index should be a number");
+                }
+                list.trim(range[0], range[1]);
+                if (list.size() == 0) {
+                    database.remove(key);
+                }
+                return NetworkSimpleString.OK;
+            }
+            case LIST_COMMAND_LINSERT -> {
+                JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
+                if (list == null) {
+                    return new NetworkInteger(0);
+                }
+                if (list.getDataType() != List) {
+                    return new NetworkError("Wrong value type");
+                }
+                if (command.getValueCount() < 3) {
+                    return new NetworkError("Need position, pivot and element for LINSERT command");
+                }
+                ByteWord position = command.getValue(0);
+                boolean before = position.equalsIgnoreCase("BEFORE");
+                if (!before && !position.equalsIgnoreCase("AFTER")) {
+                    return new NetworkError("position should be BEFORE or AFTER");
+                }
+                int index = list.indexOf(command.getValue(1));
+                if (index < 0) {
+                    return new NetworkInteger(-1);
+                }
+                list.listIterator(before ? index : index + 1).add(command.getValue(2));
+                return new NetworkInteger(list.size());
+            }
             case LIST_COMMAND_LLEN -> {
                 JimdsList<ByteWord> list = (JimdsList<ByteWord>) object;
                 if (list == null) {
@@ -242,4 +326,30 @@ public class ListExecutor extends AbstractExecutor {
             default -> throw new UnknownCommandException(command.getName());
         }
     }
+
+    /**
+     * Convert inclusive start and stop of a command to a range [from, to) of the list.
+     * Negative indexes count from the end, and the range is clamped to the list.
+     *
+     * @return from and to, or null if start or stop is not a number
+     */
+    private static int[] range(JimdsList<ByteWord> list, ByteWord start, ByteWord stop) {
+        if (!start.isLong() || !stop.isLong()) {
+            return null;
+        }
+        long size = list.size();
+        long from = start.getLong();
+        long to = stop.getLong();
+        if (from < 0) {
+            from = Math.max(from + size, 0);
+        }
+        if (to < 0) {
+            to += size;
+        }
+        to = Math.min(to + 1, size);
+        if (from >= to) {
+            return new int[]{0, 0};
+        }
+        return new int[]{(int) from, (int) to};
+    }
 }
@@ -48,16 +48,16 @@ public class NumberExecutor extends AbstractExecutor {
                         : new NetworkInteger(((SimpleLong) number).getValue());
             }
             case NUMBER_COMMAND_NSET -> {
-                return setNumber(database, key, object, command.getValues().get(0), true, false, true);
+                return setNumber(database, key, object, command.getValue(0), true, false, true);
             }
             case NUMBER_COMMAND_INCR -> {
                 return setNumber(database, key, object, LONG_ONE, false, false, false);
             }
             case NUMBER_COMMAND_INCRBY -> {
-                return setNumber(database, key, object, command.getValues().get(0), false, false, false);
+                return setNumber(database, key, object, command.getValue(0), false, false, false);
             }
             case NUMBER_COMMAND_DECRBY -> {
-                return setNumber(database, key, object, command.getValues().get(0), false, true, false);
+                return setNumber(database, key, object, command.getValue(0), false, true, false);
             }
             case NUMBER_COMMAND_DECR -> {
                 return setNumber(database, key, object, LONG_ONE, false, true, false);
@@ -79,7 +79,7 @@ public class NumberExecutor extends AbstractExecutor {
             } else {
                 newObject = newObject.add(value.getDouble() * (negative ? -1 : 1));
             }
-            database.set(key, newObject);
+            database.set(key.compact(), newObject);
             if (returnOldValue) {
                 return NetworkSimpleString.OK;
             }
@@ -0,0 +1,152 @@
+package com.codeloam.memory.store.database.simple.executor;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.database.JimdsData;
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.database.JimdsSet;
+import com.codeloam.memory.store.database.UnknownCommandException;
+import com.codeloam.memory.store.database.simple.SimpleSet;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+import com.codeloam.memory.store.network.data.NetworkInteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SADD;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SCARD;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SINTER;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SISMEMBER;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SMEMBERS;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SREM;
+import static com.codeloam.memory.store.command.CommandFactory.SET_COMMAND_SUNION;
+
+/**
+ * Executor for set type, a set is stored as {@link SimpleSet}.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SetExecutor extends AbstractExecutor {
+
+    @Override
+    public NetworkData execute(JimdsHash<ByteWord, JimdsData> database, Command command) {
+        ByteWord key = command.getKey();
+        JimdsData object = database.get(key);
+        if (object != null && object.getDataType() != DataType.Set) {
+            return new NetworkError("Wrong value type");
+        }
+        @SuppressWarnings("unchecked")
+        JimdsSet<ByteWord> set = (JimdsSet<ByteWord>) object;
+        switch (command.getName()) {
+            case SET_COMMAND_SADD -> {
+                if (set == null) {
+                    set = new SimpleSet();
+                    database.set(key.compact(), set);
+                }
+                int added = 0;
+                for (int i = 0; i < command.getValueCount(); ++i) {
+                    if (set.add(command.getValue(i))) {
+                        added++;
+                    }
+                }
+                return new NetworkInteger(added);
+            }
+            case SET_COMMAND_SREM -> {
+                if (set == null) {
+                    return new NetworkInteger(0);
+                }
+                int removed = 0;
+                for (int i = 0; i < command.getValueCount(); ++i) {
+                    if (set.remove(command.getValue(i))) {
+                        removed++;
+                    }
+                }
+                if (set.size() == 0) {
+                    database.remove(key);
+                }
+                return new NetworkInteger(removed);
+            }
+            case SET_COMMAND_SISMEMBER -> {
+                return new NetworkInteger(set != null && set.exist(command.getValue(0)) ? 1 : 0);
+            }
+            case SET_COMMAND_SCARD -> {
+                return new NetworkInteger(set == null ? 0 : set.size());
+            }
+            case SET_COMMAND_SMEMBERS -> {
+                List<ByteWord> members = new ArrayList<>(set == null ? 0 : set.size());
+                if (set != null) {
+                    set.forEach(members::add);
+                }
+                return NetworkArray.ofWords(members);
+            }
+            case SET_COMMAND_SINTER -> {
+                JimdsSet<ByteWord>[] sets = getSets(database, command, set);
+                if (sets == null) {
+                    return new NetworkError("Wrong value type");
+                }
+                List<ByteWord> members = new ArrayList<>();
+                for (JimdsSet<ByteWord> s : sets) {
+                    if (s == null) {
+                        // intersection with a missing key is empty
+                        return NetworkArray.ofWords(members);
+                    }
+                }
+                // walk the smallest set, each member is checked against larger sets in ascending size,
+                // so a member that is not in the result is rejected early
+                Arrays.sort(sets, Comparator.comparingInt(JimdsSet::size));
+                sets[0].forEach(member -> {
+                    for (int i = 1; i < sets.length; ++i) {
+                        if (!sets[i].exist(member)) {
+                            return;
+                        }
+                    }
+                    members.add(member);
+                });
+                return NetworkArray.ofWords(members);
+            }
+            case SET_COMMAND_SUNION -> {
+                JimdsSet<ByteWord>[] sets = getSets(database, command, set);
+                if (sets == null) {
+                    return new NetworkError("Wrong value type");
+                }
+                // members are collected in a set of the same encoding, a union of integers stays small
+                SimpleSet union = new SimpleSet();
+                for (JimdsSet<ByteWord> s : sets) {
+                    if (s != null) {
+                        s.forEach(union::add);
+                    }
+                }
+                List<ByteWord> members = new ArrayList<>(union.size());
+                union.forEach(members::add);
+                return NetworkArray.ofWords(members);
+            }
+            default -> throw new UnknownCommandException(command.getName());
+        }
+    }
+
+    /**
+     * Get sets of the key and other keys in values of the command.
+     *
+     * @return sets, null for missing keys, or null if any key is not a set
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static JimdsSet<ByteWord>[] getSets(JimdsHash<ByteWord, JimdsData> database, Command command,
+                                                JimdsSet<ByteWord> first) {
+        JimdsSet<ByteWord>[] sets = new JimdsSet[command.getValueCount() + 1];
+        sets[0] = first;
+        for (int i = 0; i < command.getValueCount(); ++i) {
+            JimdsData object = database.get(command.getValue(i));
+            if (object != null && object.getDataType() != DataType.Set) {
+                return null;
+            }
+            sets[i + 1] = (JimdsSet<ByteWord>) object;
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,244 @@
+package com.codeloam.memory.store.database.simple.executor;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.database.JimdsData;
+import com.codeloam.memory.store.database.JimdsHash;
+import com.codeloam.memory.store.database.JimdsSortedSet;
+import com.codeloam.memory.store.database.UnknownCommandException;
+import com.codeloam.memory.store.database.simple.SimpleSortedSet;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
+import com.codeloam.memory.store.network.data.NetworkBulkString;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+import com.codeloam.memory.store.network.data.NetworkInteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZADD;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZINCRBY;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZRANGE;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZRANGEBYSCORE;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZRANK;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZREM;
+import static com.codeloam.memory.store.command.CommandFactory.SORTED_SET_COMMAND_ZSCORE;
+
+/**
+ * Executor for sorted set type, a sorted set is stored as {@link SimpleSortedSet}.
+ *
+ * <p>Scores are numbers, or inf, +inf and -inf. A score is returned as an integer if it's integral,
+ * and min and max of ZRANGEBYSCORE are excluded if they start with '(', like redis.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SortedSetExecutor extends AbstractExecutor {
+    private static final ByteWord POSITIVE_INFINITY = ByteWord.create("inf");
+    private static final ByteWord NEGATIVE_INFINITY = ByteWord.create("-inf");
+    /**
+     * Integral scores in this range are exact as long.
+     */
+    private static final double MAX_EXACT_LONG = 1L << 53;
+
+    @Override
+    public NetworkData execute(JimdsHash<ByteWord, JimdsData> database, Command command) {
+        ByteWord key = command.getKey();
+        JimdsData object = database.get(key);
+        if (object != null && object.getDataType() != DataType.SortedSet) {
+            return new NetworkError("Wrong value type");
+        }
+        JimdsSortedSet set = (JimdsSortedSet) object;
+        switch (command.getName()) {
+            case SORTED_SET_COMMAND_ZADD -> {
+                int valueCount = command.getValueCount();
+                if (valueCount % 2 != 0) {
+                    return new NetworkError("Need score and member pairs for ZADD command");
+                }
+                // check all scores first, so nothing is added if any score is invalid
+                double[] scores = new double[valueCount / 2];
+                for (int i = 0; i < scores.length; ++i) {
+                    scores[i] = parseScore(command.getValue(i * 2));
+                    if (Double.isNaN(scores[i])) {
+                        return new NetworkError("score should be a number");
+                    }
+                }
+                if (set == null) {
+                    set = new SimpleSortedSet();
+                    database.set(key.compact(), set);
+                }
+                int added = 0;
+                for (int i = 0; i < scores.length; ++i) {
+                    if (set.add(command.getValue(i * 2 + 1), scores[i])) {
+                        added++;
+                    }
+                }
+                return new NetworkInteger(added);
+            }
+            case SORTED_SET_COMMAND_ZINCRBY -> {
+                if (command.getValueCount() < 2) {
+                    return new NetworkError("Need increment and member for ZINCRBY command");
+                }
+                double increment = parseScore(command.getValue(0));
+                if (Double.isNaN(increment)) {
+                    return new NetworkError("increment should be a number");
+                }
+                ByteWord member = command.getValue(1);
+                double old = set == null ? Double.NaN : set.getScore(member);
+                if (!Double.isNaN(old) && Double.isNaN(old + increment)) {
+                    return new NetworkError("resulting score is not a number");
+                }
+                if (set == null) {
+                    set = new SimpleSortedSet();
+                    database.set(key.compact(), set);
+                }
+                return new NetworkBulkString(scoreWord(set.incrementScore(member, increment)));
+            }
+            case SORTED_SET_COMMAND_ZSCORE -> {
+                double score = set == null ? Double.NaN : set.getScore(command.getValue(0));
+                return Double.isNaN(score) ? NetworkBulkString.NULL : new NetworkBulkString(scoreWord(score));
+            }
+            case SORTED_SET_COMMAND_ZRANK -> {
+                int rank = set == null ? -1 : set.getRank(command.getValue(0));
+                return rank < 0 ? NetworkBulkString.NULL : new NetworkInteger(rank);
+            }
+            case SORTED_SET_COMMAND_ZREM -> {
+                if (set == null) {
+                    return new NetworkInteger(0);
+                }
+                int removed = 0;
+                for (int i = 0; i < command.getValueCount(); ++i) {
+                    if (set.remove(command.getValue(i))) {
+                        removed++;
+                    }
+                }
+                if (set.size() == 0) {
+                    database.remove(key);
+                }
+                return new NetworkInteger(removed);
+            }
+            case SORTED_SET_COMMAND_ZRANGE -> {
+                int valueCount = command.getValueCount();
+                if (valueCount < 2) {
+                    return new NetworkError("Need start and stop for ZRANGE command");
+                }
+                boolean withScores = valueCount > 2 && command.getValue(2).equalsIgnoreCase("WITHSCORES");
+                if (valueCount > (withScores ? 3 : 2)) {
+                    return new NetworkError("syntax error");
+                }
+                ByteWord start = command.getValue(0);
+                ByteWord stop = command.getValue(1);
+                if (!start.isLong() || !stop.isLong()) {
+                    return new NetworkError("index should be a number");
+                }
+                List<NetworkData> result = new ArrayList<>();
+                if (set != null) {
+                    long size = set.size();
+                    long from = start.getLong();
+                    long to = stop.getLong();
+                    if (from < 0) {
+                        from = Math.max(from + size, 0);
+                    }
+                    if (to < 0) {
+                        to += size;
+                    }
+                    to = Math.min(to + 1, size);
+                    if (from < to) {
+                        set.range((int) from, (int) to,
+                                (member, score) -> addMember(result, member, score, withScores));
+                    }
+                }
+                return new NetworkArray(result);
+            }
+            case SORTED_SET_COMMAND_ZRANGEBYSCORE -> {
+                int valueCount = command.getValueCount();
+                if (valueCount < 2) {
+                    return new NetworkError("Need min and max for ZRANGEBYSCORE command");
+                }
+                ByteWord min = command.getValue(0);
+                ByteWord max = command.getValue(1);
+                boolean minExclusive = isExclusive(min);
+                boolean maxExclusive = isExclusive(max);
+                double minScore = parseScore(minExclusive ? skipFirst(min) : min);
+                double maxScore = parseScore(maxExclusive ? skipFirst(max) : max);
+                if (Double.isNaN(minScore) || Double.isNaN(maxScore)) {
+                    return new NetworkError("min or max is not a number");
+                }
+                boolean withScores = false;
+                long offset = 0;
+                long count = -1;
+                for (int i = 2; i < valueCount; ++i) {
+                    ByteWord option = command.getValue(i);
+                    if (option.equalsIgnoreCase("WITHSCORES")) {
+                        withScores = true;
+                    } else if (option.equalsIgnoreCase("LIMIT") && i + 2 < valueCount
+                            && command.getValue(i + 1).isLong() && command.getValue(i + 2).isLong()) {
+                        offset = command.getValue(i + 1).getLong();
+                        count = command.getValue(i + 2).getLong();
+                        i += 2;
+                    } else {
+                        return new NetworkError("syntax error");
+                    }
+                }
+                List<NetworkData> result = new ArrayList<>();
+                if (set != null && offset >= 0 && offset < set.size()) {
+                    boolean scores = withScores;
+                    set.rangeByScore(minScore, minExclusive, maxScore, maxExclusive, (int) offset,
+                            count < 0 ? -1 : (int) Math.min(count, Integer.MAX_VALUE),
+                            (member, score) -> addMember(result, member, score, scores));
+                }
+                return new NetworkArray(result);
+            }
+            default -> throw new UnknownCommandException(command.getName());
+        }
+    }
+
+    private static void addMember(List<NetworkData> result, ByteWord member, double score, boolean withScore) {
+        result.add(new NetworkBulkString(member));
+        if (withScore) {
+            result.add(new NetworkBulkString(scoreWord(score)));
+        }
+    }
+
+    /**
+     * Parse a score.
+     *
+     * @return score, or NaN if it's not a number
+     */
+    private static double parseScore(ByteWord word) {
+        if (word.isNumber()) {
+            return word.getDouble();
+        }
+        if (word.equalsIgnoreCase("INF") || word.equalsIgnoreCase("+INF")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (word.equalsIgnoreCase("-INF")) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return Double.NaN;
+    }
+
+    private static ByteWord scoreWord(double score) {
+        if (score == Double.POSITIVE_INFINITY) {
+            return POSITIVE_INFINITY;
+        }
+        if (score == Double.NEGATIVE_INFINITY) {
+            return NEGATIVE_INFINITY;
+        }
+        if (score == Math.rint(score) && Math.abs(score) < MAX_EXACT_LONG) {
+            return ByteWord.create((long) score);
+        }
+        return ByteWord.create(score);
+    }
+
+    private static boolean isExclusive(ByteWord word) {
+        return word.size() > 1 && word.get()[0] == '(';
+    }
+
+    private static ByteWord skipFirst(ByteWord word) {
+        byte[] bytes = word.get();
+        return ByteWord.create(Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+}
@@ -5,8 +5,11 @@ import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.database.JimdsData;
 import com.codeloam.memory.store.database.JimdsHash;
 import com.codeloam.memory.store.database.UnknownCommandException;
+import com.codeloam.memory.store.database.JimdsString;
+import com.codeloam.memory.store.database.simple.OffHeapString;
 import com.codeloam.memory.store.database.simple.SimpleString;
 import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.OffHeapByteWord;
 import com.codeloam.memory.store.network.data.NetworkBulkString;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
@@ -18,10 +21,32 @@ import static com.codeloam.memory.store.command.CommandFactory.STRING_COMMAND_SE
 /**
  * Executor for string type.
  *
+ * <p>Values that are not smaller than off-heap threshold are stored in off-heap memory,
+ * the threshold can be set with system property {@value #OFF_HEAP_THRESHOLD_PROPERTY},
+ * a non-positive threshold disables off-heap storage.
+ *
  * @author jinyu.li
  * @since 1.0
  */
 public class StringExecutor extends AbstractExecutor {
+    public static final String OFF_HEAP_THRESHOLD_PROPERTY = OffHeapByteWord.THRESHOLD_PROPERTY;
+    public static final int DEFAULT_OFF_HEAP_THRESHOLD = OffHeapByteWord.DEFAULT_THRESHOLD;
+
+    private final int offHeapThreshold;
+
+    public StringExecutor() {
+        this(OffHeapByteWord.getThreshold());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param offHeapThreshold min size of values that are stored in off-heap memory, non-positive to disable
+     */
+    public StringExecutor(int offHeapThreshold) {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
     @Override
     public NetworkData execute(JimdsHash<ByteWord, JimdsData> database, Command command) {
         switch (command.getName()) {
@@ -38,8 +63,7 @@ public class StringExecutor extends AbstractExecutor {
             case STRING_COMMAND_SET -> {
                 JimdsData object = database.get(command.getKey());
                 if (object == null) {
-                    object = new SimpleString(command.getValues().get(0));
-                    database.set(command.getKey(), object);
+                    database.set(command.getKey().compact(), createString(command.getValue(0)));
                     return NetworkSimpleString.OK;
                 } else {
                     if (object.getDataType() != DataType.String) {
@@ -47,11 +71,19 @@ public class StringExecutor extends AbstractExecutor {
                     }
 
                     ByteWord oldValue = object.getData();
-                    database.set(command.getKey(), new SimpleString(command.getValues().get(0)));
+                    database.set(command.getKey(), createString(command.getValue(0)));
+                    object.free();
                     return new NetworkBulkString(oldValue);
                 }
             }
             default -> throw new UnknownCommandException(command.getName());
         }
     }
+
+    private JimdsString createString(ByteWord value) {
+        if (offHeapThreshold > 0 && value.size() >= offHeapThreshold) {
+            return new OffHeapString(value);
+        }
+        return new SimpleString(value.compact());
+    }
 }
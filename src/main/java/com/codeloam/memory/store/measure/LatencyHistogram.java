@@ -0,0 +1,145 @@
+package com.codeloam.memory.store.measure;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds, with fixed memory.
+ *
+ * <p>Values are counted in log-linear buckets, each power of two is split into 16 buckets,
+ * so a percentile is at most 1/16 larger than the recorded value. Values smaller than 16 ns have their own buckets,
+ * values larger than about 18 minutes are counted in the last bucket.
+ *
+ * <p>Recording is lock-free and allocates nothing, it can be called from multiple threads at once.
+ * Queries read counters one by one, so they may miss values recorded meanwhile.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        buckets = new AtomicLongArray(BUCKET_COUNT);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new AtomicLong();
+    }
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketIndex(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Number of recorded values.
+     *
+     * @return count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Mean of recorded values.
+     *
+     * @return mean in nanoseconds, 0 if there is no value
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Max recorded value.
+     *
+     * @return max in nanoseconds, 0 if there is no value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the value that given percent of recorded values are not larger than.
+     *
+     * @param percentile percentile, from 0 to 100
+     * @return upper bound of the bucket of the percentile in nanoseconds, not larger than max, 0 if there is no value
+     */
+    public long getValueAtPercentile(double percentile) {
+        return getValuesAtPercentiles(percentile)[0];
+    }
+
+    /**
+     * Get values at given percentiles, buckets are read once for all percentiles.
+     *
+     * @param percentiles percentiles in ascending order, from 0 to 100
+     * @return values in nanoseconds, see {@link #getValueAtPercentile(double)}
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] values = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length; ++i) {
+            if (percentiles[i] < 0 || percentiles[i] > 100 || (i > 0 && percentiles[i] < percentiles[i - 1])) {
+                throw new IllegalArgumentException("Invalid percentile " + percentiles[i]);
+            }
+        }
+        long total = 0;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return values;
+        }
+        long max = getMax();
+        long seen = 0;
+        int bucket = -1;
+        for (int i = 0; i < percentiles.length; ++i) {
+            long target = Math.max((long) Math.ceil(percentiles[i] / 100 * total), 1);
+            while (seen < target && bucket < BUCKET_COUNT - 1) {
+                seen += counts[++bucket];
+            }
+            values[i] = seen >= target ? Math.min(bucketUpperBound(bucket), max) : max;
+        }
+        return values;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -1,87 +1,143 @@
 package com.codeloam.memory.store.measure;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Measure collector for requests.
  *
+ * <p>Latency of each stage of a request is recorded in a {@link LatencyHistogram}, timestamps are taken
+ * with {@link System#nanoTime()}. Memory is fixed no matter how many requests are recorded,
+ * and recording is lock-free, so a collector can be shared by all threads of a server.
+ *
+ * <p>Execution time of each command is also recorded by command name, it does not include time waiting
+ * for other commands. A histogram is created when a command is recorded the first time,
+ * later records of the command only look it up.
+ *
  * @author jinyu.li
  * @since 1.0
  */
-public class RequestMeasureCollector extends MeasureCollector {
-    public static final String FIELD_NAME_CONNECTED = "connected";
-    public static final String FIELD_NAME_READ = "read";
-    public static final String FIELD_NAME_PARSE = "parse";
-    public static final String FIELD_NAME_PROCESS = "process";
-    public static final String FIELD_NAME_SEND = "send";
-    public static final String FIELD_NAME_ERROR = "error";
+public class RequestMeasureCollector {
+    public static final int STAGE_READ = 0;
+    public static final int STAGE_PARSE = 1;
+    public static final int STAGE_PROCESS = 2;
+    public static final int STAGE_SEND = 3;
+    public static final int STAGE_TOTAL = 4;
+
+    private static final String[] STAGE_NAMES = {"read", "parse", "process", "send", "total"};
 
+    private final String name;
+    private final LatencyHistogram[] histograms;
+    private final LongAdder errors;
+    private final Map<String, LatencyHistogram> commandHistograms;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of collector
+     */
     public RequestMeasureCollector(String name) {
-        super(name);
+        this.name = name;
+        this.histograms = new LatencyHistogram[STAGE_NAMES.length];
+        for (int i = 0; i < histograms.length; ++i) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.errors = new LongAdder();
+        this.commandHistograms = new ConcurrentHashMap<>();
     }
 
-    @Override
-    public void print() {
-        int errCount = 0;
-        long count = 0;
-        // 0: total, 1: read, 2: parse, 3: process, 4:send
-        double[] totals = new double[5];
-        double[] maxes = new double[5];
-        for (MeasureData data : dataList) {
-            if (data.get(FIELD_NAME_ERROR) != null) {
-                errCount++;
-            } else {
-                double start = data.get(FIELD_NAME_CONNECTED);
-                double read = data.get(FIELD_NAME_READ);
-                double send = data.get(FIELD_NAME_SEND);
-                totals[0] += send - start;
-                totals[1] += read - start;
-
-                double parse = data.get(FIELD_NAME_PARSE);
-                totals[2] += parse - read;
+    /**
+     * Record a handled request with timestamps of its stages, in nanoseconds.
+     *
+     * @param startTime   when server starts to read the request
+     * @param readTime    when the request is read
+     * @param parseTime   when the request is parsed
+     * @param processTime when the request is executed
+     * @param sendTime    when the response is sent
+     */
+    public void record(long startTime, long readTime, long parseTime, long processTime, long sendTime) {
+        histograms[STAGE_READ].record(readTime - startTime);
+        histograms[STAGE_PARSE].record(parseTime - readTime);
+        histograms[STAGE_PROCESS].record(processTime - parseTime);
+        histograms[STAGE_SEND].record(sendTime - processTime);
+        histograms[STAGE_TOTAL].record(sendTime - startTime);
+    }
 
-                double process = data.get(FIELD_NAME_PROCESS);
-                totals[3] += process - parse;
-                totals[4] += send - process;
-                if (send - start > maxes[0]) {
-                    maxes[0] = send - start;
-                }
-                if (read - start > maxes[1]) {
-                    maxes[1] = read - start;
-                }
-                if (parse - read > maxes[2]) {
-                    maxes[2] = parse - read;
-                }
-                if (process - parse > maxes[3]) {
-                    maxes[3] = process - parse;
-                }
-                if (send - process > maxes[4]) {
-                    maxes[4] = send - process;
-                }
-                count++;
-            }
+    /**
+     * Record execution time of a command.
+     *
+     * @param command command name
+     * @param nanos   execution time in nanoseconds
+     */
+    public void recordCommand(String command, long nanos) {
+        LatencyHistogram histogram = commandHistograms.get(command);
+        if (histogram == null) {
+            histogram = commandHistograms.computeIfAbsent(command, k -> new LatencyHistogram());
         }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Record a request that fails to be parsed or executed.
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Get histogram of a stage.
+     *
+     * @param stage one of STAGE_*
+     * @return histogram
+     */
+    public LatencyHistogram getHistogram(int stage) {
+        return histograms[stage];
+    }
+
+    /**
+     * Get histograms of execution time of commands that have been recorded.
+     *
+     * @return histograms by command name, it's a live view
+     */
+    public Map<String, LatencyHistogram> getCommandHistograms() {
+        return commandHistograms;
+    }
+
+    /**
+     * Get name of a stage.
+     *
+     * @param stage one of STAGE_*
+     * @return name
+     */
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * Print measure data.
+     */
+    public void print() {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("statistic for %s with %d times\n", name, count + errCount));
-        sb.append(String.format("error count: %d\n", errCount));
+        long count = histograms[STAGE_TOTAL].getCount();
+        sb.append(String.format("statistic for %s with %d times\n", name, count + getErrorCount()));
+        sb.append(String.format("error count: %d\n", getErrorCount()));
         if (count == 0) {
             sb.append("No valid command\n");
-            System.out.println(sb.toString());
+            System.out.println(sb);
             return;
         }
-        sb.append(String.format("avg        : %.2f ms, max: %.2f ms\n", totals[0] / count, maxes[0]));
-        sb.append(String.format("avg read   : %.2f ms, max: %.2f ms\n", totals[1] / count, maxes[1]));
-        sb.append(String.format("avg parse  : %.2f ms, max: %.2f ms\n", totals[2] / count, maxes[2]));
-        sb.append(String.format("avg process: %.2f ms, max: %.2f ms\n", totals[3] / count, maxes[3]));
-        sb.append(String.format("avg send   : %.2f ms, max: %.2f ms\n", totals[4] / count, maxes[4]));
-        System.out.println(sb.toString());
-
-        MeasureData data = new MeasureData();
-        data.add(FIELD_NAME_CONNECTED, 0);
-        data.add(FIELD_NAME_READ, totals[1] / count);
-        data.add(FIELD_NAME_PARSE, (totals[2] + totals[1]) / count);
-        data.add(FIELD_NAME_PROCESS, (totals[3] + totals[2] + totals[1]) / count);
-        data.add(FIELD_NAME_SEND, (totals[4] + totals[3] + totals[2] + totals[1]) / count);
-
-        dataList.clear();
-        dataList.add(data);
+        for (int i = 0; i < histograms.length; ++i) {
+            LatencyHistogram histogram = histograms[i];
+            sb.append(String.format("%-8s: avg %.3f ms, p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms\n",
+                    STAGE_NAMES[i], histogram.getMean() / 1e6, histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getMax() / 1e6));
+        }
+        System.out.println(sb);
     }
 }
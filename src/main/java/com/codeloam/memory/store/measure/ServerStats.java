@@ -0,0 +1,106 @@
+package com.codeloam.memory.store.measure;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a server: connections, network traffic and event loop time.
+ *
+ * <p>Counters are {@link LongAdder}s, so they can be updated by all threads of a server without lock,
+ * and reading them is cheap. Totals are counted since the server starts,
+ * a client that polls them periodically can compute rates from differences.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ServerStats {
+    private final long startTime;
+    private final LongAdder connectedClients;
+    private final LongAdder totalConnections;
+    private final LongAdder bytesIn;
+    private final LongAdder bytesOut;
+    private final LongAdder busyNanos;
+    private final LongAdder idleNanos;
+
+    public ServerStats() {
+        startTime = System.currentTimeMillis();
+        connectedClients = new LongAdder();
+        totalConnections = new LongAdder();
+        bytesIn = new LongAdder();
+        bytesOut = new LongAdder();
+        busyNanos = new LongAdder();
+        idleNanos = new LongAdder();
+    }
+
+    /**
+     * A connection is accepted.
+     */
+    public void connectionOpened() {
+        connectedClients.increment();
+        totalConnections.increment();
+    }
+
+    /**
+     * A connection is closed, it should be called once for each opened connection.
+     */
+    public void connectionClosed() {
+        connectedClients.decrement();
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Add time of an event loop iteration.
+     *
+     * @param idle nanoseconds spent waiting for events
+     * @param busy nanoseconds spent handling events
+     */
+    public void addLoopTime(long idle, long busy) {
+        idleNanos.add(idle);
+        busyNanos.add(busy);
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getConnectedClients() {
+        return connectedClients.sum();
+    }
+
+    public long getTotalConnections() {
+        return totalConnections.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    public long getIdleNanos() {
+        return idleNanos.sum();
+    }
+
+    /**
+     * Ratio of time that event loops spend on handling events, of all event loops since server starts.
+     *
+     * @return ratio from 0 to 1, 0 if the server has no event loop
+     */
+    public double getBusyRatio() {
+        long busy = busyNanos.sum();
+        long total = busy + idleNanos.sum();
+        return total == 0 ? 0 : (double) busy / total;
+    }
+}
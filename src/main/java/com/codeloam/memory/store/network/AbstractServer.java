@@ -3,27 +3,41 @@ package com.codeloam.memory.store.network;
 import com.codeloam.memory.store.JimdsException;
 import com.codeloam.memory.store.command.Command;
 import com.codeloam.memory.store.command.CommandFactory;
+import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.database.Database;
 import com.codeloam.memory.store.database.DatabaseFactory;
 import com.codeloam.memory.store.database.DatabaseType;
+import com.codeloam.memory.store.measure.LatencyHistogram;
+import com.codeloam.memory.store.measure.RequestMeasureCollector;
+import com.codeloam.memory.store.measure.ServerStats;
+import com.codeloam.memory.store.network.data.NetworkBulkString;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
+import com.codeloam.memory.store.network.data.NetworkSimpleString;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
 import java.net.Socket;
 import java.nio.channels.SocketChannel;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Base class for all Server.
  *
+ * <p>System commands are executed by server instead of database, e.g. INFO reports statistics of the server.
+ *
  * @author jinyu.li
  * @since 1.0
  */
 public abstract class AbstractServer implements Server {
+    private static final NetworkData PONG = new NetworkSimpleString(ByteWord.create("PONG"));
+
     /**
      * Buffer size for reading.
      */
@@ -39,6 +53,16 @@ public abstract class AbstractServer implements Server {
      */
     protected final RequestProcessor requestProcessor;
 
+    /**
+     * Latencies of requests.
+     */
+    protected final RequestMeasureCollector requestMeasureCollector;
+
+    /**
+     * Counters of connections, traffic and event loops.
+     */
+    protected final ServerStats serverStats;
+
     /**
      * Constructor.
      *
@@ -49,6 +73,129 @@ public abstract class AbstractServer implements Server {
         database = DatabaseFactory.create(type);
         this.requestProcessor = requestProcessor;
         this.bufSize = DEFAULT_BUF_SIZE;
+        this.requestMeasureCollector = new RequestMeasureCollector(getClass().getSimpleName());
+        this.serverStats = new ServerStats();
+    }
+
+    /**
+     * Execute a command, system commands are executed by server, others by request processor.
+     *
+     * @param command command
+     * @return response
+     * @throws IOException if thrown by request processor
+     */
+    protected NetworkData processCommand(Command command) throws IOException {
+        if (command.getDataType() == DataType.System) {
+            return executeSystemCommand(command);
+        }
+        return requestProcessor.process(database, command);
+    }
+
+    /**
+     * Execute a system command.
+     *
+     * @param command command
+     * @return response
+     */
+    protected NetworkData executeSystemCommand(Command command) {
+        return switch (command.getName()) {
+            case CommandFactory.SYSTEM_COMMAND_PING -> PONG;
+            case CommandFactory.SYSTEM_COMMAND_INFO -> new NetworkBulkString(ByteWord.create(getInfo()));
+            default -> new NetworkError("Unsupported command " + command.getName());
+        };
+    }
+
+    /**
+     * Generate server information in sections, each line is a "field:value" pair, like redis INFO.
+     *
+     * <p>It only reads counters and histograms, nothing is locked, so it's cheap enough to be polled every second.
+     * Totals are counted since the server starts, latencies are in microseconds.
+     *
+     * @return information
+     */
+    protected String getInfo() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# Server\r\n");
+        appendField(sb, "server", getClass().getSimpleName());
+        appendField(sb, "database", database.getClass().getSimpleName());
+        appendField(sb, "uptime_in_seconds", (System.currentTimeMillis() - serverStats.getStartTime()) / 1000);
+
+        sb.append("\r\n# Clients\r\n");
+        appendField(sb, "connected_clients", serverStats.getConnectedClients());
+        appendField(sb, "total_connections_received", serverStats.getTotalConnections());
+
+        sb.append("\r\n# Memory\r\n");
+        Runtime runtime = Runtime.getRuntime();
+        appendField(sb, "used_memory_heap", runtime.totalMemory() - runtime.freeMemory());
+        appendField(sb, "committed_memory_heap", runtime.totalMemory());
+        appendField(sb, "max_memory_heap", runtime.maxMemory());
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                appendField(sb, "used_memory_direct", pool.getMemoryUsed());
+            }
+        }
+        long pooled = 0;
+        long hits = 0;
+        long misses = 0;
+        for (BufferPool bufferPool : getBufferPools()) {
+            pooled += (long) bufferPool.getPooledCount() * bufferPool.getBufferSize();
+            hits += bufferPool.getHitCount();
+            misses += bufferPool.getMissCount();
+        }
+        appendField(sb, "buffer_pool_idle_bytes", pooled);
+        appendField(sb, "buffer_pool_hits", hits);
+        appendField(sb, "buffer_pool_misses", misses);
+
+        sb.append("\r\n# Stats\r\n");
+        LatencyHistogram total = requestMeasureCollector.getHistogram(RequestMeasureCollector.STAGE_TOTAL);
+        appendField(sb, "total_commands_processed", total.getCount());
+        appendField(sb, "total_error_replies", requestMeasureCollector.getErrorCount());
+        appendField(sb, "total_net_input_bytes", serverStats.getBytesIn());
+        appendField(sb, "total_net_output_bytes", serverStats.getBytesOut());
+        appendField(sb, "event_loop_busy_ms", serverStats.getBusyNanos() / 1_000_000);
+        appendField(sb, "event_loop_idle_ms", serverStats.getIdleNanos() / 1_000_000);
+        appendField(sb, "event_loop_busy_ratio", String.format("%.4f", serverStats.getBusyRatio()));
+
+        sb.append("\r\n# Latency\r\n");
+        for (int stage = RequestMeasureCollector.STAGE_READ; stage <= RequestMeasureCollector.STAGE_TOTAL; ++stage) {
+            sb.append("latency_").append(RequestMeasureCollector.getStageName(stage)).append(':');
+            appendLatency(sb, requestMeasureCollector.getHistogram(stage));
+        }
+
+        sb.append("\r\n# Commandstats\r\n");
+        Map<String, LatencyHistogram> commands = new TreeMap<>(requestMeasureCollector.getCommandHistograms());
+        for (Map.Entry<String, LatencyHistogram> entry : commands.entrySet()) {
+            sb.append("cmdstat_").append(entry.getKey().toLowerCase()).append(':');
+            appendLatency(sb, entry.getValue());
+        }
+
+        sb.append("\r\n# Keyspace\r\n");
+        appendField(sb, "keys", database.size());
+        return sb.toString();
+    }
+
+    /**
+     * Buffer pools used by the server, they are reported by INFO.
+     *
+     * @return buffer pools, empty by default
+     */
+    protected List<BufferPool> getBufferPools() {
+        return List.of();
+    }
+
+    private static void appendField(StringBuilder sb, String name, Object value) {
+        sb.append(name).append(':').append(value).append("\r\n");
+    }
+
+    private static void appendLatency(StringBuilder sb, LatencyHistogram histogram) {
+        long[] values = histogram.getValuesAtPercentiles(50, 99, 99.9);
+        sb.append("calls=").append(histogram.getCount())
+                .append(",usec_per_call=").append(String.format("%.3f", histogram.getMean() / 1000))
+                .append(",p50=").append(String.format("%.3f", values[0] / 1000.0))
+                .append(",p99=").append(String.format("%.3f", values[1] / 1000.0))
+                .append(",p99.9=").append(String.format("%.3f", values[2] / 1000.0))
+                .append(",max=").append(String.format("%.3f", histogram.getMax() / 1000.0))
+                .append("\r\n");
     }
 
 
@@ -0,0 +1,142 @@
+package com.codeloam.memory.store.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of buffers with the same size, it's used for socket reads and writes.
+ *
+ * <p>Heap buffers are copied to a temporary direct buffer by JDK on each socket call,
+ * direct buffers are not, but they are expensive to allocate, so they are reused.
+ * Heap buffers are pooled for socket streams, which can only read to and write from byte arrays.
+ * A connection only holds a buffer while it has data to read or write, so the number of buffers
+ * depends on busy connections, not on all connections.
+ *
+ * <p>Each reactor has its own pool. The pool is thread safe, so it can also be shared by worker threads.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class BufferPool {
+    public static final int DEFAULT_MAX_POOLED = 256;
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final boolean direct;
+    private final Queue<ByteBuffer> buffers;
+    private final AtomicInteger pooled;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    public BufferPool(int bufferSize) {
+        this(bufferSize, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bufferSize size of each buffer
+     * @param maxPooled  max number of idle buffers kept in the pool, more buffers are dropped when released
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this(bufferSize, maxPooled, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param bufferSize size of each buffer
+     * @param maxPooled  max number of idle buffers kept in the pool, more buffers are dropped when released
+     * @param direct     whether buffers are direct, otherwise buffers are on heap and backed by arrays
+     */
+    public BufferPool(int bufferSize, int maxPooled, boolean direct) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+        this.buffers = new ConcurrentLinkedQueue<>();
+        this.pooled = new AtomicInteger();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Get a buffer from the pool, a new one is allocated if the pool is empty.
+     *
+     * @return a cleared buffer
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            misses.increment();
+            return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        hits.increment();
+        return buffer.clear();
+    }
+
+    /**
+     * Return a buffer to the pool, the buffer must not be used after this call.
+     *
+     * @param buffer buffer acquired from this pool
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            // enough idle buffers, let GC free it
+            pooled.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Number of idle buffers in the pool.
+     *
+     * @return idle buffers
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+
+    /**
+     * Number of acquires that reuse a pooled buffer.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of acquires that allocate a new buffer.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{"
+                + "bufferSize=" + bufferSize
+                + ", pooled=" + getPooledCount()
+                + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + '}';
+    }
+}
@@ -3,20 +3,39 @@ package com.codeloam.memory.store.network;
 import com.codeloam.memory.store.network.data.DataWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
  * Represent a word with a byte array or a list of byte array.
  *
+ * <p>Numbers are parsed from bytes directly, nothing is allocated. Words that are command arguments,
+ * i.e. slices of network buffer and words of multiple arrays, cache the parsed number,
+ * since executors check and get a number separately. Words stored in database do not cache it,
+ * which would make every key larger.
+ *
  * @author jinyu.li
  * @since 1.0
  */
 public abstract class ByteWord implements Comparable<ByteWord> {
-    private static final String PATTERN_LONG = "^\\d+$";
-    private static final String PATTERN_DOUBLE = "^\\d+(\\.\\d+)?$";
+    /**
+     * Types of a word parsed as a number, 0 means not parsed yet.
+     */
+    static final byte NUMBER_TYPE_NONE = 1;
+    static final byte NUMBER_TYPE_LONG = 2;
+    static final byte NUMBER_TYPE_DOUBLE = 3;
+
+    /**
+     * Doubles with at most this many digits are parsed without rounding error, see {@link #parseDouble()}.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
     /**
      * Create an instance of ByteWord with given string.
@@ -86,6 +105,24 @@ public abstract class ByteWord implements Comparable<ByteWord> {
         return new MultiBytesWord(word);
     }
 
+    /**
+     * Create an instance of ByteWord that references a range of given buffer, bytes are not copied.
+     *
+     * <p>The word is only valid until the range of the buffer is overwritten,
+     * so it must be materialized by {@link #compact()} before it's kept, e.g. stored in database.
+     *
+     * @param buffer buffer
+     * @param offset index of the first byte in the buffer
+     * @param length number of bytes
+     * @return an instance of ByteWord
+     */
+    public static ByteWord slice(ByteBuffer buffer, int offset, int length) {
+        if (offset < 0 || length <= 0 || offset + length > buffer.capacity()) {
+            throw new IllegalArgumentException("invalid range");
+        }
+        return new SliceByteWord(buffer, offset, length);
+    }
+
     /**
      * Size.
      *
@@ -102,34 +139,56 @@ public abstract class ByteWord implements Comparable<ByteWord> {
 
     abstract byte getByte(int i);
 
+    /**
+     * Copy bytes of the word to given array, it does not create an intermediate array.
+     *
+     * @param target target array
+     * @param offset position of the first byte in target array
+     */
+    public void copyTo(byte[] target, int offset) {
+        for (int i = 0, n = size(); i < n; ++i) {
+            target[offset + i] = getByte(i);
+        }
+    }
+
+    /**
+     * Copy bytes of the word to given buffer at its position, the position is moved.
+     * It does not create an intermediate array, so a large word can be copied to a direct buffer without heap.
+     *
+     * @param target target buffer
+     */
+    public void copyTo(ByteBuffer target) {
+        for (int i = 0, n = size(); i < n; ++i) {
+            target.put(getByte(i));
+        }
+    }
+
     /**
      * Whether the word is a number, integer or float.
+     * A number is an optional '-' followed by digits, and an optional fraction part, e.g. -12.5.
      *
      * @return true if it's a number
      */
     public boolean isNumber() {
-        String str = getString();
-        return str != null && str.matches(PATTERN_DOUBLE);
+        return numberType() != NUMBER_TYPE_NONE;
     }
 
     /**
-     * Whether the word is a long.
+     * Whether the word is an integer in range of long.
      *
      * @return true if it's a long
      */
     public boolean isLong() {
-        String str = getString();
-        return str != null && str.matches(PATTERN_LONG);
+        return numberType() == NUMBER_TYPE_LONG;
     }
 
     /**
-     * Whether the word is a double.
+     * Whether the word is a number but not a long, e.g. it has a fraction part.
      *
      * @return true if it's a double
      */
     public boolean isDouble() {
-        String str = getString();
-        return str != null && str.matches(PATTERN_DOUBLE);
+        return numberType() == NUMBER_TYPE_DOUBLE;
     }
 
     /**
@@ -138,31 +197,128 @@ public abstract class ByteWord implements Comparable<ByteWord> {
      * @return number
      */
     public long getLong() {
-        String str = getString();
-        return Long.parseLong(str);
+        if (!isLong()) {
+            throw new NumberFormatException("not a long: " + getString());
+        }
+        return parseLong();
     }
 
     /**
-     * Return a double value, only valid if isDouble() is true.
+     * Return a double value, only valid if isNumber() is true.
      *
      * @return number
      */
     public double getDouble() {
-        String str = getString();
-        return Double.parseDouble(str);
+        if (!isNumber()) {
+            throw new NumberFormatException("not a number: " + getString());
+        }
+        return parseDouble();
     }
 
     /**
      * Return number, only valid if isNumber() is true.
      *
-     * @return number
+     * @return number if it's a long, otherwise 0
      */
     public long getNumber() {
-        String str = getString();
-        if (str.matches(PATTERN_LONG)) {
-            return Long.parseLong(str);
+        return isLong() ? parseLong() : 0;
+    }
+
+    /**
+     * Type of the word parsed as a number, words that are used as arguments may cache it.
+     *
+     * @return one of NUMBER_TYPE_*
+     */
+    byte numberType() {
+        return parseNumberType();
+    }
+
+    /**
+     * Check the bytes of the word, nothing is allocated.
+     *
+     * @return one of NUMBER_TYPE_*
+     */
+    final byte parseNumberType() {
+        int size = size();
+        int i = size > 0 && getByte(0) == '-' ? 1 : 0;
+        int start = i;
+        long value = 0;
+        boolean overflow = false;
+        for (; i < size; ++i) {
+            int digit = getByte(i) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            // accumulate negatively, since range of negative long is larger
+            if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+                overflow = true;
+            }
+            value = value * 10 - digit;
+        }
+        if (i == start) {
+            return NUMBER_TYPE_NONE;
         }
-        return 0;
+        if (i == size) {
+            return overflow || (start == 0 && value == Long.MIN_VALUE) ? NUMBER_TYPE_DOUBLE : NUMBER_TYPE_LONG;
+        }
+        if (getByte(i) != '.' || i == size - 1) {
+            return NUMBER_TYPE_NONE;
+        }
+        for (++i; i < size; ++i) {
+            byte b = getByte(i);
+            if (b < '0' || b > '9') {
+                return NUMBER_TYPE_NONE;
+            }
+        }
+        return NUMBER_TYPE_DOUBLE;
+    }
+
+    /**
+     * Parse the bytes as a long, the word must be a long.
+     *
+     * @return number
+     */
+    final long parseLong() {
+        int size = size();
+        boolean negative = getByte(0) == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < size; ++i) {
+            value = value * 10 - (getByte(i) - '0');
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parse the bytes as a double, the word must be a number.
+     *
+     * <p>If there are at most 15 digits, the digits are exact as a long, and the scale is an exact power of ten,
+     * so the result of one division is correctly rounded, the same as {@link Double#parseDouble(String)}.
+     * Longer numbers are rare, they fall back to {@link Double#parseDouble(String)}.
+     *
+     * @return number
+     */
+    final double parseDouble() {
+        int size = size();
+        boolean negative = getByte(0) == '-';
+        long digits = 0;
+        int digitCount = 0;
+        int scale = -1;
+        for (int i = negative ? 1 : 0; i < size; ++i) {
+            byte b = getByte(i);
+            if (b == '.') {
+                scale = 0;
+                continue;
+            }
+            if (++digitCount > MAX_EXACT_DIGITS) {
+                return Double.parseDouble(getString());
+            }
+            digits = digits * 10 + (b - '0');
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+        return negative ? -value : value;
     }
 
     /**
@@ -180,9 +336,104 @@ public abstract class ByteWord implements Comparable<ByteWord> {
      */
     public abstract void write(DataWriter writer) throws IOException;
 
+    /**
+     * Whether the word has the same byte sequence as given array.
+     *
+     * @param bytes byte array
+     * @return true if have same byte sequence
+     */
+    public boolean contentEquals(byte[] bytes) {
+        if (bytes.length != size()) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; ++i) {
+            if (getByte(i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the word has the same byte sequence as a range of given array.
+     * It's used to compare the word with data packed in a larger array, without copying the range.
+     *
+     * @param bytes  byte array
+     * @param offset index of the first byte of the range
+     * @param length number of bytes in the range
+     * @return true if have same byte sequence
+     */
+    public boolean contentEquals(byte[] bytes, int offset, int length) {
+        if (length != size()) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (getByte(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the word has the same byte sequence as given array, ignoring case of ASCII letters.
+     * It's used to match command names without converting the word to a string.
+     *
+     * @param upperCaseBytes byte array, letters must be upper case
+     * @return true if have same byte sequence ignoring case
+     */
+    public boolean equalsIgnoreCase(byte[] upperCaseBytes) {
+        if (upperCaseBytes.length != size()) {
+            return false;
+        }
+        for (int i = 0; i < upperCaseBytes.length; ++i) {
+            if (toUpperCase(getByte(i)) != upperCaseBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the word has the same characters as given ASCII string, ignoring case of letters.
+     * It's used to match options without converting the word to a string.
+     *
+     * @param upperCase ASCII string, letters must be upper case
+     * @return true if have same characters ignoring case
+     */
+    public boolean equalsIgnoreCase(String upperCase) {
+        if (upperCase.length() != size()) {
+            return false;
+        }
+        for (int i = 0; i < upperCase.length(); ++i) {
+            if (toUpperCase(getByte(i)) != upperCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hash code of the word with ASCII letters converted to upper case,
+     * words that are equal ignoring case have the same hash code.
+     *
+     * @return hash code
+     */
+    public int hashCodeIgnoreCase() {
+        int result = 1;
+        for (int i = 0; i < size(); ++i) {
+            result = 31 * result + toUpperCase(getByte(i));
+        }
+        return result;
+    }
+
+    private static byte toUpperCase(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
     /**
      * Used to compact data as much as possible.
-     * Generally called before save to database.
+     * Generally called before save to database, a word that references shared memory is copied.
      *
      * @return a compacted data
      */
@@ -317,9 +568,14 @@ public abstract class ByteWord implements Comparable<ByteWord> {
                     + '}';
         }
 
+        /**
+         * Same as the hash code of a word with the same byte sequence, since equals() compares bytes.
+         *
+         * @return hash code
+         */
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return Arrays.hashCode(bytes);
         }
 
         @Override
@@ -409,9 +665,14 @@ public abstract class ByteWord implements Comparable<ByteWord> {
                     + '}';
         }
 
+        /**
+         * Same as the hash code of a word with the same byte sequence, since equals() compares bytes.
+         *
+         * @return hash code
+         */
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return Arrays.hashCode(bytes);
         }
 
         @Override
@@ -445,6 +706,16 @@ public abstract class ByteWord implements Comparable<ByteWord> {
             return word[i];
         }
 
+        @Override
+        public void copyTo(byte[] target, int offset) {
+            System.arraycopy(word, 0, target, offset, word.length);
+        }
+
+        @Override
+        public void copyTo(ByteBuffer target) {
+            target.put(word);
+        }
+
         @Override
         public String getString() {
             return new String(word);
@@ -465,6 +736,16 @@ public abstract class ByteWord implements Comparable<ByteWord> {
             return result;
         }
 
+        @Override
+        public boolean contentEquals(byte[] bytes) {
+            return Arrays.equals(word, bytes);
+        }
+
+        @Override
+        public boolean contentEquals(byte[] bytes, int offset, int length) {
+            return Arrays.equals(word, 0, word.length, bytes, offset, offset + length);
+        }
+
         @Override
         public String toString() {
             return "SingleBytesWord{"
@@ -482,6 +763,13 @@ public abstract class ByteWord implements Comparable<ByteWord> {
          */
         private byte[] flattenedWord;
 
+        /**
+         * Number parsed from the word, only initialized when needed.
+         */
+        private byte numberType;
+        private boolean numberParsed;
+        private long number;
+
         public MultiBytesWord(List<byte[]> word) {
             if (word == null || word.size() == 0) {
                 throw new IllegalArgumentException("given list is null or empty");
@@ -526,6 +814,26 @@ public abstract class ByteWord implements Comparable<ByteWord> {
             return new String(get());
         }
 
+        @Override
+        byte numberType() {
+            if (numberType == 0) {
+                numberType = parseNumberType();
+            }
+            return numberType;
+        }
+
+        @Override
+        public long getLong() {
+            if (numberType() != NUMBER_TYPE_LONG) {
+                return super.getLong();
+            }
+            if (!numberParsed) {
+                number = parseLong();
+                numberParsed = true;
+            }
+            return number;
+        }
+
         @Override
         public void write(DataWriter writer) throws IOException {
             for (byte[] array : word) {
@@ -533,6 +841,18 @@ public abstract class ByteWord implements Comparable<ByteWord> {
             }
         }
 
+        @Override
+        public void copyTo(ByteBuffer target) {
+            for (byte[] array : word) {
+                target.put(array);
+            }
+        }
+
+        @Override
+        public boolean contentEquals(byte[] bytes) {
+            return Arrays.equals(get(), bytes);
+        }
+
         @Override
         public ByteWord compact() {
             byte[] bytes = new byte[size()];
@@ -573,6 +893,132 @@ public abstract class ByteWord implements Comparable<ByteWord> {
         }
     }
 
+    private static class SliceByteWord extends ByteWord {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        /**
+         * Only initialized when needed.
+         */
+        private byte[] copiedWord;
+
+        /**
+         * Number parsed from the word, only initialized when needed.
+         */
+        private byte numberType;
+        private boolean numberParsed;
+        private long number;
+
+        public SliceByteWord(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public byte[] get() {
+            if (copiedWord == null) {
+                copiedWord = new byte[length];
+                buffer.get(offset, copiedWord);
+            }
+            return copiedWord;
+        }
+
+        @Override
+        byte getByte(int i) {
+            return buffer.get(offset + i);
+        }
+
+        @Override
+        public void copyTo(byte[] target, int targetOffset) {
+            buffer.get(offset, target, targetOffset, length);
+        }
+
+        @Override
+        public void copyTo(ByteBuffer target) {
+            target.put(buffer.slice(offset, length));
+        }
+
+        @Override
+        public String getString() {
+            return new String(get());
+        }
+
+        @Override
+        byte numberType() {
+            if (numberType == 0) {
+                numberType = parseNumberType();
+            }
+            return numberType;
+        }
+
+        @Override
+        public long getLong() {
+            if (numberType() != NUMBER_TYPE_LONG) {
+                return super.getLong();
+            }
+            if (!numberParsed) {
+                number = parseLong();
+                numberParsed = true;
+            }
+            return number;
+        }
+
+        @Override
+        public void write(DataWriter writer) throws IOException {
+            if (buffer.hasArray()) {
+                writer.write(buffer.array(), buffer.arrayOffset() + offset, length);
+            } else {
+                writer.write(buffer.slice(offset, length));
+            }
+        }
+
+        @Override
+        public boolean contentEquals(byte[] bytes) {
+            if (buffer.hasArray()) {
+                int from = buffer.arrayOffset() + offset;
+                return Arrays.equals(buffer.array(), from, from + length, bytes, 0, bytes.length);
+            }
+            return super.contentEquals(bytes);
+        }
+
+        @Override
+        public boolean contentEquals(byte[] bytes, int offset, int length) {
+            if (buffer.hasArray()) {
+                int from = buffer.arrayOffset() + this.offset;
+                return Arrays.equals(buffer.array(), from, from + this.length, bytes, offset, offset + length);
+            }
+            return super.contentEquals(bytes, offset, length);
+        }
+
+        @Override
+        public ByteWord compact() {
+            return new SingleByteWord(get());
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 1;
+            for (int i = 0; i < length; ++i) {
+                result = 31 * result + buffer.get(offset + i);
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "SliceByteWord{"
+                    + "word=" + getString()
+                    + '}';
+        }
+    }
+
     public static final ByteWord NULL = new ByteWord() {
         @Override
         public int compareTo(ByteWord o) {
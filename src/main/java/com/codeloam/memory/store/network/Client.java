@@ -1,38 +1,76 @@
 package com.codeloam.memory.store.network;
 
 import com.codeloam.memory.store.command.Command;
-import com.codeloam.memory.store.measure.MeasureData;
 import com.codeloam.memory.store.network.data.NetworkData;
 
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 /**
- * Represents a client request.
+ * Represents a client request, a connection may send multiple requests.
  *
  * @author jinyu.li
  * @since 1.0
  */
 public class Client {
-    private final SocketChannel socketChannel;
-    private MeasureData measureData;
+    private final Connection connection;
+    /**
+     * Timestamps of stages of the request, from {@link System#nanoTime()}.
+     */
+    private long startTime;
+    private long readTime;
+    private long parseTime;
+    private long processTime;
     private Command command;
+    /**
+     * Decoded words of the command, they may hold off-heap memory until {@link #releaseWords()}.
+     */
+    private List<ByteWord> words;
     private NetworkData result;
     private boolean clientError;
 
-    public Client(SocketChannel socketChannel) {
-        this.socketChannel = socketChannel;
+    public Client(Connection connection) {
+        this.connection = connection;
+    }
+
+    public Connection getConnection() {
+        return connection;
     }
 
     public SocketChannel getSocketChannel() {
-        return socketChannel;
+        return connection.getSocketChannel();
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getReadTime() {
+        return readTime;
+    }
+
+    public void setReadTime(long readTime) {
+        this.readTime = readTime;
+    }
+
+    public long getParseTime() {
+        return parseTime;
+    }
+
+    public void setParseTime(long parseTime) {
+        this.parseTime = parseTime;
     }
 
-    public MeasureData getMeasureData() {
-        return measureData;
+    public long getProcessTime() {
+        return processTime;
     }
 
-    public void setMeasureData(MeasureData measureData) {
-        this.measureData = measureData;
+    public void setProcessTime(long processTime) {
+        this.processTime = processTime;
     }
 
     public Command getCommand() {
@@ -58,4 +96,16 @@ public class Client {
     public void setClientError(boolean clientError) {
         this.clientError = clientError;
     }
+
+    public void setWords(List<ByteWord> words) {
+        this.words = words;
+    }
+
+    /**
+     * Release off-heap memory of words, it's called after the response is written, or the request is dropped.
+     */
+    public void releaseWords() {
+        OffHeapByteWord.release(words);
+        words = null;
+    }
 }
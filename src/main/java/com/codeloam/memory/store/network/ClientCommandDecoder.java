@@ -0,0 +1,468 @@
+package com.codeloam.memory.store.network;
+
+import com.codeloam.memory.store.command.InvalidCommandException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental decoder for client requests, it supports RESP format and inline commands.
+ *
+ * <p>Unlike {@link ClientCommandReader}, the decoder never waits for data. It consumes whatever bytes have arrived,
+ * keeps parse state between calls, and returns a command only when it is complete.
+ * So a slow client sending a big bulk string does not block or busy-spin a thread,
+ * and bytes that have been consumed are never parsed again.
+ *
+ * <p>A bulk string that has fully arrived in the buffer is not copied, its word references the buffer,
+ * see {@link ByteWord#slice(java.nio.ByteBuffer, int, int)}. So decoded words are only valid
+ * until the buffer is written again, caller must execute the commands before reading more data into the buffer.
+ * Words of an incomplete command are copied before decode returns, since the command continues in next read.
+ *
+ * <p>A bulk string that is not smaller than the off-heap threshold is read to off-heap memory directly,
+ * wherever it is, so a large value is never an array on heap. Its word is an {@link OffHeapByteWord}
+ * that owns the memory, a database that stores the word takes over the memory,
+ * otherwise it's freed by GC once the command is done.
+ *
+ * <p>Each connection owns a decoder, it's not thread safe.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ClientCommandDecoder {
+    private static final int MAX_ARRAY_DEPTH = 8;
+
+    private enum State {
+        /**
+         * Waiting for a new command.
+         */
+        Start,
+        /**
+         * Waiting for the type byte of an array element.
+         */
+        Prefix,
+        /**
+         * Reading a line after the type byte, until '\r'.
+         */
+        Line,
+        /**
+         * Skip '\n' of a line.
+         */
+        LineEnd,
+        /**
+         * Reading payload of a bulk string.
+         */
+        Bulk,
+        /**
+         * Skip "\r\n" after payload of a bulk string.
+         */
+        BulkEnd,
+        /**
+         * Reading an inline command, until '\r'.
+         */
+        Inline
+    }
+
+    private final int maxCommandSize;
+    private final int offHeapThreshold;
+
+    private State state;
+    private byte prefix;
+    private List<ByteWord> words;
+    private int commandSize;
+
+    /**
+     * Remaining elements of nested arrays.
+     */
+    private final int[] arrayRemaining;
+    private int arrayDepth;
+
+    /**
+     * Current line, it's used for type lines and inline commands.
+     */
+    private byte[] line;
+    private int lineLength;
+
+    /**
+     * Current bulk string, it's only allocated if the payload is split between reads.
+     */
+    private byte[] bulk;
+    /**
+     * Current bulk string that is read to off-heap memory, it's allocated for a large bulk string.
+     */
+    private ByteBuffer offHeapBulk;
+    private int bulkLength;
+    private int bulkOffset;
+    /**
+     * Word of current bulk string, null for an empty bulk string.
+     */
+    private ByteWord bulkWord;
+    private int skipBytes;
+
+    /**
+     * Constructor, bulk strings are not read to off-heap memory.
+     *
+     * @param maxCommandSize max bytes of a single command
+     */
+    public ClientCommandDecoder(int maxCommandSize) {
+        this(maxCommandSize, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxCommandSize   max bytes of a single command
+     * @param offHeapThreshold min size of bulk strings that are read to off-heap memory, non-positive to disable
+     */
+    public ClientCommandDecoder(int maxCommandSize, int offHeapThreshold) {
+        this.maxCommandSize = maxCommandSize;
+        this.offHeapThreshold = offHeapThreshold;
+        this.arrayRemaining = new int[MAX_ARRAY_DEPTH];
+        this.line = new byte[64];
+        this.state = State.Start;
+    }
+
+    /**
+     * Decode a command from given buffer, consumed bytes are removed from the buffer(position is moved).
+     *
+     * @param buf buffer in read mode
+     * @return a complete command, or null if more data is required
+     * @throws InvalidCommandException if data is not a valid command, the decoder can not be used any more
+     */
+    public List<ByteWord> decode(ByteBuffer buf) {
+        while (buf.hasRemaining()) {
+            switch (state) {
+                case Start -> {
+                    byte b = buf.get(buf.position());
+                    if (b == '\r' || b == '\n') {
+                        // line end of the last inline command, or empty line
+                        buf.get();
+                        continue;
+                    }
+                    words = new ArrayList<>();
+                    commandSize = 0;
+                    arrayDepth = 0;
+                    if (isRespPrefix(b)) {
+                        buf.get();
+                        consume(1);
+                        startLine(b);
+                    } else {
+                        lineLength = 0;
+                        state = State.Inline;
+                    }
+                }
+                case Prefix -> {
+                    byte b = buf.get();
+                    consume(1);
+                    if (!isRespPrefix(b)) {
+                        throw new InvalidCommandException("invalid resp format: " + (char) b);
+                    }
+                    startLine(b);
+                }
+                case Line -> {
+                    if (readLine(buf)) {
+                        state = State.LineEnd;
+                    }
+                }
+                case LineEnd -> {
+                    buf.get();
+                    consume(1);
+                    if (handleLine()) {
+                        return complete();
+                    }
+                }
+                case Bulk -> {
+                    if (offHeapThreshold > 0 && bulkLength >= offHeapThreshold) {
+                        readOffHeap(buf);
+                        continue;
+                    }
+                    if (bulk == null && buf.remaining() >= bulkLength) {
+                        // the whole payload is in buffer, reference it
+                        bulkWord = ByteWord.slice(buf, buf.position(), bulkLength);
+                        buf.position(buf.position() + bulkLength);
+                        consume(bulkLength);
+                        skipBytes = 2;
+                        state = State.BulkEnd;
+                        continue;
+                    }
+                    if (bulk == null) {
+                        bulk = new byte[bulkLength];
+                    }
+                    int size = Math.min(buf.remaining(), bulkLength - bulkOffset);
+                    buf.get(bulk, bulkOffset, size);
+                    consume(size);
+                    bulkOffset += size;
+                    if (bulkOffset == bulkLength) {
+                        bulkWord = ByteWord.create(bulk);
+                        bulk = null;
+                        skipBytes = 2;
+                        state = State.BulkEnd;
+                    }
+                }
+                case BulkEnd -> {
+                    int size = Math.min(buf.remaining(), skipBytes);
+                    buf.position(buf.position() + size);
+                    consume(size);
+                    skipBytes -= size;
+                    if (skipBytes == 0) {
+                        if (bulkWord != null) {
+                            words.add(bulkWord);
+                            bulkWord = null;
+                        }
+                        if (elementDone()) {
+                            return complete();
+                        }
+                    }
+                }
+                case Inline -> {
+                    if (readLine(buf)) {
+                        // '\r' has been consumed, '\n' will be skipped by next command
+                        words = ClientCommandReader.splitCommand(List.of(copyLine()));
+                        return complete();
+                    }
+                }
+                default -> throw new IllegalStateException("unknown state " + state);
+            }
+        }
+        if (state != State.Start) {
+            detachWords();
+        }
+        return null;
+    }
+
+    /**
+     * Called when the client closes its output, an inline command without line end is treated as complete.
+     *
+     * @return the last command, or null if there is no complete command
+     */
+    public List<ByteWord> finish() {
+        if (state == State.Inline && lineLength > 0) {
+            words = ClientCommandReader.splitCommand(List.of(copyLine()));
+            return complete();
+        }
+        return null;
+    }
+
+    /**
+     * Drop the incomplete command, off-heap memory it holds is released. It's called when the connection is closed.
+     */
+    public void discard() {
+        OffHeapByteWord.release(words);
+        words = null;
+        if (bulkWord instanceof OffHeapByteWord offHeapByteWord) {
+            offHeapByteWord.release();
+        }
+        bulkWord = null;
+        if (offHeapBulk != null) {
+            // wrap the partly read buffer, so its memory is freed now
+            OffHeapByteWord.wrap(offHeapBulk.clear()).release();
+            offHeapBulk = null;
+        }
+    }
+
+    /**
+     * Whether the decoder is in the middle of a command.
+     *
+     * @return true if part of a command has been consumed
+     */
+    public boolean isDecoding() {
+        return state != State.Start;
+    }
+
+    /**
+     * The command continues in next read, which overwrites the buffer, so copy words that reference it.
+     */
+    private void detachWords() {
+        if (words != null) {
+            words.replaceAll(ClientCommandDecoder::detach);
+        }
+        if (bulkWord != null) {
+            bulkWord = detach(bulkWord);
+        }
+    }
+
+    /**
+     * Copy a word that references the buffer, an off-heap word does not reference it, so it's kept off heap.
+     */
+    private static ByteWord detach(ByteWord word) {
+        return word == null || word instanceof OffHeapByteWord ? word : word.compact();
+    }
+
+    /**
+     * Read payload of a large bulk string to off-heap memory.
+     */
+    private void readOffHeap(ByteBuffer buf) {
+        if (offHeapBulk == null) {
+            offHeapBulk = ByteBuffer.allocateDirect(bulkLength);
+        }
+        int size = Math.min(buf.remaining(), offHeapBulk.remaining());
+        offHeapBulk.put(buf.slice(buf.position(), size));
+        buf.position(buf.position() + size);
+        consume(size);
+        if (!offHeapBulk.hasRemaining()) {
+            bulkWord = OffHeapByteWord.wrap(offHeapBulk.flip());
+            offHeapBulk = null;
+            skipBytes = 2;
+            state = State.BulkEnd;
+        }
+    }
+
+    private void startLine(byte b) {
+        prefix = b;
+        lineLength = 0;
+        state = State.Line;
+    }
+
+    /**
+     * Read bytes to line until '\r', '\r' is consumed but not added to line.
+     *
+     * @param buf buffer
+     * @return true if '\r' is found
+     */
+    private boolean readLine(ByteBuffer buf) {
+        int start = buf.position();
+        int end = buf.limit();
+        int index = start;
+        while (index < end && buf.get(index) != '\r') {
+            index++;
+        }
+        int size = index - start;
+        if (lineLength + size > line.length) {
+            byte[] newLine = new byte[Math.max(lineLength + size, line.length * 2)];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        buf.get(line, lineLength, size);
+        lineLength += size;
+        consume(size);
+        if (index < end) {
+            buf.get();
+            consume(1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Handle a complete type line.
+     *
+     * @return true if the command is complete
+     */
+    private boolean handleLine() {
+        switch (prefix) {
+            case '*' -> {
+                long size = parseLong();
+                if (size > 0) {
+                    if (arrayDepth >= MAX_ARRAY_DEPTH) {
+                        throw new InvalidCommandException("too many nested arrays");
+                    }
+                    arrayRemaining[arrayDepth++] = (int) size;
+                    state = State.Prefix;
+                    return false;
+                }
+                if (size == -1) {
+                    // TODO client should not send NULL array?
+                    words.add(null);
+                }
+                return elementDone();
+            }
+            case '$' -> {
+                long size = parseLong();
+                if (size == -1) {
+                    // TODO client should not send NULL bulk string?
+                    words.add(null);
+                    return elementDone();
+                }
+                if (size < 0 || commandSize + size > maxCommandSize) {
+                    throw new InvalidCommandException("The command is too long");
+                }
+                if (size == 0) {
+                    bulkWord = null;
+                    skipBytes = 2;
+                    state = State.BulkEnd;
+                } else {
+                    bulkLength = (int) size;
+                    bulkOffset = 0;
+                    state = State.Bulk;
+                }
+                return false;
+            }
+            case ':' -> {
+                words.add(ByteWord.create(parseLong()));
+                return elementDone();
+            }
+            default -> {
+                words.add(ByteWord.create(copyLine()));
+                return elementDone();
+            }
+        }
+    }
+
+    /**
+     * Called when an element is done.
+     *
+     * @return true if the command is complete
+     */
+    private boolean elementDone() {
+        while (arrayDepth > 0) {
+            if (--arrayRemaining[arrayDepth - 1] > 0) {
+                state = State.Prefix;
+                return false;
+            }
+            arrayDepth--;
+        }
+        return true;
+    }
+
+    private List<ByteWord> complete() {
+        List<ByteWord> result = words;
+        words = null;
+        state = State.Start;
+        if (line.length > 1024) {
+            // do not keep a big line buffer
+            line = new byte[64];
+        }
+        return result;
+    }
+
+    private long parseLong() {
+        if (lineLength == 0) {
+            throw new InvalidCommandException("invalid resp format: empty number");
+        }
+        int index = 0;
+        boolean negative = false;
+        if (line[0] == '-') {
+            negative = true;
+            index++;
+        }
+        if (index == lineLength || lineLength - index > 18) {
+            throw new InvalidCommandException("invalid resp format: invalid number");
+        }
+        long value = 0;
+        for (; index < lineLength; ++index) {
+            byte b = line[index];
+            if (b < '0' || b > '9') {
+                throw new InvalidCommandException("invalid resp format: invalid number");
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private byte[] copyLine() {
+        byte[] bytes = new byte[lineLength];
+        System.arraycopy(line, 0, bytes, 0, lineLength);
+        return bytes;
+    }
+
+    private void consume(int size) {
+        commandSize += size;
+        if (commandSize > maxCommandSize) {
+            throw new InvalidCommandException("The command is too long");
+        }
+    }
+
+    private static boolean isRespPrefix(byte b) {
+        return b == '$' || b == '-' || b == '+' || b == '*' || b == ':';
+    }
+}
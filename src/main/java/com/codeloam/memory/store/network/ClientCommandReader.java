@@ -31,6 +31,8 @@ public class ClientCommandReader implements CommandReader {
      * This method will not close the input stream.
      * Use whitespace(' ') to split commands, and support quotes.
      *
+     * <p>The trailing \r\n of the command is consumed too, so the next command can be read from the same reader.
+     *
      * @param reader read bytes from
      * @return split commands
      * @throws IOException if throw by input stream
@@ -46,13 +48,14 @@ public class ClientCommandReader implements CommandReader {
             }
             default -> {
                 List<byte[]> bufList = reader.readUntilStop();
+                reader.skip(2);
                 return splitCommand(bufList);
             }
         }
     }
 
     /**
-     * Read RESP format.
+     * Read RESP format, including the trailing \r\n.
      *
      * @param inputWrapper input
      * @param prefix       the first byte
@@ -94,6 +97,7 @@ public class ClientCommandReader implements CommandReader {
      */
     private List<ByteWord> readArray(DataReader input) throws IOException {
         List<byte[]> bufList = input.readUntilStop();
+        input.skip(2);
 
         ByteWord lengthWord = ByteWord.create(bufList);
         int size = Integer.parseInt(lengthWord.getString());
@@ -106,15 +110,15 @@ public class ClientCommandReader implements CommandReader {
             return List.of();
         }
 
-        input.skip(2);
-
         List<ByteWord> result = new ArrayList<>();
         while (size > 0) {
             Byte prefix = input.peek();
+            if (prefix == null) {
+                throw new InvalidCommandException("incomplete array");
+            }
             switch (prefix) {
                 case '$', '-', '+', '*', ':' -> {
                     result.addAll(readResp(input, prefix));
-                    input.skip(2);
                 }
                 default -> throw new InvalidCommandException("invalid resp format: " + prefix);
             }
@@ -146,10 +150,12 @@ public class ClientCommandReader implements CommandReader {
             result.add(null);
             return result;
         } else if (size == 0) {
+            input.skip(2);
             return List.of();
         }
 
         byte[] buf = input.read(size);
+        input.skip(2);
         return List.of(ByteWord.create(buf));
     }
 
@@ -162,10 +168,11 @@ public class ClientCommandReader implements CommandReader {
      */
     private List<ByteWord> readSimpleString(DataReader input) throws IOException {
         List<byte[]> bufList = input.readUntilStop();
+        input.skip(2);
         return List.of(ByteWord.create(bufList));
     }
 
-    private List<ByteWord> splitCommand(List<byte[]> bufList) {
+    static List<ByteWord> splitCommand(List<byte[]> bufList) {
         List<ByteWord> words = new ArrayList<>();
         int curBufListIndex = 0;
         int curBufIndex = 0;
@@ -180,7 +187,7 @@ public class ClientCommandReader implements CommandReader {
         return words;
     }
 
-    private Word readWithQuote(List<byte[]> bufList, int bufListIndex, int bufIndex) {
+    private static Word readWithQuote(List<byte[]> bufList, int bufListIndex, int bufIndex) {
         List<byte[]> wordBufList = new ArrayList<>();
         boolean singleQuote = false;
         boolean doubleQuote = false;
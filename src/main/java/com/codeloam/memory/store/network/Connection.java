@@ -0,0 +1,200 @@
+package com.codeloam.memory.store.network;
+
+import com.codeloam.memory.store.network.data.BufferedChannelDataWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Represents a persistent client connection.
+ *
+ * <p>A connection keeps open until client closes it, or a protocol error happens.
+ * Client may send multiple commands without waiting for responses(pipelining),
+ * commands are decoded from the read buffer as data arrives, and responses are written back in order.
+ * Responses that the socket does not take are queued in the writer, and written when the socket is writable,
+ * no more commands are read from the connection until the queue is empty.
+ *
+ * <p>Read and write buffers are direct buffers taken from a {@link BufferPool}, a connection only holds them
+ * while it's handling requests, they are returned by {@link #releaseBuffers()} once responses are written.
+ *
+ * <p>A connection is only accessed by one thread at a time.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class Connection {
+    private final SocketChannel socketChannel;
+    private final SelectionKey selectionKey;
+    private final BufferPool bufferPool;
+    private final ClientCommandDecoder decoder;
+    private final BufferedChannelDataWriter writer;
+
+    /**
+     * Buffer in read mode, null if it has been returned to pool.
+     */
+    private ByteBuffer readBuffer;
+
+    /**
+     * Parsed requests waiting to be executed.
+     */
+    private List<Client> requests;
+
+    /**
+     * Whether the connection should be closed after pending responses are written.
+     */
+    private boolean closing;
+
+    /**
+     * Whether the socket has been closed, the connection may be closed by selector thread and worker threads.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * When queued output exceeded soft limit, -1 if it's below soft limit.
+     */
+    private long softLimitReachedAt = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param socketChannel socket
+     * @param selectionKey  selection key, may be null if not registered to a selector
+     * @param bufferPool    pool of read and write buffers
+     * @param maxReadSize   max bytes of a single command
+     */
+    public Connection(SocketChannel socketChannel, SelectionKey selectionKey, BufferPool bufferPool,
+                      int maxReadSize) {
+        this.socketChannel = socketChannel;
+        this.selectionKey = selectionKey;
+        this.bufferPool = bufferPool;
+        this.decoder = new ClientCommandDecoder(maxReadSize, OffHeapByteWord.getThreshold());
+        this.writer = new BufferedChannelDataWriter(socketChannel, bufferPool);
+        this.requests = new ArrayList<>();
+    }
+
+    public SocketChannel getSocketChannel() {
+        return socketChannel;
+    }
+
+    public SelectionKey getSelectionKey() {
+        return selectionKey;
+    }
+
+    public ClientCommandDecoder getDecoder() {
+        return decoder;
+    }
+
+    public BufferedChannelDataWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Read available data from socket, the read buffer is in read mode after this call.
+     *
+     * <p>Decoded bytes are dropped before reading, words decoded from the last read may reference them,
+     * so this method must not be called until those commands have been executed.
+     *
+     * @return number of bytes read, or -1 if client closed the connection
+     * @throws IOException if thrown by socket
+     */
+    public int read() throws IOException {
+        if (readBuffer == null) {
+            readBuffer = bufferPool.acquire();
+        } else {
+            // the decoder consumes all bytes of the buffer, so normally it's just a clear
+            readBuffer.compact();
+        }
+        int size = socketChannel.read(readBuffer);
+        readBuffer.flip();
+        return size;
+    }
+
+    public ByteBuffer getReadBuffer() {
+        return readBuffer;
+    }
+
+    /**
+     * Return buffers to pool, it's called after responses are flushed, words decoded from the read buffer
+     * are not used any more. Buffers are taken again when there is data to read or write.
+     */
+    public void releaseBuffers() {
+        if (readBuffer != null && (!readBuffer.hasRemaining() || closing)) {
+            bufferPool.release(readBuffer);
+            readBuffer = null;
+        }
+        if (closing) {
+            writer.discard();
+            decoder.discard();
+            for (Client client : takeRequests()) {
+                client.releaseWords();
+            }
+        }
+    }
+
+    /**
+     * Check queued output against limits.
+     *
+     * @param limit limits
+     * @param now   current time in milliseconds
+     * @return true if output exceeds hard limit, or exceeds soft limit for too long
+     */
+    public boolean isOutputOverLimit(OutputLimit limit, long now) {
+        long size = writer.getPendingSize();
+        if (limit.hardLimit() > 0 && size > limit.hardLimit()) {
+            return true;
+        }
+        if (limit.softLimit() > 0 && size > limit.softLimit()) {
+            if (softLimitReachedAt < 0) {
+                softLimitReachedAt = now;
+            }
+            return now - softLimitReachedAt >= limit.softLimitMillis();
+        }
+        softLimitReachedAt = -1;
+        return false;
+    }
+
+    /**
+     * Add a parsed request.
+     *
+     * @param client request
+     */
+    public void addRequest(Client client) {
+        requests.add(client);
+    }
+
+    /**
+     * Take all pending requests.
+     *
+     * @return requests in the order they are received
+     */
+    public List<Client> takeRequests() {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        List<Client> result = requests;
+        requests = new ArrayList<>();
+        return result;
+    }
+
+    public boolean isClosing() {
+        return closing;
+    }
+
+    public void setClosing(boolean closing) {
+        this.closing = closing;
+    }
+
+    /**
+     * Mark the connection as closed.
+     *
+     * @return true if it's the first call
+     */
+    public boolean markClosed() {
+        return closed.compareAndSet(false, true);
+    }
+}
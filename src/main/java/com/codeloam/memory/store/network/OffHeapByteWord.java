@@ -0,0 +1,253 @@
+package com.codeloam.memory.store.network;
+
+import com.codeloam.memory.store.network.data.DataWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A word stored in off-heap memory, it's used for large values, so they are not scanned or copied by GC.
+ *
+ * <p>The memory is reference counted. The creator owns the first reference, {@link #retain()} returns a new view
+ * with another reference, each view should call {@link #release()} once it's not used.
+ * The memory is freed when all references are released, if a view is leaked,
+ * the memory is freed by GC as any direct buffer.
+ *
+ * <p>Values that are not smaller than {@link #getThreshold()} are kept in off-heap memory,
+ * from the network buffer to the database, so a large value never becomes a large array on heap.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class OffHeapByteWord extends ByteWord {
+    public static final String THRESHOLD_PROPERTY = "jimds.offHeapThreshold";
+    public static final int DEFAULT_THRESHOLD = 64 * 1024;
+
+    private final Memory memory;
+    private boolean released;
+
+    private OffHeapByteWord(Memory memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * Copy given word to off-heap memory.
+     *
+     * @param word word
+     * @return an off-heap word with one reference
+     */
+    public static OffHeapByteWord create(ByteWord word) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(word.size());
+        // copy from the source directly, get() would create an array as large as the word
+        word.copyTo(buffer);
+        buffer.flip();
+        return new OffHeapByteWord(new Memory(buffer));
+    }
+
+    /**
+     * Take over a direct buffer that has been filled and flipped, bytes from 0 to limit are the word.
+     * The buffer itself is kept instead of a slice, since only the buffer that owns memory can be freed.
+     * Caller should not use the buffer any more.
+     *
+     * @param buffer direct buffer, position is 0
+     * @return an off-heap word with one reference
+     */
+    static OffHeapByteWord wrap(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.position() != 0) {
+            throw new IllegalArgumentException("buffer should be a flipped direct buffer");
+        }
+        return new OffHeapByteWord(new Memory(buffer));
+    }
+
+    /**
+     * Release off-heap words in given list, other words are skipped.
+     * It's called when a command is done, a word kept by database has been retained or copied.
+     *
+     * @param words words of a command, may be null
+     */
+    public static void release(List<ByteWord> words) {
+        if (words == null) {
+            return;
+        }
+        for (ByteWord word : words) {
+            if (word instanceof OffHeapByteWord offHeapByteWord) {
+                offHeapByteWord.release();
+            }
+        }
+    }
+
+    /**
+     * Min size of values that are kept in off-heap memory, it can be set with system property
+     * {@value #THRESHOLD_PROPERTY}, a non-positive threshold disables off-heap memory.
+     *
+     * @return threshold
+     */
+    public static int getThreshold() {
+        return Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Get a new view of the same memory, the memory is not freed until the view is released.
+     *
+     * @return a new view
+     */
+    public OffHeapByteWord retain() {
+        checkReleased();
+        memory.retain();
+        return new OffHeapByteWord(memory);
+    }
+
+    /**
+     * Release reference of this view, it does nothing if the view has been released.
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            memory.release();
+        }
+    }
+
+    /**
+     * Number of views that have not been released.
+     *
+     * @return reference count
+     */
+    public int getRefCount() {
+        return memory.refCount.get();
+    }
+
+    /**
+     * Get a read-only buffer of the memory, position is 0 and limit is size.
+     *
+     * @return buffer
+     */
+    public ByteBuffer getBuffer() {
+        checkReleased();
+        return memory.buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public int size() {
+        return memory.buffer.limit();
+    }
+
+    @Override
+    public byte[] get() {
+        checkReleased();
+        byte[] bytes = new byte[size()];
+        memory.buffer.get(0, bytes);
+        return bytes;
+    }
+
+    @Override
+    byte getByte(int i) {
+        checkReleased();
+        return memory.buffer.get(i);
+    }
+
+    @Override
+    public String getString() {
+        return new String(get(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(DataWriter writer) throws IOException {
+        writer.write(this);
+    }
+
+    @Override
+    public void copyTo(ByteBuffer target) {
+        target.put(getBuffer());
+    }
+
+    /**
+     * A word kept by others, e.g. in a hash, is not reference counted, so it's copied to heap.
+     *
+     * @return a word on heap
+     */
+    @Override
+    public ByteWord compact() {
+        return ByteWord.create(get());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size(); ++i) {
+            result = 31 * result + getByte(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapByteWord{"
+                + "size=" + size()
+                + '}';
+    }
+
+    private void checkReleased() {
+        if (released) {
+            throw new IllegalStateException("off-heap word has been released");
+        }
+    }
+
+    /**
+     * Reference counted direct memory.
+     */
+    private static final class Memory {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                unsafe = field.get(null);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (Throwable t) {
+                // memory is freed by GC
+                unsafe = null;
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private final ByteBuffer buffer;
+        private final AtomicInteger refCount;
+
+        Memory(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.refCount = new AtomicInteger(1);
+        }
+
+        void retain() {
+            int count;
+            do {
+                count = refCount.get();
+                if (count <= 0) {
+                    throw new IllegalStateException("off-heap word has been freed");
+                }
+            } while (!refCount.compareAndSet(count, count + 1));
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0 && INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } catch (Throwable t) {
+                    // ignore, memory is freed by GC
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.codeloam.memory.store.network;
+
+/**
+ * Limits of output queue of a connection.
+ *
+ * <p>Responses that a client has not read are queued in memory. A connection is closed
+ * once its queued output exceeds the hard limit, or stays above the soft limit longer than soft limit time,
+ * so a slow client can not exhaust memory. A limit of 0 means no limit.
+ *
+ * @param softLimit       soft limit in bytes
+ * @param softLimitMillis how long output can stay above soft limit
+ * @param hardLimit       hard limit in bytes
+ * @author jinyu.li
+ * @since 1.0
+ */
+public record OutputLimit(long softLimit, long softLimitMillis, long hardLimit) {
+    public static final String SOFT_LIMIT_PROPERTY = "jimds.output.softLimit";
+    public static final String SOFT_LIMIT_SECONDS_PROPERTY = "jimds.output.softLimitSeconds";
+    public static final String HARD_LIMIT_PROPERTY = "jimds.output.hardLimit";
+
+    public static final long DEFAULT_SOFT_LIMIT = 64L * 1024 * 1024;
+    public static final long DEFAULT_SOFT_LIMIT_SECONDS = 60;
+    public static final long DEFAULT_HARD_LIMIT = 256L * 1024 * 1024;
+
+    /**
+     * Get limits from system properties, default limits are used if properties are not set.
+     *
+     * @return limits
+     */
+    public static OutputLimit fromSystemProperties() {
+        return new OutputLimit(Long.getLong(SOFT_LIMIT_PROPERTY, DEFAULT_SOFT_LIMIT),
+                Long.getLong(SOFT_LIMIT_SECONDS_PROPERTY, DEFAULT_SOFT_LIMIT_SECONDS) * 1000,
+                Long.getLong(HARD_LIMIT_PROPERTY, DEFAULT_HARD_LIMIT));
+    }
+}
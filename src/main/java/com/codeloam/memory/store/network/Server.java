@@ -8,6 +8,10 @@ package com.codeloam.memory.store.network;
  */
 public interface Server extends AutoCloseable {
     int DEFAULT_BUF_SIZE = 32;
+    /**
+     * Initial buffer size of a persistent connection.
+     */
+    int CONNECTION_BUF_SIZE = 16 * 1024;
     int MAX_COMMAND_LENGTH = 512 * 1024 * 1024 + 1024 * 1024;
     /**
      * Start the server.
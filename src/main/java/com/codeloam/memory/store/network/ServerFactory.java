@@ -1,10 +1,16 @@
 package com.codeloam.memory.store.network;
 
+import com.codeloam.memory.store.database.DatabaseType;
 import com.codeloam.memory.store.network.bio.BioServer;
+import com.codeloam.memory.store.network.bio.VirtualThreadBioServer;
+import com.codeloam.memory.store.network.nio.AbstractNioServer;
+import com.codeloam.memory.store.network.nio.MultiReactorNioServer;
 import com.codeloam.memory.store.network.nio.VirtualThreadNioServer;
 import com.codeloam.memory.store.network.nio.MultiThreadNioServer;
 import com.codeloam.memory.store.network.nio.NioServer;
 
+import java.nio.file.Path;
+
 /**
  * Factory to create a server.
  *
@@ -18,25 +24,57 @@ public class ServerFactory {
      * @param host host
      * @param port port
      * @param writeAsync whether to write data back async, only applied when useNio is true
+     * @param multiReactor whether to use one acceptor and multiple reactors, implies useNio, has the highest priority
+     * @param reusePort whether each reactor accepts connections from its own SO_REUSEPORT server socket,
+     *                  implies multiReactor
      * @param multiThread whether to use multiple thread, implies useNio, has higher priority than virtualThread
      * @param virtualThread whether to use virtual thread, implies useNio
+     * @param virtualBlocking whether to use a virtual thread per connection with blocking I/O,
+     *                        has higher priority than useNio
      * @param useNio whether to use nio
+     * @param unixSocket path of unix domain socket to listen on besides TCP, null to only listen on TCP,
+     *                   only applied to nio servers
+     * @param type database type
      * @return a server instance
      */
-    public static Server create(String host, int port, boolean writeAsync,
-                                boolean multiThread, boolean virtualThread, boolean useNio) {
-        if (multiThread) {
+    public static Server create(String host, int port, boolean writeAsync, boolean multiReactor,
+                                boolean reusePort, boolean multiThread, boolean virtualThread,
+                                boolean virtualBlocking, boolean useNio, String unixSocket, DatabaseType type) {
+        System.out.println("Use " + type + " database");
+        Server server = create(host, port, writeAsync, multiReactor, reusePort, multiThread, virtualThread,
+                virtualBlocking, useNio, type);
+        if (unixSocket != null) {
+            if (server instanceof AbstractNioServer nioServer) {
+                nioServer.setUnixSocketPath(Path.of(unixSocket));
+            } else {
+                System.out.println("Unix socket is only supported by nio servers, ignore " + unixSocket);
+            }
+        }
+        return server;
+    }
+
+    private static Server create(String host, int port, boolean writeAsync, boolean multiReactor,
+                                 boolean reusePort, boolean multiThread, boolean virtualThread,
+                                 boolean virtualBlocking, boolean useNio, DatabaseType type) {
+        if (multiReactor || reusePort) {
+            System.out.println("Use multi-reactor nio" + (reusePort ? " with reuse port" : ""));
+            return new MultiReactorNioServer(host, port, new ClientRequestProcessor(), type,
+                    Runtime.getRuntime().availableProcessors(), reusePort);
+        } else if (multiThread) {
             System.out.println("Use multi-thread nio" + (writeAsync ? " with async write" : ""));
-            return new MultiThreadNioServer(host, port, writeAsync);
+            return new MultiThreadNioServer(host, port, new ClientRequestProcessor(), type, writeAsync);
         } else if (virtualThread) {
             System.out.println("Use virtual thread nio" + (writeAsync ? " with async write" : ""));
-            return new VirtualThreadNioServer(host, port, writeAsync);
+            return new VirtualThreadNioServer(host, port, new ClientRequestProcessor(), type, writeAsync);
+        } else if (virtualBlocking) {
+            System.out.println("Use virtual thread per connection bio");
+            return new VirtualThreadBioServer(host, port, type);
         } else if (useNio) {
             System.out.println("Use nio");
-            return new NioServer(host, port);
+            return new NioServer(host, port, type);
         } else {
             System.out.println("Use bio");
-            return new BioServer(host, port);
+            return new BioServer(host, port, type);
         }
     }
 }
@@ -4,45 +4,62 @@ import com.codeloam.memory.store.JimdsException;
 import com.codeloam.memory.store.command.Command;
 import com.codeloam.memory.store.command.CommandFactory;
 import com.codeloam.memory.store.database.DatabaseType;
-import com.codeloam.memory.store.measure.MeasureData;
-import com.codeloam.memory.store.measure.RequestMeasureCollector;
 import com.codeloam.memory.store.network.AbstractServer;
+import com.codeloam.memory.store.network.BufferPool;
 import com.codeloam.memory.store.network.ByteWord;
 import com.codeloam.memory.store.network.ClientCommandReader;
 import com.codeloam.memory.store.network.ClientRequestProcessor;
 import com.codeloam.memory.store.network.CommandReader;
-import com.codeloam.memory.store.network.data.DataReader;
 import com.codeloam.memory.store.network.RequestProcessor;
 import com.codeloam.memory.store.network.Server;
+import com.codeloam.memory.store.network.data.DataWriter;
 import com.codeloam.memory.store.network.data.StreamDataReader;
 import com.codeloam.memory.store.network.data.StreamDataWriter;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * BIO server.
+ * BIO server, each connection is handled by its own thread.
+ *
+ * <p>A connection thread reads a command, executes it and writes the response in a loop until the client
+ * closes the connection, so an idle client does not block others. Commands are executed in connection threads
+ * directly if the database is thread safe, otherwise execution is serialized by a lock.
+ *
+ * <p>Connections borrow read and write buffers from a shared pool only while they have commands to handle,
+ * so idle connections only cost their threads.
  *
  * @author jinyu.li
  * @since 1.0
  */
 public class BioServer extends AbstractServer implements Server {
+    /**
+     * Size of read and write buffers of connections.
+     */
+    private static final int IO_BUFFER_SIZE = 8 * 1024;
+
     private ServerSocket serverSocket;
     private final String host;
     private final int port;
 
     private final CommandReader commandReader;
     private final AtomicBoolean stop;
-
-    private final RequestMeasureCollector requestMeasureCollector;
+    private final BufferPool bufferPool;
+    /**
+     * Lock of a database that is not thread safe, null if the database is thread safe.
+     * A lock is used instead of synchronized, which pins a virtual thread to its carrier.
+     */
+    private final Lock databaseLock;
 
     /**
      * Init server with given host and port.
@@ -79,12 +96,13 @@ public class BioServer extends AbstractServer implements Server {
         this.port = port;
         this.stop = new AtomicBoolean(false);
         this.commandReader = new ClientCommandReader();
-        this.requestMeasureCollector = new RequestMeasureCollector("BIO");
+        this.bufferPool = new BufferPool(IO_BUFFER_SIZE, BufferPool.DEFAULT_MAX_POOLED, false);
+        this.databaseLock = database.isThreadSafe() ? null : new ReentrantLock();
     }
 
     /**
      * Start the server.
-     * Process client request one by one.
+     * Accept client connections and hand each one to {@link #handle(Socket)}.
      */
     public void start() {
         try {
@@ -93,7 +111,7 @@ public class BioServer extends AbstractServer implements Server {
             System.out.println("Jimds is ready to accept requests on port " + port);
             while (!stop.get()) {
                 Socket socket = serverSocket.accept();
-                process(socket);
+                handle(socket);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -102,51 +120,131 @@ public class BioServer extends AbstractServer implements Server {
         }
     }
 
+    @Override
+    protected List<BufferPool> getBufferPools() {
+        return List.of(bufferPool);
+    }
+
     @Override
     public void close() throws Exception {
         stop.set(true);
         closeQuietly(serverSocket);
+        database.close();
+    }
+
+    /**
+     * Start a thread for the connection, and return to accept next connection.
+     *
+     * @param socket socket
+     */
+    protected void handle(Socket socket) {
+        Thread thread = new Thread(() -> process(socket), "connection-" + socket.getPort());
+        // connection threads should not keep the process alive after server is closed
+        thread.setDaemon(true);
+        thread.start();
     }
 
+    /**
+     * Process all commands from the socket until client closes the connection.
+     * Responses are flushed when there is no more pipelined command in input.
+     *
+     * @param socket socket
+     */
     protected void process(Socket socket) {
-        BufferedInputStream inputStream = null;
-        BufferedOutputStream outputStream = null;
-        MeasureData measureData = new MeasureData();
+        InputStream inputStream = null;
+        OutputStream outputStream = null;
+        StreamDataReader dataReader = null;
+        StreamDataWriter dataWriter = null;
+        serverStats.connectionOpened();
         try {
-            measureData.add(RequestMeasureCollector.FIELD_NAME_CONNECTED);
-            inputStream = new BufferedInputStream(socket.getInputStream());
-            outputStream = new BufferedOutputStream(socket.getOutputStream());
-            DataReader dataReader = new StreamDataReader(inputStream, bufSize, MAX_COMMAND_LENGTH);
-            List<ByteWord> words = commandReader.read(dataReader);
-            measureData.add(RequestMeasureCollector.FIELD_NAME_READ);
-            Command command = CommandFactory.parseCommand(words);
-            measureData.add(RequestMeasureCollector.FIELD_NAME_PARSE);
-            NetworkData data = requestProcessor.process(database, command);
-            measureData.add(RequestMeasureCollector.FIELD_NAME_PROCESS);
-            data.write(new StreamDataWriter(outputStream));
-            outputStream.flush();
-            measureData.add(RequestMeasureCollector.FIELD_NAME_SEND);
-        } catch (JimdsException e) {
-            measureData.add(RequestMeasureCollector.FIELD_NAME_ERROR);
-            // internal exception, write to output
-            NetworkData data = new NetworkError(e.getMessage());
-            try {
-                data.write(new StreamDataWriter(outputStream));
-            } catch (IOException ex) {
-                e.printStackTrace();
+            inputStream = socket.getInputStream();
+            outputStream = socket.getOutputStream();
+            dataReader = new StreamDataReader(inputStream, bufferPool, MAX_COMMAND_LENGTH);
+            dataWriter = new StreamDataWriter(outputStream, bufferPool);
+            while (dataReader.peek() != null) {
+                boolean keepAlive = process(dataReader, dataWriter);
+                serverStats.addBytesIn(dataReader.takeReadBytes());
+                serverStats.addBytesOut(dataWriter.takeWrittenBytes());
+                if (!keepAlive) {
+                    break;
+                }
+                if (dataReader.getOffset() >= dataReader.getCount() && inputStream.available() == 0) {
+                    // return buffers before waiting for next command
+                    dataWriter.flush();
+                    dataReader.releaseBuffer();
+                }
             }
+            dataWriter.flush();
         } catch (Throwable e) {
-            measureData.add(RequestMeasureCollector.FIELD_NAME_ERROR);
-            // should only be thrown when writing data to output
-            // if input throws IOException, an error message will be written to output.
-            // throw new RuntimeException(e);
+            // should only be thrown when reading data from or writing data to socket
             // ignore the message, and close socket
             e.printStackTrace();
         } finally {
-            requestMeasureCollector.add(measureData);
             closeQuietly(inputStream);
             closeQuietly(outputStream);
             closeQuietly(socket);
+            if (dataReader != null) {
+                serverStats.addBytesIn(dataReader.takeReadBytes());
+                serverStats.addBytesOut(dataWriter.takeWrittenBytes());
+            }
+            serverStats.connectionClosed();
+        }
+    }
+
+    /**
+     * Process one command.
+     *
+     * @param dataReader reader
+     * @param dataWriter writer
+     * @return false if the connection should be closed
+     * @throws IOException if thrown by socket
+     */
+    private boolean process(StreamDataReader dataReader, DataWriter dataWriter) throws IOException {
+        boolean keepAlive = true;
+        try {
+            dataReader.resetReadSize();
+            long startTime = System.nanoTime();
+            List<ByteWord> words;
+            try {
+                words = commandReader.read(dataReader);
+            } catch (JimdsException e) {
+                // can not find the start of next command
+                keepAlive = false;
+                throw e;
+            }
+            long readTime = System.nanoTime();
+            Command command = CommandFactory.parseCommand(words);
+            long parseTime = System.nanoTime();
+            NetworkData data = execute(command);
+            long processTime = System.nanoTime();
+            data.write(dataWriter);
+            requestMeasureCollector.recordCommand(command.getName(), processTime - parseTime);
+            requestMeasureCollector.record(startTime, readTime, parseTime, processTime, System.nanoTime());
+        } catch (JimdsException e) {
+            requestMeasureCollector.recordError();
+            // internal exception, write to output
+            NetworkData data = new NetworkError(e.getMessage());
+            data.write(dataWriter);
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Execute a command on database.
+     *
+     * @param command command
+     * @return response
+     * @throws IOException if thrown by request processor
+     */
+    protected NetworkData execute(Command command) throws IOException {
+        if (databaseLock == null) {
+            return processCommand(command);
+        }
+        databaseLock.lock();
+        try {
+            return processCommand(command);
+        } finally {
+            databaseLock.unlock();
         }
     }
 
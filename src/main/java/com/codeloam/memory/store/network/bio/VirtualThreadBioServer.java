@@ -0,0 +1,53 @@
+package com.codeloam.memory.store.network.bio;
+
+import com.codeloam.memory.store.database.DatabaseType;
+import com.codeloam.memory.store.network.ClientRequestProcessor;
+import com.codeloam.memory.store.network.RequestProcessor;
+
+import java.net.Socket;
+
+/**
+ * Blocking server, each connection is handled by its own virtual thread.
+ *
+ * <p>The virtual thread reads a command with blocking I/O, executes it and writes the response in a loop,
+ * there is no selector and no hand-off between threads. A blocked read or write only parks the virtual thread,
+ * so a carrier thread can serve other connections meanwhile.
+ *
+ * <p>Like {@link BioServer}, commands are executed in connection threads directly if the database is thread safe,
+ * so a sharded or concurrent database should be used. Otherwise execution is serialized by a lock.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class VirtualThreadBioServer extends BioServer {
+
+    public VirtualThreadBioServer(String host, int port) {
+        this(host, port, DatabaseType.Simple);
+    }
+
+    public VirtualThreadBioServer(String host, int port, DatabaseType type) {
+        this(host, port, new ClientRequestProcessor(), type);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host             host
+     * @param port             port
+     * @param requestProcessor request processor
+     * @param type             database type
+     */
+    public VirtualThreadBioServer(String host, int port, RequestProcessor requestProcessor, DatabaseType type) {
+        super(host, port, requestProcessor, type);
+    }
+
+    /**
+     * Start a virtual thread for the connection, and return to accept next connection.
+     *
+     * @param socket socket
+     */
+    @Override
+    protected void handle(Socket socket) {
+        Thread.ofVirtual().name("connection-" + socket.getPort()).start(() -> process(socket));
+    }
+}
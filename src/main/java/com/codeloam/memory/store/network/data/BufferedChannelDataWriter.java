@@ -0,0 +1,347 @@
+package com.codeloam.memory.store.network.data;
+
+import com.codeloam.memory.store.network.BufferPool;
+import com.codeloam.memory.store.network.OffHeapByteWord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Write data to a buffer, and flush the buffer to WritableByteChannel with as few writes as possible.
+ *
+ * <p>Responses of pipelined commands are written to the same buffer, and flushed together.
+ * The buffer is a direct buffer taken from a {@link BufferPool} when data is written,
+ * and returned after it's flushed.
+ *
+ * <p>A payload that does not fit in the buffer is not copied, buffered data and the payload are written
+ * together with one gathering write, e.g. header of a large bulk string and its value.
+ *
+ * <p>The writer never waits for a non-blocking channel. Data that the channel does not take is kept
+ * in an output queue in order, a full buffer is queued as it is, a payload is copied to pooled buffers
+ * since it may be changed after the call. An off-heap word is not copied, its memory is queued
+ * with a retained view, which is released once the memory has been written.
+ * {@link #flush()} writes queued data again, caller should call it when the channel is writable,
+ * until it returns true.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class BufferedChannelDataWriter implements DataWriter {
+    private final WritableByteChannel channel;
+    /**
+     * Same as channel if it supports gathering writes, otherwise null.
+     */
+    private final GatheringByteChannel gatheringChannel;
+    private final BufferPool bufferPool;
+    private final int bufSize;
+
+    /**
+     * Buffer in write mode, null if there is no buffered data.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Data that channel did not take, each buffer is in read mode.
+     */
+    private final Deque<ByteBuffer> pending;
+    private long pendingSize;
+    /**
+     * Retained off-heap words of queued buffers, the key is the queued buffer.
+     */
+    private final Map<ByteBuffer, OffHeapByteWord> retained;
+
+    /**
+     * Bytes written to channel since last {@link #takeWrittenBytes()}.
+     */
+    private long writtenBytes;
+
+    /**
+     * Constructor.
+     *
+     * @param channel    channel to write data
+     * @param bufferPool pool of buffers
+     */
+    public BufferedChannelDataWriter(WritableByteChannel channel, BufferPool bufferPool) {
+        this.channel = channel;
+        this.gatheringChannel = channel instanceof GatheringByteChannel gathering ? gathering : null;
+        this.bufferPool = bufferPool;
+        this.bufSize = bufferPool.getBufferSize();
+        this.pending = new ArrayDeque<>();
+        this.retained = new IdentityHashMap<>(4);
+    }
+
+    @Override
+    public void write(byte[] buf) throws IOException {
+        write(buf, 0, buf.length);
+    }
+
+    @Override
+    public void write(byte[] buf, int offset, int size) throws IOException {
+        ByteBuffer buffer = getBuffer();
+        if (size <= buffer.remaining()) {
+            buffer.put(buf, offset, size);
+            return;
+        }
+        if (gatheringChannel != null && pending.isEmpty()) {
+            writeWithBuffer(ByteBuffer.wrap(buf, offset, size), null);
+            return;
+        }
+        while (size > 0) {
+            buffer = getBuffer();
+            int n = Math.min(buffer.remaining(), size);
+            buffer.put(buf, offset, n);
+            offset += n;
+            size -= n;
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Small data is copied to buffer, large data is written to channel together with buffered data.
+     *
+     * @param buf buffer
+     * @throws IOException if thrown by channel
+     */
+    @Override
+    public void write(ByteBuffer buf) throws IOException {
+        write(buf, null);
+    }
+
+    /**
+     * Same as {@link #write(ByteBuffer)}, but memory of the word is queued instead of copied
+     * if channel does not take all of it.
+     *
+     * @param word off-heap word
+     * @throws IOException if thrown by channel
+     */
+    @Override
+    public void write(OffHeapByteWord word) throws IOException {
+        write(word.getBuffer(), word);
+    }
+
+    /**
+     * Number of buffered bytes, including queued bytes.
+     *
+     * @return buffered bytes
+     */
+    public long size() {
+        return pendingSize + (buffer == null ? 0 : buffer.position());
+    }
+
+    /**
+     * Number of bytes that channel did not take.
+     *
+     * @return queued bytes
+     */
+    public long getPendingSize() {
+        return pendingSize;
+    }
+
+    /**
+     * Get bytes written to channel since last call, and reset the counter.
+     *
+     * @return written bytes
+     */
+    public long takeWrittenBytes() {
+        long bytes = writtenBytes;
+        writtenBytes = 0;
+        return bytes;
+    }
+
+    /**
+     * Write buffered and queued data to channel as much as channel takes, the buffer is returned to pool.
+     *
+     * @return true if all data has been written, false if some data is still queued
+     * @throws IOException if thrown by channel
+     */
+    public boolean flush() throws IOException {
+        if (buffer != null && buffer.position() > 0) {
+            drain();
+        }
+        writePending();
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+        return pending.isEmpty();
+    }
+
+    /**
+     * Drop buffered and queued data, buffers are returned to pool. It's called when the channel is closed.
+     */
+    public void discard() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+        ByteBuffer buf;
+        while ((buf = pending.poll()) != null) {
+            release(buf);
+        }
+        pendingSize = 0;
+    }
+
+    private ByteBuffer getBuffer() {
+        if (buffer == null) {
+            buffer = bufferPool.acquire();
+        }
+        return buffer;
+    }
+
+    /**
+     * Write a payload.
+     *
+     * @param buf   payload
+     * @param owner off-heap word that owns the payload, or null if the payload should be copied when it's queued
+     * @throws IOException if thrown by channel
+     */
+    private void write(ByteBuffer buf, OffHeapByteWord owner) throws IOException {
+        ByteBuffer buffer = getBuffer();
+        int size = buf.remaining();
+        if (size <= buffer.remaining()) {
+            buffer.put(buf);
+            return;
+        }
+        if (pending.isEmpty() && (gatheringChannel != null || size > bufSize)) {
+            writeWithBuffer(buf, owner);
+            return;
+        }
+        drain();
+        if (size <= bufSize) {
+            getBuffer().put(buf);
+        } else {
+            enqueuePayload(buf, owner);
+        }
+    }
+
+    /**
+     * Write buffered data followed by given payload to channel, data that channel does not take is queued.
+     * Output queue must be empty.
+     *
+     * @param payload payload
+     * @param owner   off-heap word that owns the payload, or null
+     * @throws IOException if thrown by channel
+     */
+    private void writeWithBuffer(ByteBuffer payload, OffHeapByteWord owner) throws IOException {
+        if (gatheringChannel == null) {
+            drain();
+        } else {
+            ByteBuffer[] buffers = {buffer.flip(), payload};
+            // a write may only take part of data, continue from the first buffer with remaining bytes
+            int offset = buffer.hasRemaining() ? 0 : 1;
+            long written;
+            while (offset < buffers.length
+                    && (written = gatheringChannel.write(buffers, offset, buffers.length - offset)) > 0) {
+                writtenBytes += written;
+                while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+            queueBuffer();
+        }
+        if (pending.isEmpty()) {
+            int written;
+            while (payload.hasRemaining() && (written = channel.write(payload)) > 0) {
+                // write until channel is full
+                writtenBytes += written;
+            }
+        }
+        if (payload.hasRemaining()) {
+            enqueuePayload(payload, owner);
+        }
+    }
+
+    /**
+     * Write buffered data to channel, if channel does not take all of it, the buffer is queued.
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        if (pending.isEmpty()) {
+            int written;
+            while (buffer.hasRemaining() && (written = channel.write(buffer)) > 0) {
+                // write until channel is full
+                writtenBytes += written;
+            }
+        }
+        queueBuffer();
+    }
+
+    /**
+     * Queue the buffer if it has remaining data, otherwise clear it for next write.
+     */
+    private void queueBuffer() {
+        if (buffer.hasRemaining()) {
+            enqueue(buffer);
+            buffer = null;
+        } else {
+            buffer.clear();
+        }
+    }
+
+    private void writePending() throws IOException {
+        while (!pending.isEmpty()) {
+            long written;
+            if (gatheringChannel != null && pending.size() > 1) {
+                written = gatheringChannel.write(pending.toArray(new ByteBuffer[0]));
+            } else {
+                written = channel.write(pending.peekFirst());
+            }
+            pendingSize -= written;
+            writtenBytes += written;
+            ByteBuffer first;
+            while ((first = pending.peekFirst()) != null && !first.hasRemaining()) {
+                pending.pollFirst();
+                release(first);
+            }
+            if (written == 0) {
+                // channel is full
+                break;
+            }
+        }
+    }
+
+    private void enqueue(ByteBuffer buf) {
+        pending.addLast(buf);
+        pendingSize += buf.remaining();
+    }
+
+    /**
+     * Queue remaining bytes of a payload. Memory of an off-heap word is queued with a retained view,
+     * other payloads are copied to pooled buffers.
+     */
+    private void enqueuePayload(ByteBuffer payload, OffHeapByteWord owner) {
+        if (owner != null) {
+            ByteBuffer queued = payload.slice();
+            retained.put(queued, owner.retain());
+            enqueue(queued);
+            return;
+        }
+        while (payload.hasRemaining()) {
+            ByteBuffer copied = bufferPool.acquire();
+            int size = Math.min(copied.remaining(), payload.remaining());
+            copied.put(payload.slice(payload.position(), size));
+            payload.position(payload.position() + size);
+            enqueue(copied.flip());
+        }
+    }
+
+    /**
+     * Release a buffer that has been written or discarded.
+     */
+    private void release(ByteBuffer buf) {
+        OffHeapByteWord word = retained.remove(buf);
+        if (word != null) {
+            word.release();
+        } else {
+            bufferPool.release(buf);
+        }
+    }
+}
@@ -5,12 +5,16 @@ import com.codeloam.memory.store.command.InvalidCommandException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Read data from ReadableByteChannel.
  *
+ * <p>The channel should be in blocking mode. If a non-blocking channel has no data,
+ * {@link IncompleteDataException} is thrown instead of spinning on the channel.
+ *
  * @author jinyu.li
  * @since 1.0
  */
@@ -62,6 +66,9 @@ public class ChannelDataReader implements DataReader {
             if (count < 0) {
                 break;
             }
+            if (count == 0 && isNonBlocking()) {
+                throw new IncompleteDataException();
+            }
             totalSize += count;
             if (totalSize > maxReadSize) {
                 throw new InvalidCommandException("The command is too long");
@@ -125,6 +132,10 @@ public class ChannelDataReader implements DataReader {
         return count;
     }
 
+    private boolean isNonBlocking() {
+        return channel instanceof SelectableChannel selectableChannel && !selectableChannel.isBlocking();
+    }
+
     /**
      * Read more data from channel.
      *
@@ -140,6 +151,9 @@ public class ChannelDataReader implements DataReader {
             if (count < 0) {
                 break;
             }
+            if (count == 0 && isNonBlocking()) {
+                throw new IncompleteDataException();
+            }
             totalSize += count;
             if (totalSize > maxReadSize) {
                 throw new InvalidCommandException("The command is too long");
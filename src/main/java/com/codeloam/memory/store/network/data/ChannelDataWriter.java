@@ -7,6 +7,9 @@ import java.nio.channels.WritableByteChannel;
 /**
  * Write data to WritableByteChannel.
  *
+ * <p>Each call is a write of channel, use {@link BufferedChannelDataWriter} to coalesce small writes.
+ * A non-blocking channel may only take part of data, remaining data is written again until it's done.
+ *
  * @author jinyu.li
  * @since 1.0
  */
@@ -19,11 +22,18 @@ public class ChannelDataWriter implements DataWriter {
 
     @Override
     public void write(byte[] buf) throws IOException {
-        channel.write(ByteBuffer.wrap(buf));
+        write(ByteBuffer.wrap(buf));
     }
 
     @Override
     public void write(byte[] buf, int offset, int size) throws IOException {
-        channel.write(ByteBuffer.wrap(buf, offset, size));
+        write(ByteBuffer.wrap(buf, offset, size));
+    }
+
+    @Override
+    public void write(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.codeloam.memory.store.network.data;
 
+import com.codeloam.memory.store.network.OffHeapByteWord;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Data writer.
@@ -26,4 +29,31 @@ public interface DataWriter {
      * @throws IOException if encounters any I/O exception
      */
     void write(byte[] buf, int offset, int size) throws IOException;
+
+    /**
+     * Write remaining bytes in buf, it's used for data that is not on heap.
+     * The default implementation copies data to heap in chunks.
+     *
+     * @param buf buffer
+     * @throws IOException if encounters any I/O exception
+     */
+    default void write(ByteBuffer buf) throws IOException {
+        byte[] chunk = new byte[Math.min(buf.remaining(), 8 * 1024)];
+        while (buf.hasRemaining()) {
+            int size = Math.min(buf.remaining(), chunk.length);
+            buf.get(chunk, 0, size);
+            write(chunk, 0, size);
+        }
+    }
+
+    /**
+     * Write an off-heap word. Caller may release the word after this call,
+     * a writer that keeps the data to write it later should retain the word.
+     *
+     * @param word off-heap word
+     * @throws IOException if encounters any I/O exception
+     */
+    default void write(OffHeapByteWord word) throws IOException {
+        write(word.getBuffer());
+    }
 }
@@ -0,0 +1,17 @@
+package com.codeloam.memory.store.network.data;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a reader runs out of available data before a command is complete.
+ *
+ * <p>It's not an error, caller should wait for more data and try again.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class IncompleteDataException extends IOException {
+    public IncompleteDataException() {
+        super("incomplete data");
+    }
+}
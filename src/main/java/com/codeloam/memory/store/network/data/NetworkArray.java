@@ -1,7 +1,10 @@
 package com.codeloam.memory.store.network.data;
 
+import com.codeloam.memory.store.network.ByteWord;
+
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Objects;
 
@@ -21,6 +24,17 @@ public class NetworkArray extends NetworkData {
         this.data = data;
     }
 
+    /**
+     * Create an array of bulk strings, words are wrapped when they are written,
+     * instead of building a list of bulk strings first.
+     *
+     * @param words words
+     * @return an array of bulk strings
+     */
+    public static NetworkArray ofWords(List<ByteWord> words) {
+        return new NetworkArray(new BulkStringList(words));
+    }
+
     @Override
     public NetworkDataType getNetworkDataType() {
         return NetworkDataType.Array;
@@ -66,4 +80,25 @@ public class NetworkArray extends NetworkData {
     public int hashCode() {
         return Objects.hash(data);
     }
+
+    /**
+     * Read-only view of words as bulk strings.
+     */
+    private static final class BulkStringList extends AbstractList<NetworkData> {
+        private final List<ByteWord> words;
+
+        BulkStringList(List<ByteWord> words) {
+            this.words = words;
+        }
+
+        @Override
+        public NetworkData get(int index) {
+            return new NetworkBulkString(words.get(index));
+        }
+
+        @Override
+        public int size() {
+            return words.size();
+        }
+    }
 }
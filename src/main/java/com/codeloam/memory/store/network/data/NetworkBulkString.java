@@ -1,6 +1,7 @@
 package com.codeloam.memory.store.network.data;
 
 import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.OffHeapByteWord;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -44,6 +45,10 @@ public class NetworkBulkString extends NetworkData {
         writer.write(END);
         write(writer, data);
         writer.write(END);
+        if (data instanceof OffHeapByteWord offHeapByteWord) {
+            // the response has been written, off-heap memory is not used any more
+            offHeapByteWord.release();
+        }
     }
 
     @Override
@@ -2,9 +2,11 @@ package com.codeloam.memory.store.network.data;
 
 import com.codeloam.memory.store.command.InvalidCommandException;
 import com.codeloam.memory.store.log.Logger;
+import com.codeloam.memory.store.network.BufferPool;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,10 +19,22 @@ import java.util.List;
 public class StreamDataReader implements DataReader {
     private static final Logger logger = new Logger();
     private final InputStream inputStream;
-    private final byte[] buf;
+    /**
+     * Pool to borrow buffer from, null if the reader owns its buffer.
+     */
+    private final BufferPool bufferPool;
+    /**
+     * Buffer borrowed from pool, null if not borrowed.
+     */
+    private ByteBuffer buffer;
+    private byte[] buf;
     private int offset;
     private int count;
     private int totalSize;
+    /**
+     * Bytes read from input stream since last {@link #takeReadBytes()}.
+     */
+    private long readBytes;
     private final int maxReadSize;
 
     /**
@@ -33,6 +47,21 @@ public class StreamDataReader implements DataReader {
     public StreamDataReader(InputStream inputStream, int bufSize, int maxReadSize) {
         buf = new byte[bufSize];
         this.inputStream = inputStream;
+        this.bufferPool = null;
+        this.maxReadSize = maxReadSize;
+    }
+
+    /**
+     * Constructor of a reader that borrows a heap buffer from the pool only when data arrives,
+     * and returns it by {@link #releaseBuffer()}, so an idle reader holds no buffer.
+     *
+     * @param inputStream input
+     * @param bufferPool  pool of heap buffers
+     * @param maxReadSize maximum bytes to read from input stream
+     */
+    public StreamDataReader(InputStream inputStream, BufferPool bufferPool, int maxReadSize) {
+        this.inputStream = inputStream;
+        this.bufferPool = bufferPool;
         this.maxReadSize = maxReadSize;
     }
 
@@ -61,16 +90,10 @@ public class StreamDataReader implements DataReader {
         // if offset == count, then that may be the last byte,
         // so no need to read more data.
         while (offset > count) {
-            int last = count;
-            count = inputStream.read(buf);
-            offset -= last;
+            fill();
             if (count < 0) {
                 break;
             }
-            totalSize += count;
-            if (totalSize > maxReadSize) {
-                throw new InvalidCommandException("The command is too long");
-            }
         }
     }
 
@@ -146,6 +169,37 @@ public class StreamDataReader implements DataReader {
         offset += 2;
     }
 
+    /**
+     * Reset the number of read bytes, it's called before reading a new command from the same stream.
+     */
+    public void resetReadSize() {
+        totalSize = count > offset ? count - offset : 0;
+    }
+
+    /**
+     * Return the borrowed buffer to pool if all read data is consumed.
+     * It's called before waiting for next command, the buffer is borrowed again when data arrives.
+     */
+    public void releaseBuffer() {
+        if (buffer == null || offset < count) {
+            return;
+        }
+        bufferPool.release(buffer);
+        buffer = null;
+        buf = null;
+    }
+
+    /**
+     * Get bytes read from input stream since last call, and reset the counter.
+     *
+     * @return read bytes
+     */
+    public long takeReadBytes() {
+        long bytes = readBytes;
+        readBytes = 0;
+        return bytes;
+    }
+
     /**
      * Current offset, not the offset in the whole stream.
      *
@@ -171,17 +225,57 @@ public class StreamDataReader implements DataReader {
      */
     private void readData() throws IOException {
         while (offset >= count) {
-            int last = count;
-            count = inputStream.read(buf);
-            offset -= last;
+            fill();
             if (count < 0) {
                 break;
             }
-            totalSize += count;
-            if (totalSize > maxReadSize) {
-                throw new InvalidCommandException("The command is too long");
-            }
         }
     }
 
+    /**
+     * Replace buffered data with the next bytes of input stream.
+     *
+     * @throws IOException if thrown by input stream
+     */
+    private void fill() throws IOException {
+        int last = count;
+        if (buf == null) {
+            count = borrowAndRead();
+        } else {
+            count = inputStream.read(buf);
+        }
+        offset -= last;
+        if (count < 0) {
+            return;
+        }
+        totalSize += count;
+        readBytes += count;
+        if (totalSize > maxReadSize) {
+            throw new InvalidCommandException("The command is too long");
+        }
+    }
+
+    /**
+     * Wait for the first byte without a buffer, then borrow one for it and the available bytes.
+     *
+     * @return number of read bytes, or -1 if no more data
+     * @throws IOException if thrown by input stream
+     */
+    private int borrowAndRead() throws IOException {
+        int first = inputStream.read();
+        if (first < 0) {
+            return -1;
+        }
+        buffer = bufferPool.acquire();
+        buf = buffer.array();
+        buf[0] = (byte) first;
+        int available = Math.min(inputStream.available(), buf.length - 1);
+        if (available <= 0) {
+            return 1;
+        }
+        // available bytes can be read without blocking
+        int size = inputStream.read(buf, 1, available);
+        return size < 0 ? 1 : size + 1;
+    }
+
 }
@@ -1,28 +1,103 @@
 package com.codeloam.memory.store.network.data;
 
+import com.codeloam.memory.store.network.BufferPool;
+
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Write data to OutputStream.
  *
+ * <p>If a pool is given, data is buffered in a heap buffer borrowed from the pool,
+ * and the buffer is returned by {@link #flush()}, so an idle writer holds no buffer.
+ *
  * @author jinyu.li
  * @since 1.0
  */
 public class StreamDataWriter implements DataWriter {
     private final OutputStream stream;
+    /**
+     * Pool to borrow buffer from, null if data is written to stream directly.
+     */
+    private final BufferPool bufferPool;
+    /**
+     * Buffer borrowed from pool, null if not borrowed.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Bytes written to output stream since last {@link #takeWrittenBytes()}.
+     */
+    private long writtenBytes;
 
     public StreamDataWriter(OutputStream stream) {
+        this(stream, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param stream     output
+     * @param bufferPool pool of heap buffers, or null to write to stream directly
+     */
+    public StreamDataWriter(OutputStream stream, BufferPool bufferPool) {
         this.stream = stream;
+        this.bufferPool = bufferPool;
     }
 
     @Override
     public void write(byte[] buf) throws IOException {
-        stream.write(buf);
+        write(buf, 0, buf.length);
     }
 
     @Override
     public void write(byte[] buf, int offset, int size) throws IOException {
-        stream.write(buf, offset, size);
+        writtenBytes += size;
+        if (bufferPool == null) {
+            stream.write(buf, offset, size);
+            return;
+        }
+        if (buffer == null) {
+            buffer = bufferPool.acquire();
+        }
+        if (size > buffer.remaining()) {
+            drain();
+            if (size > buffer.remaining()) {
+                // too large to buffer
+                stream.write(buf, offset, size);
+                return;
+            }
+        }
+        buffer.put(buf, offset, size);
+    }
+
+    /**
+     * Write buffered data to output stream, return the buffer to pool, and flush the stream.
+     *
+     * @throws IOException if thrown by output stream
+     */
+    public void flush() throws IOException {
+        if (buffer != null) {
+            drain();
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+        stream.flush();
+    }
+
+    /**
+     * Get bytes written to output stream since last call, and reset the counter.
+     *
+     * @return written bytes
+     */
+    public long takeWrittenBytes() {
+        long bytes = writtenBytes;
+        writtenBytes = 0;
+        return bytes;
+    }
+
+    private void drain() throws IOException {
+        stream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
     }
 }
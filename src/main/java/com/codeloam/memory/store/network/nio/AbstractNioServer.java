@@ -1,32 +1,48 @@
 package com.codeloam.memory.store.network.nio;
 
 import com.codeloam.memory.store.JimdsException;
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.command.CommandFactory;
 import com.codeloam.memory.store.database.DatabaseType;
-import com.codeloam.memory.store.measure.RequestMeasureCollector;
 import com.codeloam.memory.store.network.AbstractServer;
+import com.codeloam.memory.store.network.BufferPool;
+import com.codeloam.memory.store.network.ByteWord;
 import com.codeloam.memory.store.network.Client;
-import com.codeloam.memory.store.network.ClientCommandReader;
+import com.codeloam.memory.store.network.ClientCommandDecoder;
 import com.codeloam.memory.store.network.ClientRequestProcessor;
-import com.codeloam.memory.store.network.CommandReader;
+import com.codeloam.memory.store.network.Connection;
+import com.codeloam.memory.store.network.OutputLimit;
 import com.codeloam.memory.store.network.RequestProcessor;
-import com.codeloam.memory.store.network.data.ChannelDataWriter;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract NIO server.
  *
+ * <p>Connections are persistent, each connection is attached to its SelectionKey,
+ * and pipelined commands are decoded incrementally from the connection's buffer and answered in order.
+ *
+ * <p>Besides TCP, the server can also listen on a unix domain socket, see {@link #setUnixSocketPath(Path)}.
+ * Connections from both listeners are handled in the same way.
+ *
  * @author jinyu.li
  * @since 1.0
  */
@@ -36,15 +52,29 @@ public abstract class AbstractNioServer extends AbstractServer {
 
     private ServerSocketChannel server;
 
+    /**
+     * Path of unix domain socket, null if server only listens on TCP.
+     */
+    private Path unixSocketPath;
+    private ServerSocketChannel unixServer;
+
     protected Selector selector;
 
     private final long selectTimeout;
 
-    protected final CommandReader commandReader;
-
     private final AtomicBoolean stop;
 
-    protected final RequestMeasureCollector requestMeasureCollector;
+    /**
+     * Pool of connection buffers, it's used by connections registered to {@link #selector}.
+     */
+    protected final BufferPool bufferPool;
+
+    protected final OutputLimit outputLimit;
+
+    /**
+     * Last time output limits of waiting connections were checked.
+     */
+    private long lastOutputLimitCheck;
 
     /**
      * Init server with given host and port.
@@ -81,9 +111,9 @@ public abstract class AbstractNioServer extends AbstractServer {
         this.host = host;
         this.port = port;
         this.stop = new AtomicBoolean(false);
-        this.commandReader = new ClientCommandReader();
-        this.requestMeasureCollector = new RequestMeasureCollector("NIO");
         this.selectTimeout = selectTimeout;
+        this.bufferPool = new BufferPool(CONNECTION_BUF_SIZE);
+        this.outputLimit = OutputLimit.fromSystemProperties();
     }
 
     @Override
@@ -91,11 +121,21 @@ public abstract class AbstractNioServer extends AbstractServer {
         try {
             startServer();
 
+            long loopStart = System.nanoTime();
             while (!stop.get()) {
                 preSleep();
-                if (selector.select(selectTimeout) > 0) {
+                int ready = selector.select(selectTimeout);
+                long selected = System.nanoTime();
+                if (ready > 0) {
                     process(selector.selectedKeys().iterator());
                 }
+                if (System.currentTimeMillis() - lastOutputLimitCheck >= 1000) {
+                    checkOutputLimits(selector);
+                    lastOutputLimitCheck = System.currentTimeMillis();
+                }
+                long loopEnd = System.nanoTime();
+                serverStats.addLoopTime(selected - loopStart, loopEnd - selected);
+                loopStart = loopEnd;
             }
             preShutDown();
         } catch (IOException e) {
@@ -104,11 +144,11 @@ public abstract class AbstractNioServer extends AbstractServer {
     }
 
     /**
-     * Process a request.
+     * Process a readable connection.
      *
-     * @param socketChannel socket
+     * @param selectionKey key of the connection, the attachment is a {@link Connection}
      */
-    protected abstract void process(SocketChannel socketChannel);
+    protected abstract void process(SelectionKey selectionKey);
 
     /**
      * Callback before server waits for connection.
@@ -124,6 +164,21 @@ public abstract class AbstractNioServer extends AbstractServer {
         stop.set(true);
         closeQuietly(selector);
         closeQuietly(server);
+        if (unixServer != null) {
+            closeQuietly(unixServer);
+            Files.deleteIfExists(unixSocketPath);
+        }
+        database.close();
+    }
+
+    /**
+     * Listen on a unix domain socket besides TCP, it must be called before the server is started.
+     * Local clients connecting to it skip the TCP stack.
+     *
+     * @param unixSocketPath path of the socket file, an existing file is replaced
+     */
+    public void setUnixSocketPath(Path unixSocketPath) {
+        this.unixSocketPath = unixSocketPath;
     }
 
     /**
@@ -132,36 +187,78 @@ public abstract class AbstractNioServer extends AbstractServer {
      * @throws IOException if throw by socket
      */
     private void startServer() throws IOException {
-        server = ServerSocketChannel.open();
-        server.configureBlocking(false);
-
-        SocketAddress address = new InetSocketAddress(host, port);
-        server.socket().bind(address);
-
         selector = SelectorProvider.provider().openSelector();
-        server.register(selector, SelectionKey.OP_ACCEPT);
+        server = openServerChannel(selector);
+        if (unixSocketPath != null) {
+            unixServer = openUnixServerChannel(selector);
+        }
 
-        System.out.println("Jimds is ready to accept requests on port " + port);
+        System.out.println("Jimds is ready to accept requests on port " + port
+                + (unixSocketPath == null ? "" : " and unix socket " + unixSocketPath));
     }
 
     /**
-     * Write response data to socket.
+     * Open a non-blocking unix domain server socket, and register it to given selector for accept.
+     * A socket file left by last run is removed, otherwise bind fails.
      *
-     * @param data          response
-     * @param socketChannel socket to write to
-     * @param close         whether close socket after write
+     * @param selector selector
+     * @return the server socket
+     * @throws IOException if thrown by socket
      */
-    protected void writeData(NetworkData data, SocketChannel socketChannel, boolean close) {
+    private ServerSocketChannel openUnixServerChannel(Selector selector) throws IOException {
+        Files.deleteIfExists(unixSocketPath);
+        ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
         try {
-            data.write(new ChannelDataWriter(socketChannel));
-        } catch (Throwable e) {
-            // ignore the error
-            e.printStackTrace();
-        } finally {
-            if (close) {
-                closeQuietly(socketChannel);
+            channel.configureBlocking(false);
+            channel.bind(UnixDomainSocketAddress.of(unixSocketPath));
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Open a non-blocking server socket bound to the server address, and register it to given selector for accept.
+     * If {@link #isReusePort()} is true, SO_REUSEPORT is set, so more server sockets can be bound to the same port.
+     *
+     * @param selector selector
+     * @return the server socket
+     * @throws IOException if thrown by socket, or SO_REUSEPORT is required but not supported by the platform
+     */
+    protected ServerSocketChannel openServerChannel(Selector selector) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            if (isReusePort()) {
+                if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                    throw new IOException("SO_REUSEPORT is not supported on this platform");
+                }
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
             }
+            SocketAddress address = new InetSocketAddress(host, port);
+            channel.socket().bind(address);
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw e;
         }
+        return channel;
+    }
+
+    /**
+     * Whether server sockets are opened with SO_REUSEPORT.
+     *
+     * @return false by default
+     */
+    protected boolean isReusePort() {
+        return false;
+    }
+
+    @Override
+    protected List<BufferPool> getBufferPools() {
+        return List.of(bufferPool);
     }
 
     /**
@@ -171,10 +268,242 @@ public abstract class AbstractNioServer extends AbstractServer {
      * @throws IOException if thrown by socket
      */
     protected void registerReadOperation(SelectionKey selectionKey) throws IOException {
+        SocketChannel channel = accept(selectionKey);
+        if (channel != null) {
+            registerConnection(selector, channel, bufferPool);
+        }
+    }
+
+    /**
+     * Accept a socket, the socket is configured as non-blocking.
+     *
+     * @param selectionKey key of server socket
+     * @return the socket, or null if there is no pending connection
+     * @throws IOException if thrown by socket
+     */
+    protected SocketChannel accept(SelectionKey selectionKey) throws IOException {
         ServerSocketChannel nextReady = (ServerSocketChannel) selectionKey.channel();
         SocketChannel channel = nextReady.accept();
-        channel.configureBlocking(false);
-        channel.register(selector, SelectionKey.OP_READ);
+        if (channel != null) {
+            channel.configureBlocking(false);
+        }
+        return channel;
+    }
+
+    /**
+     * Register a socket to given selector for read operation, a {@link Connection} is attached to its key.
+     *
+     * @param selector   selector
+     * @param channel    socket
+     * @param bufferPool pool of connection buffers
+     * @throws IOException if thrown by socket
+     */
+    protected void registerConnection(Selector selector, SocketChannel channel, BufferPool bufferPool)
+            throws IOException {
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key, bufferPool, MAX_COMMAND_LENGTH));
+        serverStats.connectionOpened();
+    }
+
+    /**
+     * Read available data from the connection, and decode all complete commands.
+     * Decoded requests are added to the connection in order, the decoder keeps state of an incomplete command,
+     * so it's continued when more data arrives.
+     *
+     * @param connection connection
+     */
+    protected void readCommands(Connection connection) {
+        long startTime = System.nanoTime();
+        try {
+            int size = connection.read();
+            if (size < 0) {
+                connection.setClosing(true);
+            } else {
+                serverStats.addBytesIn(size);
+            }
+        } catch (IOException e) {
+            // connection reset by client
+            connection.setClosing(true);
+            return;
+        }
+
+        ByteBuffer buffer = connection.getReadBuffer();
+        ClientCommandDecoder decoder = connection.getDecoder();
+        while (true) {
+            List<ByteWord> words;
+            try {
+                words = decoder.decode(buffer);
+                if (words == null && connection.isClosing()) {
+                    // client has closed its output, the last inline command may have no line end
+                    words = decoder.finish();
+                }
+            } catch (Throwable e) {
+                // can not find the start of next command, so close the connection
+                addErrorRequest(connection, e instanceof JimdsException ? e.getMessage() : "Invalid command");
+                connection.setClosing(true);
+                break;
+            }
+            if (words == null) {
+                // wait for more data
+                break;
+            }
+            Client client = new Client(connection);
+            client.setWords(words);
+            client.setStartTime(startTime);
+            client.setReadTime(System.nanoTime());
+            try {
+                Command command = CommandFactory.parseCommand(words);
+                client.setParseTime(System.nanoTime());
+                client.setCommand(command);
+            } catch (JimdsException e) {
+                client.setClientError(true);
+                // internal exception, write to output
+                client.setResult(new NetworkError(e.getMessage()));
+            } catch (Throwable e) {
+                client.setClientError(true);
+                client.setResult(new NetworkError("Invalid command"));
+            }
+            connection.addRequest(client);
+        }
+    }
+
+    /**
+     * Execute all pending requests of the connection, and write responses in order.
+     * Responses are buffered, and flushed together.
+     *
+     * @param connection connection
+     * @param flush      whether to flush responses, if false, caller should call flushResponses()
+     * @return handled requests, requests after output exceeds limits are dropped and not included
+     */
+    protected List<Client> executeRequests(Connection connection, boolean flush) {
+        List<Client> clients = connection.takeRequests();
+        int handled = 0;
+        for (Client client : clients) {
+            handled++;
+            if (!client.isClientError()) {
+                executeCommand(client);
+            }
+            NetworkData data = client.getResult();
+            if (data == null) {
+                data = new NetworkError("Error");
+            }
+            try {
+                data.write(connection.getWriter());
+            } catch (Throwable e) {
+                // ignore the error
+                e.printStackTrace();
+                connection.setClosing(true);
+            }
+            // the response has been written, off-heap arguments that database does not keep are freed
+            client.releaseWords();
+            if (isOutputOverLimit(connection)) {
+                // client does not read responses, do not execute more commands for it
+                connection.setClosing(true);
+                break;
+            }
+        }
+        if (handled < clients.size()) {
+            // dropped requests have not been executed, they should not be measured
+            for (Client client : clients.subList(handled, clients.size())) {
+                client.releaseWords();
+            }
+            clients = clients.subList(0, handled);
+        }
+        if (flush) {
+            flushResponses(connection, clients);
+        }
+        return clients;
+    }
+
+    /**
+     * Flush buffered responses of the connection, then wait for next commands, or close the connection.
+     * If the socket does not take all responses, wait until it's writable, see {@link #writeResponses}.
+     *
+     * @param connection connection
+     * @param clients    handled requests
+     */
+    protected void flushResponses(Connection connection, List<Client> clients) {
+        boolean flushed = false;
+        try {
+            flushed = connection.getWriter().flush();
+            long sendTime = System.nanoTime();
+            for (Client client : clients) {
+                if (client.isClientError()) {
+                    requestMeasureCollector.recordError();
+                } else {
+                    requestMeasureCollector.record(client.getStartTime(), client.getReadTime(), client.getParseTime(),
+                            client.getProcessTime(), sendTime);
+                }
+            }
+        } catch (Throwable e) {
+            // client may have closed the connection
+            connection.setClosing(true);
+        }
+        serverStats.addBytesOut(connection.getWriter().takeWrittenBytes());
+        if (!flushed && isOutputOverLimit(connection)) {
+            connection.setClosing(true);
+        }
+        SelectionKey selectionKey = connection.getSelectionKey();
+        if (connection.isClosing()) {
+            closeConnection(connection);
+            return;
+        }
+        connection.releaseBuffers();
+        if (selectionKey.isValid()) {
+            selectionKey.interestOps(flushed ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Write queued responses of a writable connection, it's called in selector thread.
+     *
+     * @param selectionKey key of the connection, the attachment is a {@link Connection}
+     */
+    protected void writeResponses(SelectionKey selectionKey) {
+        flushResponses((Connection) selectionKey.attachment(), List.of());
+    }
+
+    /**
+     * Close connections waiting to write responses if their output exceeds limits,
+     * it's called periodically, since a client that does not read never makes its connection writable.
+     *
+     * @param selector selector of connections
+     */
+    protected void checkOutputLimits(Selector selector) {
+        for (SelectionKey selectionKey : selector.keys()) {
+            if (selectionKey.isValid() && (selectionKey.interestOps() & SelectionKey.OP_WRITE) != 0
+                    && selectionKey.attachment() instanceof Connection connection
+                    && isOutputOverLimit(connection)) {
+                closeConnection(connection);
+            }
+        }
+    }
+
+    private boolean isOutputOverLimit(Connection connection) {
+        return connection.isOutputOverLimit(outputLimit, System.currentTimeMillis());
+    }
+
+    private void closeConnection(Connection connection) {
+        connection.setClosing(true);
+        connection.releaseBuffers();
+        connection.getSelectionKey().cancel();
+        closeQuietly(connection.getSocketChannel());
+        if (connection.markClosed()) {
+            serverStats.connectionClosed();
+        }
+    }
+
+    /**
+     * Add an error response to connection.
+     *
+     * @param connection connection
+     * @param message    error message
+     */
+    private void addErrorRequest(Connection connection, String message) {
+        Client client = new Client(connection);
+        client.setClientError(true);
+        client.setResult(new NetworkError(message));
+        connection.addRequest(client);
     }
 
     /**
@@ -184,18 +513,19 @@ public abstract class AbstractNioServer extends AbstractServer {
      */
     protected void executeCommand(Client client) {
         try {
-            NetworkData data = requestProcessor.process(database, client.getCommand());
-            client.getMeasureData().add(RequestMeasureCollector.FIELD_NAME_PROCESS);
+            long executeTime = System.nanoTime();
+            NetworkData data = processCommand(client.getCommand());
+            client.setProcessTime(System.nanoTime());
+            requestMeasureCollector.recordCommand(client.getCommand().getName(),
+                    client.getProcessTime() - executeTime);
             client.setResult(data);
         } catch (JimdsException e) {
             client.setClientError(true);
-            client.getMeasureData().add(RequestMeasureCollector.FIELD_NAME_ERROR);
             // internal exception, write to output
             NetworkData data = new NetworkError(e.getMessage());
             client.setResult(data);
         } catch (Throwable e) {
             client.setClientError(true);
-            client.getMeasureData().add(RequestMeasureCollector.FIELD_NAME_ERROR);
             // should only be thrown when writing data to output
             // if input throws IOException, an error message will be written to output.
             // throw new RuntimeException(e);
@@ -216,8 +546,9 @@ public abstract class AbstractNioServer extends AbstractServer {
             if (selectionKey.isAcceptable()) {
                 registerReadOperation(selectionKey);
             } else if (selectionKey.isReadable()) {
-                SocketChannel socketChannel = (SocketChannel) selectionKey.channel();
-                process(socketChannel);
+                process(selectionKey);
+            } else if (selectionKey.isWritable()) {
+                writeResponses(selectionKey);
             }
             iterator.remove();
         }
@@ -0,0 +1,304 @@
+package com.codeloam.memory.store.network.nio;
+
+import com.codeloam.memory.store.database.DatabaseType;
+import com.codeloam.memory.store.network.BufferPool;
+import com.codeloam.memory.store.network.Client;
+import com.codeloam.memory.store.network.ClientRequestProcessor;
+import com.codeloam.memory.store.network.Connection;
+import com.codeloam.memory.store.network.RequestProcessor;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Nio server with one acceptor and multiple reactors.
+ *
+ * <p>The acceptor thread only accepts connections, and hands them to reactors in round-robin order.
+ * Each reactor has its own Selector and thread, it reads, parses, executes and writes
+ * for its connections, so a connection is always handled by the same thread.
+ *
+ * <p>If the database is not thread safe, commands are executed under a lock,
+ * the other work of a request is done in parallel.
+ *
+ * <p>With reuse port, there is no acceptor. Each reactor, and the server thread as one of them, binds its own
+ * server socket to the same port with SO_REUSEPORT, and accepts connections for itself. The kernel spreads
+ * incoming connections across the server sockets, so accepting is not limited by a single thread
+ * when many clients connect at once. If SO_REUSEPORT is not supported, one acceptor is used.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class MultiReactorNioServer extends AbstractNioServer {
+    private final Reactor[] reactors;
+    private final Lock databaseLock;
+    private final boolean reusePort;
+
+    /**
+     * Index of reactor for next connection, only accessed by acceptor thread.
+     */
+    private int nextReactor;
+
+    public MultiReactorNioServer(String host, int port) {
+        this(host, port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MultiReactorNioServer(String host, int port, int reactorCount) {
+        this(host, port, new ClientRequestProcessor(), DatabaseType.Simple, reactorCount);
+    }
+
+    public MultiReactorNioServer(String host, int port, DatabaseType type) {
+        this(host, port, new ClientRequestProcessor(), type, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host             host
+     * @param port             port
+     * @param requestProcessor request processor
+     * @param type             database type
+     * @param reactorCount     number of reactors
+     */
+    public MultiReactorNioServer(String host, int port, RequestProcessor requestProcessor,
+                                 DatabaseType type, int reactorCount) {
+        this(host, port, requestProcessor, type, reactorCount, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host             host
+     * @param port             port
+     * @param requestProcessor request processor
+     * @param type             database type
+     * @param reactorCount     number of reactors, including server thread if reusePort is true
+     * @param reusePort        whether each reactor accepts connections from its own server socket
+     */
+    public MultiReactorNioServer(String host, int port, RequestProcessor requestProcessor,
+                                 DatabaseType type, int reactorCount, boolean reusePort) {
+        super(host, port, requestProcessor, type, 1000);
+        if (reactorCount <= 0) {
+            throw new IllegalArgumentException("Invalid reactor count " + reactorCount);
+        }
+        this.reusePort = reusePort && isReusePortSupported();
+        if (reusePort && !this.reusePort) {
+            System.out.println("SO_REUSEPORT is not supported, use one acceptor");
+        }
+        // with reuse port, server thread is also a reactor
+        int count = this.reusePort ? reactorCount - 1 : reactorCount;
+        reactors = new Reactor[count];
+        for (int i = 0; i < count; ++i) {
+            reactors[i] = new Reactor();
+        }
+        databaseLock = database.isThreadSafe() ? null : new ReentrantLock();
+    }
+
+    @Override
+    public void start() {
+        ThreadFactory threadFactory = new NamedThreadFactory("reactor");
+        try {
+            for (Reactor reactor : reactors) {
+                reactor.open();
+                threadFactory.newThread(reactor).start();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        System.out.println("Jimds starts " + reactors.length + " reactors"
+                + (reusePort ? " with SO_REUSEPORT" : ""));
+        super.start();
+    }
+
+    @Override
+    protected boolean isReusePort() {
+        return reusePort;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Reactor reactor : reactors) {
+            reactor.close();
+        }
+        super.close();
+    }
+
+    @Override
+    protected List<BufferPool> getBufferPools() {
+        List<BufferPool> bufferPools = new ArrayList<>(super.getBufferPools());
+        for (Reactor reactor : reactors) {
+            bufferPools.add(reactor.bufferPool);
+        }
+        return bufferPools;
+    }
+
+    @Override
+    protected void registerReadOperation(SelectionKey selectionKey) throws IOException {
+        if (reusePort) {
+            // server thread handles connections accepted from its own server socket
+            super.registerReadOperation(selectionKey);
+            return;
+        }
+        SocketChannel channel = accept(selectionKey);
+        if (channel == null) {
+            return;
+        }
+        reactors[nextReactor].register(channel);
+        nextReactor = (nextReactor + 1) % reactors.length;
+    }
+
+    /**
+     * Process a readable connection, it's called in reactor thread.
+     *
+     * @param selectionKey key of the connection, the attachment is a {@link Connection}
+     */
+    @Override
+    protected void process(SelectionKey selectionKey) {
+        Connection connection = (Connection) selectionKey.attachment();
+        readCommands(connection);
+        executeRequests(connection, true);
+    }
+
+    @Override
+    protected void executeCommand(Client client) {
+        if (databaseLock == null) {
+            super.executeCommand(client);
+            return;
+        }
+        databaseLock.lock();
+        try {
+            super.executeCommand(client);
+        } finally {
+            databaseLock.unlock();
+        }
+    }
+
+    /**
+     * Check whether server sockets support SO_REUSEPORT on this platform.
+     *
+     * @return true if supported
+     */
+    private static boolean isReusePortSupported() {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A reactor, handles I/O of its connections in its own thread.
+     */
+    private class Reactor implements Runnable {
+        /**
+         * Accepted connections waiting to be registered, they must be registered in reactor thread,
+         * otherwise register() blocks while the selector is selecting.
+         */
+        private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+        /**
+         * Buffers of connections of this reactor, they are only used in reactor thread.
+         */
+        private final BufferPool bufferPool = new BufferPool(CONNECTION_BUF_SIZE);
+        private Selector ioSelector;
+        private volatile boolean running = true;
+        private long lastOutputLimitCheck;
+
+        void open() throws IOException {
+            ioSelector = Selector.open();
+            if (reusePort) {
+                openServerChannel(ioSelector);
+            }
+        }
+
+        void register(SocketChannel channel) {
+            pendingChannels.offer(channel);
+            ioSelector.wakeup();
+        }
+
+        void close() {
+            running = false;
+            if (ioSelector != null) {
+                ioSelector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                long loopStart = System.nanoTime();
+                while (running) {
+                    registerPendingChannels();
+                    int ready = ioSelector.select(1000);
+                    long selected = System.nanoTime();
+                    if (ready > 0) {
+                        Iterator<SelectionKey> iterator = ioSelector.selectedKeys().iterator();
+                        while (iterator.hasNext()) {
+                            SelectionKey selectionKey = iterator.next();
+                            iterator.remove();
+                            if (selectionKey.isValid() && selectionKey.isAcceptable()) {
+                                acceptConnection(selectionKey);
+                            } else if (selectionKey.isValid() && selectionKey.isReadable()) {
+                                process(selectionKey);
+                            } else if (selectionKey.isValid() && selectionKey.isWritable()) {
+                                writeResponses(selectionKey);
+                            }
+                        }
+                    }
+                    if (System.currentTimeMillis() - lastOutputLimitCheck >= 1000) {
+                        checkOutputLimits(ioSelector);
+                        lastOutputLimitCheck = System.currentTimeMillis();
+                    }
+                    long loopEnd = System.nanoTime();
+                    serverStats.addLoopTime(selected - loopStart, loopEnd - selected);
+                    loopStart = loopEnd;
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            } finally {
+                for (SelectionKey selectionKey : ioSelector.keys()) {
+                    closeQuietly(selectionKey.channel());
+                }
+                closeQuietly(ioSelector);
+            }
+        }
+
+        private void acceptConnection(SelectionKey selectionKey) throws IOException {
+            SocketChannel channel = accept(selectionKey);
+            if (channel == null) {
+                return;
+            }
+            try {
+                registerConnection(ioSelector, channel, bufferPool);
+            } catch (IOException e) {
+                // client may have closed the connection
+                closeQuietly(channel);
+            }
+        }
+
+        private void registerPendingChannels() {
+            SocketChannel channel;
+            while ((channel = pendingChannels.poll()) != null) {
+                try {
+                    registerConnection(ioSelector, channel, bufferPool);
+                } catch (IOException e) {
+                    // client may have closed the connection
+                    closeQuietly(channel);
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,13 @@
 package com.codeloam.memory.store.network.nio;
 
-import com.codeloam.memory.store.JimdsException;
-import com.codeloam.memory.store.command.Command;
-import com.codeloam.memory.store.command.CommandFactory;
 import com.codeloam.memory.store.database.DatabaseType;
-import com.codeloam.memory.store.measure.MeasureData;
-import com.codeloam.memory.store.measure.RequestMeasureCollector;
-import com.codeloam.memory.store.network.ByteWord;
 import com.codeloam.memory.store.network.Client;
 import com.codeloam.memory.store.network.ClientRequestProcessor;
+import com.codeloam.memory.store.network.Connection;
 import com.codeloam.memory.store.network.RequestProcessor;
-import com.codeloam.memory.store.network.data.ChannelDataReader;
-import com.codeloam.memory.store.network.data.DataReader;
-import com.codeloam.memory.store.network.data.NetworkData;
-import com.codeloam.memory.store.network.data.NetworkError;
 
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -27,11 +17,14 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 /**
  * Nio server, requests are processed in Virtual Thread.
  *
+ * <p>Commands are executed in selector thread, unless the database is thread safe,
+ * in which case they are executed in the virtual thread that reads them.
+ *
  * @author jinyu.li
  * @since 1.0
  */
 public class VirtualThreadNioServer extends AbstractNioServer {
-    private final Queue<Client> queue;
+    private final Queue<Connection> queue;
     private final boolean writeAsync;
 
     public VirtualThreadNioServer(String host, int port) {
@@ -64,83 +57,47 @@ public class VirtualThreadNioServer extends AbstractNioServer {
 
     @Override
     protected void process(Iterator<SelectionKey> iterator) throws IOException {
-        while (iterator.hasNext()) {
-            SelectionKey selectionKey = iterator.next();
-            if (selectionKey.isAcceptable()) {
-                registerReadOperation(selectionKey);
-            } else if (selectionKey.isReadable()) {
-                SocketChannel socketChannel = (SocketChannel) selectionKey.channel();
-                selectionKey.cancel();
-                process(socketChannel);
-            }
-            iterator.remove();
-        }
+        super.process(iterator);
         handleClients(false);
     }
 
     @Override
-    protected void process(SocketChannel socketChannel) {
+    protected void process(SelectionKey selectionKey) {
+        Connection connection = (Connection) selectionKey.attachment();
+        // stop reading until current commands are handled
+        selectionKey.interestOps(0);
         Thread.ofVirtual().start(() -> {
-            Client client = new Client(socketChannel);
-            MeasureData measureData = new MeasureData();
-            client.setMeasureData(measureData);
-            try {
-                measureData.add(RequestMeasureCollector.FIELD_NAME_CONNECTED);
-                DataReader dataReader = new ChannelDataReader(socketChannel, bufSize, MAX_COMMAND_LENGTH);
-                List<ByteWord> words = commandReader.read(dataReader);
-                measureData.add(RequestMeasureCollector.FIELD_NAME_READ);
-                Command command = CommandFactory.parseCommand(words);
-                measureData.add(RequestMeasureCollector.FIELD_NAME_PARSE);
-                client.setCommand(command);
-            } catch (JimdsException e) {
-                client.setClientError(true);
-                measureData.add(RequestMeasureCollector.FIELD_NAME_ERROR);
-                // internal exception, write to output
-                NetworkData data = new NetworkError(e.getMessage());
-                client.setResult(data);
-            } catch (Throwable e) {
-                client.setClientError(true);
-                measureData.add(RequestMeasureCollector.FIELD_NAME_ERROR);
-                // should only be thrown when writing data to output
-                // if input throws IOException, an error message will be written to output.
-                // throw new RuntimeException(e);
-                // ignore the message, and close socket
-                e.printStackTrace();
+            readCommands(connection);
+            if (database.isThreadSafe()) {
+                // no need to serialize execution in selector thread
+                executeRequests(connection, true);
+            } else {
+                queue.offer(connection);
             }
-            queue.offer(client);
+            selector.wakeup();
         });
     }
 
     /**
-     * Handle all clients in queue.
+     * Handle all connections in queue.
      *
      * @param forceSync whether to handle clients synchronized
      */
     private void handleClients(boolean forceSync) {
-        List<Client> clients = new ArrayList<>();
-        // only process clients in queue currently.
+        List<Connection> connections = new ArrayList<>();
+        // only process connections in queue currently.
         while (!queue.isEmpty()) {
-            clients.add(queue.poll());
+            connections.add(queue.poll());
         }
-        for (Client client : clients) {
-            if (client.isClientError()) {
-                SocketChannel socketChannel = client.getSocketChannel();
-                if (socketChannel.isOpen()) {
-                    NetworkData data = client.getResult();
-                    if (data == null) {
-                        data = new NetworkError("Error");
-                    }
-                    writeData(data, socketChannel, true);
-                }
+        for (Connection connection : connections) {
+            if (!forceSync && writeAsync) {
+                List<Client> clients = executeRequests(connection, false);
+                Thread.ofVirtual().start(() -> {
+                    flushResponses(connection, clients);
+                    selector.wakeup();
+                });
             } else {
-                executeCommand(client);
-                if (!forceSync && writeAsync) {
-                    Thread.ofVirtual().start(() -> {
-                        writeData(client.getResult(), client.getSocketChannel(), true);
-                    });
-                } else {
-                    writeData(client.getResult(), client.getSocketChannel(), true);
-                }
+                executeRequests(connection, true);
             }
         }
     }
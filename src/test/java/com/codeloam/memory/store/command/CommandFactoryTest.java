@@ -7,6 +7,8 @@ import com.codeloam.memory.store.util.Pair;
 import com.codeloam.memory.store.util.Triple;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -14,7 +16,11 @@ import java.util.stream.Collectors;
 
 import static com.codeloam.memory.store.util.ByteWordFactory.getByteWord;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test CommandFactory.
@@ -88,6 +94,74 @@ public class CommandFactoryTest {
         }
     }
 
+    @Test
+    public void testGenerateIgnoresCase() {
+        for (String name : List.of("GET", "get", "GeT")) {
+            Command command = CommandFactory.parseCommand(simpleParse(name + " test"));
+            assertEquals(CommandFactory.STRING_COMMAND_GET, command.getName(), name);
+            assertEquals(getByteWord("test"), command.getKey(), name);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap("lpushkey".getBytes(StandardCharsets.UTF_8));
+        Command command = CommandFactory.parseCommand(List.of(ByteWord.slice(buffer, 0, 5),
+                ByteWord.slice(buffer, 5, 3), getByteWord("value")));
+        assertEquals(CommandFactory.LIST_COMMAND_LPUSH, command.getName());
+        assertEquals(DataType.List, command.getDataType());
+
+        assertThrows(InvalidCommandException.class, () -> CommandFactory.parseCommand(simpleParse("GETX test")));
+        assertThrows(InvalidCommandException.class, () -> CommandFactory.parseCommand(simpleParse("GE test")));
+    }
+
+    @Test
+    public void testParseMultiKeyCommand() {
+        Command sinter = CommandFactory.parseCommand(simpleParse("SINTER a"));
+        assertTrue(sinter.isMultiKey());
+        assertEquals(getByteWord("a"), sinter.getKey());
+        assertEquals(0, sinter.getValueCount());
+        sinter = CommandFactory.parseCommand(simpleParse("sinter a b c"));
+        assertEquals(List.of(getByteWord("b"), getByteWord("c")), sinter.getValues());
+        assertFalse(CommandFactory.parseCommand(simpleParse("SADD a b")).isMultiKey());
+    }
+
+    @Test
+    public void testParsePopCount() {
+        for (String name : List.of(CommandFactory.LIST_COMMAND_LPOP, CommandFactory.LIST_COMMAND_RPOP)) {
+            Command pop = CommandFactory.parseCommand(simpleParse(name + " list"));
+            assertEquals(0, pop.getValueCount(), name);
+            pop = CommandFactory.parseCommand(simpleParse(name + " list 3"));
+            assertEquals(getByteWord("list"), pop.getKey(), name);
+            assertEquals(1, pop.getValueCount(), name);
+            assertEquals(getByteWord("3"), pop.getValue(0), name);
+        }
+    }
+
+    @Test
+    public void testParseReferencesWords() {
+        CommandConfig config = new CommandConfig("ZADD", true, true, true,
+                List.of(new CommandOptionConfig("NX", false, false, false, null),
+                        new CommandOptionConfig("LIMIT", false, true, true,
+                                List.of(new CommandOptionConfig("COUNT", true, true, true, null)))),
+                DataType.SortedSet);
+        List<ByteWord> words = simpleParse("ZADD key nx limit 1 count 2 a b");
+        Command command = CommandFactory.getInstance().parse(config, words);
+        assertSame(words.get(1), command.getKey());
+        assertEquals(2, command.getValueCount());
+        assertSame(words.get(7), command.getValue(0));
+        assertSame(words.get(8), command.getValue(1));
+        assertEquals(List.of(getByteWord("a"), getByteWord("b")), command.getValues());
+        assertThrows(IndexOutOfBoundsException.class, () -> command.getValue(2));
+        assertTrue(command.hasOption("NX"));
+        assertEquals(getByteWord("1"), command.getOption("LIMIT"));
+        assertEquals(getByteWord("2"), command.getOption("COUNT"));
+        assertEquals(Map.of("NX", ByteWord.NULL, "LIMIT", getByteWord("1"), "COUNT", getByteWord("2")),
+                command.getOptions());
+
+        Command get = CommandFactory.parseCommand(simpleParse("GET key"));
+        assertEquals(0, get.getValueCount());
+        assertNull(get.getValues());
+        assertNull(get.getOptions());
+        assertFalse(get.hasOption("NX"));
+    }
+
     private List<ByteWord> simpleParse(String sentence) {
         return Arrays.stream(sentence.split(" ")).map(ByteWordFactory::getByteWord).collect(Collectors.toList());
     }
@@ -1,5 +1,7 @@
 package com.codeloam.memory.store.database;
 
+import com.codeloam.memory.store.database.concurrent.ConcurrentDatabase;
+import com.codeloam.memory.store.database.sharded.ShardedDatabase;
 import com.codeloam.memory.store.database.simple.SimpleDatabase;
 import org.junit.jupiter.api.Test;
 
@@ -18,5 +20,11 @@ public class DatabaseFactoryTest {
         Database database = DatabaseFactory.create(DatabaseType.Simple);
         assertNotNull(database);
         assertInstanceOf(SimpleDatabase.class, database);
+
+        database = DatabaseFactory.create(DatabaseType.Sharded);
+        assertInstanceOf(ShardedDatabase.class, database);
+
+        database = DatabaseFactory.create(DatabaseType.Concurrent);
+        assertInstanceOf(ConcurrentDatabase.class, database);
     }
 }
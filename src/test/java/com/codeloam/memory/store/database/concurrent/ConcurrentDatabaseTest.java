@@ -0,0 +1,126 @@
+package com.codeloam.memory.store.database.concurrent;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.command.CommandFactory;
+import com.codeloam.memory.store.command.SimpleCommand;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
+import com.codeloam.memory.store.network.data.NetworkBulkString;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkInteger;
+import com.codeloam.memory.store.network.data.NetworkSimpleString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test ConcurrentDatabase.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ConcurrentDatabaseTest {
+    @Test
+    public void testExecuteWithStringCommand() {
+        ConcurrentDatabase database = new ConcurrentDatabase();
+        Command set = new SimpleCommand("SET", DataType.String, ByteWord.create("key"),
+                List.of(ByteWord.create("value")), null);
+        assertEquals(NetworkSimpleString.OK, database.execute(set));
+
+        Command get = new SimpleCommand("GET", DataType.String, ByteWord.create("key"), null, null);
+        assertEquals(new NetworkBulkString(ByteWord.create("value")), database.execute(get));
+    }
+
+    @Test
+    public void testLockIsStriped() {
+        ConcurrentDatabase database = new ConcurrentDatabase(3);
+        assertSame(database.getLock(ByteWord.create("key")), database.getLock(ByteWord.create("key")));
+    }
+
+    @Test
+    public void testExecuteConcurrently() {
+        ConcurrentDatabase database = new ConcurrentDatabase(4);
+        int threadCount = 8;
+        int keyCount = 16;
+        int times = 1024;
+        ByteWord listKey = ByteWord.create("list");
+        runConcurrently(threadCount, () -> {
+            for (int i = 0; i < times; ++i) {
+                Command incr = new SimpleCommand(CommandFactory.NUMBER_COMMAND_INCR, DataType.Number,
+                        ByteWord.create("key" + (i % keyCount)), null, null);
+                database.execute(incr);
+                Command push = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List,
+                        listKey, List.of(ByteWord.create(i)), null);
+                database.execute(push);
+            }
+        });
+        for (int i = 0; i < keyCount; ++i) {
+            Command get = new SimpleCommand(CommandFactory.NUMBER_COMMAND_NGET, DataType.Number,
+                    ByteWord.create("key" + i), null, null);
+            NetworkData result = database.execute(get);
+            assertEquals(new NetworkInteger((long) threadCount * times / keyCount), result);
+        }
+        Command len = new SimpleCommand(CommandFactory.LIST_COMMAND_LLEN, DataType.List, listKey, null, null);
+        assertEquals(new NetworkInteger((long) threadCount * times), database.execute(len));
+    }
+
+    @Test
+    public void testMultiKeyCommandTakesAllLocks() throws InterruptedException {
+        ConcurrentDatabase database = new ConcurrentDatabase(16);
+        ByteWord key = ByteWord.create("set0");
+        ByteWord key2 = null;
+        for (int i = 1; key2 == null; ++i) {
+            ByteWord k = ByteWord.create("set" + i);
+            if (database.getLock(k) != database.getLock(key)) {
+                key2 = k;
+            }
+        }
+        for (ByteWord k : List.of(key, key2)) {
+            database.execute(new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, k,
+                    List.of(ByteWord.create("1")), null));
+        }
+
+        // SINTER reads the second set, it waits while another thread holds the lock of the second key
+        Command sinter = CommandFactory.parseCommand(List.of(ByteWord.create("SINTER"), key, key2));
+        AtomicReference<NetworkData> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> result.set(database.execute(sinter)));
+        ReentrantLock lock = database.getLock(key2);
+        lock.lock();
+        try {
+            thread.start();
+            thread.join(200);
+            assertTrue(thread.isAlive());
+            assertNull(result.get());
+        } finally {
+            lock.unlock();
+        }
+        thread.join();
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("1")))), result.get());
+    }
+
+    private void runConcurrently(int threadCount, Runnable runnable) {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; ++t) {
+            Thread thread = new Thread(runnable);
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            fail("should not throw exception", e);
+        }
+    }
+}
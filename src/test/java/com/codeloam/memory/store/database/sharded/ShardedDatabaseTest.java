@@ -0,0 +1,123 @@
+package com.codeloam.memory.store.database.sharded;
+
+import com.codeloam.memory.store.command.Command;
+import com.codeloam.memory.store.command.CommandFactory;
+import com.codeloam.memory.store.command.SimpleCommand;
+import com.codeloam.memory.store.database.DataType;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
+import com.codeloam.memory.store.network.data.NetworkBulkString;
+import com.codeloam.memory.store.network.data.NetworkData;
+import com.codeloam.memory.store.network.data.NetworkError;
+import com.codeloam.memory.store.network.data.NetworkInteger;
+import com.codeloam.memory.store.network.data.NetworkSimpleString;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test ShardedDatabase.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ShardedDatabaseTest {
+    @Test
+    public void testExecuteWithStringCommand() {
+        try (ShardedDatabase database = new ShardedDatabase(4)) {
+            for (int i = 0; i < 100; ++i) {
+                Command set = new SimpleCommand("SET", DataType.String, ByteWord.create("key" + i),
+                        List.of(ByteWord.create("value" + i)), null);
+                assertEquals(NetworkSimpleString.OK, database.execute(set));
+            }
+            for (int i = 0; i < 100; ++i) {
+                Command get = new SimpleCommand("GET", DataType.String, ByteWord.create("key" + i), null, null);
+                assertEquals(new NetworkBulkString(ByteWord.create("value" + i)), database.execute(get));
+            }
+        }
+    }
+
+    @Test
+    public void testKeysAreSpreadToShards() {
+        try (ShardedDatabase database = new ShardedDatabase(4)) {
+            Set<Integer> shards = new HashSet<>();
+            for (int i = 0; i < 100; ++i) {
+                ByteWord key = ByteWord.create("key" + i);
+                int shard = database.getShardIndex(key);
+                assertTrue(shard >= 0 && shard < database.getShardCount());
+                assertEquals(shard, database.getShardIndex(ByteWord.create("key" + i)), "same key, same shard");
+                shards.add(shard);
+            }
+            assertEquals(4, shards.size());
+            assertEquals(0, database.getShardIndex(null));
+        }
+    }
+
+    @Test
+    public void testMultiKeyCommand() {
+        try (ShardedDatabase database = new ShardedDatabase(4)) {
+            ByteWord key = ByteWord.create("key0");
+            ByteWord sameShard = null;
+            ByteWord otherShard = null;
+            for (int i = 1; sameShard == null || otherShard == null; ++i) {
+                ByteWord k = ByteWord.create("key" + i);
+                if (database.getShardIndex(k) == database.getShardIndex(key)) {
+                    sameShard = k;
+                } else {
+                    otherShard = k;
+                }
+            }
+            for (ByteWord k : List.of(key, sameShard, otherShard)) {
+                database.execute(new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, k,
+                        List.of(ByteWord.create("1")), null));
+            }
+
+            Command sinter = CommandFactory.parseCommand(List.of(ByteWord.create("SINTER"), key, sameShard));
+            assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("1")))),
+                    database.execute(sinter));
+            sinter = CommandFactory.parseCommand(List.of(ByteWord.create("SINTER"), key, otherShard));
+            assertTrue(database.execute(sinter) instanceof NetworkError);
+        }
+    }
+
+    @Test
+    public void testExecuteConcurrently() {
+        try (ShardedDatabase database = new ShardedDatabase(4)) {
+            int threadCount = 8;
+            int keyCount = 16;
+            int times = 1024;
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < threadCount; ++t) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < times; ++i) {
+                        Command incr = new SimpleCommand(CommandFactory.NUMBER_COMMAND_INCR, DataType.Number,
+                                ByteWord.create("key" + (i % keyCount)), null, null);
+                        database.execute(incr);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            try {
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            } catch (InterruptedException e) {
+                fail("should not throw exception", e);
+            }
+            for (int i = 0; i < keyCount; ++i) {
+                Command get = new SimpleCommand(CommandFactory.NUMBER_COMMAND_NGET, DataType.Number,
+                        ByteWord.create("key" + i), null, null);
+                NetworkData result = database.execute(get);
+                assertEquals(new NetworkInteger((long) threadCount * times / keyCount), result);
+            }
+        }
+    }
+}
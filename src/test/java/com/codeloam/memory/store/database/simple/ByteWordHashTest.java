@@ -0,0 +1,136 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.network.ByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test ByteWordHash.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ByteWordHashTest {
+    @Test
+    public void testSetAndGet() {
+        ByteWordHash<String> hash = new ByteWordHash<>();
+        assertNull(hash.set(ByteWord.create("key"), "value"));
+        assertEquals("value", hash.get(ByteWord.create("key")));
+        assertEquals("value", hash.set(ByteWord.create("key"), "value2"));
+        assertEquals("value2", hash.get(ByteWord.create("key")));
+        assertEquals(1, hash.size());
+        assertTrue(hash.exist(ByteWord.create("key")));
+        assertFalse(hash.exist(ByteWord.create("key2")));
+        assertNull(hash.get(ByteWord.create("key2")));
+        assertThrows(NullPointerException.class, () -> hash.set(ByteWord.create("key"), null));
+    }
+
+    @Test
+    public void testKeysWithSameBytes() {
+        ByteWordHash<String> hash = new ByteWordHash<>();
+        hash.set(ByteWord.create(100L), "value");
+        assertEquals("value", hash.get(ByteWord.create("100")));
+        assertEquals("value", hash.get(ByteWord.create(List.of("1".getBytes(), "00".getBytes()))));
+    }
+
+    @Test
+    public void testSliceKeys() {
+        ByteWordHash<String> hash = new ByteWordHash<>();
+        ByteBuffer buffer = ByteBuffer.wrap("key1key2".getBytes(StandardCharsets.UTF_8));
+        hash.set(ByteWord.slice(buffer, 0, 4), "value1");
+        assertEquals("value1", hash.get(ByteWord.slice(buffer, 0, 4)));
+        assertNull(hash.get(ByteWord.slice(buffer, 4, 4)));
+
+        // key is copied when it's added
+        buffer.put(0, "key2".getBytes(StandardCharsets.UTF_8));
+        assertEquals("value1", hash.get(ByteWord.create("key1")));
+        assertNull(hash.get(ByteWord.slice(buffer, 0, 4)));
+    }
+
+    @Test
+    public void testRemove() {
+        ByteWordHash<String> hash = new ByteWordHash<>();
+        for (int i = 0; i < 10; ++i) {
+            hash.set(ByteWord.create("key" + i), "value" + i);
+        }
+        assertEquals("value3", hash.remove(ByteWord.create("key3")));
+        assertNull(hash.remove(ByteWord.create("key3")));
+        assertEquals(9, hash.size());
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(i == 3 ? null : "value" + i, hash.get(ByteWord.create("key" + i)));
+        }
+    }
+
+    @Test
+    public void testProgressiveRehash() {
+        ByteWordHash<Integer> hash = new ByteWordHash<>(1024);
+        int count = 0;
+        while (!hash.isRehashing()) {
+            hash.set(ByteWord.create("key" + count), count);
+            count++;
+        }
+        // all keys are available while entries are moved
+        int operations = 0;
+        while (hash.isRehashing()) {
+            int i = operations % count;
+            assertEquals(i, hash.get(ByteWord.create("key" + i)));
+            operations++;
+        }
+        assertTrue(operations > 1, "entries should be moved by multiple operations");
+        assertEquals(count, hash.size());
+        for (int i = 0; i < count; ++i) {
+            assertEquals(i, hash.get(ByteWord.create("key" + i)));
+        }
+    }
+
+    @Test
+    public void testForEach() {
+        ByteWordHash<Integer> hash = new ByteWordHash<>(1024);
+        Map<String, Integer> expected = new HashMap<>();
+        while (!hash.isRehashing()) {
+            String key = "key" + expected.size();
+            expected.put(key, expected.size());
+            hash.set(ByteWord.create(key), expected.get(key));
+        }
+        // entries are in both tables
+        hash.get(ByteWord.create("key0"));
+        assertTrue(hash.isRehashing());
+        Map<String, Integer> visited = new HashMap<>();
+        hash.forEach((key, value) -> assertNull(visited.put(key.getString(), value)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        // compare with HashMap, the table grows and keys are removed from long probe sequences
+        ByteWordHash<Integer> hash = new ByteWordHash<>(4);
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; ++i) {
+            String key = "key" + random.nextInt(5000);
+            ByteWord word = ByteWord.create(key);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), hash.remove(word));
+            } else {
+                assertEquals(expected.put(key, i), hash.set(word, i));
+            }
+        }
+        assertEquals(expected.size(), hash.size());
+        for (int i = 0; i < 5000; ++i) {
+            String key = "key" + i;
+            assertEquals(expected.get(key), hash.get(ByteWord.create(key)));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.network.ByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test PackedHash.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class PackedHashTest {
+    @Test
+    public void testSetAndGet() {
+        PackedHash hash = new PackedHash();
+        assertNull(hash.set(word("name"), word("jimds")));
+        assertNull(hash.set(word("age"), ByteWord.create(3L)));
+        assertEquals(word("jimds"), hash.get(word("name")));
+        assertEquals(word("3"), hash.get(word("age")));
+
+        // values with different sizes are replaced in place
+        assertEquals(word("jimds"), hash.set(word("name"), word("in-memory data store")));
+        assertEquals(word("3"), hash.set(word("age"), word("")));
+        assertEquals(word("in-memory data store"), hash.get(word("name")));
+        assertEquals(word(""), hash.get(word("age")));
+        assertEquals(2, hash.size());
+
+        // fields are compared in place, including slices of a network buffer
+        ByteBuffer buffer = ByteBuffer.wrap("xxnamexx".getBytes(StandardCharsets.UTF_8));
+        assertTrue(hash.exist(ByteWord.slice(buffer, 2, 4)));
+        assertFalse(hash.exist(word("nam")));
+        assertNull(hash.get(word("names")));
+
+        assertEquals(word(""), hash.remove(word("age")));
+        assertNull(hash.remove(word("age")));
+        assertEquals(1, hash.size());
+        assertTrue(hash.isPacked());
+    }
+
+    @Test
+    public void testConvert() {
+        PackedHash hash = new PackedHash();
+        for (int i = 0; i < PackedHash.MAX_PACKED_ENTRIES; ++i) {
+            hash.set(word("field" + i), word("value" + i));
+        }
+        assertTrue(hash.isPacked());
+        hash.set(word("field" + PackedHash.MAX_PACKED_ENTRIES), word("value"));
+        assertFalse(hash.isPacked());
+        assertEquals(PackedHash.MAX_PACKED_ENTRIES + 1, hash.size());
+        for (int i = 0; i < PackedHash.MAX_PACKED_ENTRIES; ++i) {
+            assertEquals(word("value" + i), hash.get(word("field" + i)));
+        }
+
+        hash = new PackedHash();
+        hash.set(word("field"), word("value"));
+        hash.set(word("large"), word("v".repeat(PackedHash.MAX_PACKED_LENGTH + 1)));
+        assertFalse(hash.isPacked());
+        assertEquals(word("value"), hash.get(word("field")));
+        assertEquals(word("v".repeat(PackedHash.MAX_PACKED_LENGTH + 1)), hash.get(word("large")));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        // compare with HashMap, fields and values of random sizes, the hash is converted at some point
+        PackedHash hash = new PackedHash();
+        Map<ByteWord, ByteWord> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; ++i) {
+            ByteWord field = word("f" + random.nextInt(i < 10000 ? 40 : 200));
+            int op = random.nextInt(4);
+            if (op == 0) {
+                assertEquals(expected.remove(field), hash.remove(field));
+            } else if (op == 1) {
+                assertEquals(expected.get(field), hash.get(field));
+            } else {
+                byte[] bytes = new byte[random.nextInt(i < 10000 ? 30 : 100)];
+                random.nextBytes(bytes);
+                ByteWord value = ByteWord.create(bytes);
+                assertEquals(expected.put(field, value), hash.set(field, value));
+            }
+            assertEquals(expected.size(), hash.size());
+            if (i == 9999) {
+                assertTrue(hash.isPacked());
+                assertEquals(expected, toMap(hash));
+            }
+        }
+        assertFalse(hash.isPacked());
+        assertEquals(expected, toMap(hash));
+    }
+
+    private static Map<ByteWord, ByteWord> toMap(PackedHash hash) {
+        Map<ByteWord, ByteWord> map = new HashMap<>();
+        hash.forEach((field, value) -> assertNull(map.put(field, value)));
+        return map;
+    }
+
+    private static ByteWord word(String str) {
+        return ByteWord.create(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -5,15 +5,23 @@ import com.codeloam.memory.store.command.CommandFactory;
 import com.codeloam.memory.store.command.SimpleCommand;
 import com.codeloam.memory.store.database.DataType;
 import com.codeloam.memory.store.database.Database;
+import com.codeloam.memory.store.database.simple.executor.StringExecutor;
 import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.OffHeapByteWord;
+import com.codeloam.memory.store.network.data.NetworkArray;
 import com.codeloam.memory.store.network.data.NetworkBulkString;
 import com.codeloam.memory.store.network.data.NetworkData;
 import com.codeloam.memory.store.network.data.NetworkError;
 import com.codeloam.memory.store.network.data.NetworkInteger;
 import com.codeloam.memory.store.network.data.NetworkSimpleString;
+import com.codeloam.memory.store.network.data.StreamDataWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -51,6 +59,39 @@ public class SimpleDatabaseTest {
         assertEquals(result, new NetworkBulkString(ByteWord.create("value2")));
     }
 
+    @Test
+    public void testExecuteWithLargeStringCommand() throws IOException {
+        ByteWord key = ByteWord.create("key");
+        byte[] bytes = new byte[StringExecutor.DEFAULT_OFF_HEAP_THRESHOLD];
+        Arrays.fill(bytes, (byte) 'a');
+        ByteWord value = ByteWord.create(bytes);
+        Command set = new SimpleCommand("SET", DataType.String, key, List.of(value), null);
+        assertEquals(NetworkSimpleString.OK, database.execute(set));
+
+        Command get = new SimpleCommand("GET", DataType.String, key, null, null);
+        assertEquals(new NetworkBulkString(value), database.execute(get));
+
+        set = new SimpleCommand("SET", DataType.String, key, List.of(ByteWord.create("small")), null);
+        assertEquals(new NetworkBulkString(value), database.execute(set));
+        assertEquals(new NetworkBulkString(ByteWord.create("small")), database.execute(get));
+
+        // a value decoded to off-heap memory is not copied, the string retains its own reference
+        ByteWord key2 = ByteWord.create("key2");
+        OffHeapByteWord decoded = OffHeapByteWord.create(value);
+        set = new SimpleCommand("SET", DataType.String, key2, List.of(decoded), null);
+        assertEquals(NetworkSimpleString.OK, database.execute(set));
+        assertEquals(2, decoded.getRefCount());
+        // server releases arguments after the command
+        decoded.release();
+        assertEquals(1, decoded.getRefCount());
+        get = new SimpleCommand("GET", DataType.String, key2, null, null);
+        NetworkData data = database.execute(get);
+        assertEquals(new NetworkBulkString(value), data);
+        // the response releases its view once it's written, the string keeps its own reference
+        data.write(new StreamDataWriter(new ByteArrayOutputStream()));
+        assertEquals(new NetworkBulkString(value), database.execute(get));
+    }
+
     @Test
     public void testExecuteWithNSetCommand() {
         ByteWord key = ByteWord.create("key");
@@ -153,4 +194,250 @@ public class SimpleDatabaseTest {
         result =database.execute(incr);
         assertEquals(new NetworkInteger(-15L), result);
     }
+
+    @Test
+    public void testExecuteWithPopCommand() {
+        ByteWord key = ByteWord.create("key");
+        Command push = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List, key,
+                List.of(ByteWord.create("a"), ByteWord.create("b"), ByteWord.create("c"), ByteWord.create("d")), null);
+        assertEquals(new NetworkInteger(4), database.execute(push));
+
+        Command lpop = new SimpleCommand(CommandFactory.LIST_COMMAND_LPOP, DataType.List, key, null, null);
+        assertEquals(new NetworkBulkString(ByteWord.create("a")), database.execute(lpop));
+        Command rpop = new SimpleCommand(CommandFactory.LIST_COMMAND_RPOP, DataType.List, key, null, null);
+        assertEquals(new NetworkBulkString(ByteWord.create("d")), database.execute(rpop));
+        Command llen = new SimpleCommand(CommandFactory.LIST_COMMAND_LLEN, DataType.List, key, null, null);
+        assertEquals(new NetworkInteger(2), database.execute(llen));
+
+        for (long count : new long[]{0, -1}) {
+            for (String name : List.of(CommandFactory.LIST_COMMAND_LPOP, CommandFactory.LIST_COMMAND_RPOP)) {
+                Command pop = new SimpleCommand(name, DataType.List, key, List.of(ByteWord.create(count)), null);
+                assertEquals(new NetworkError("value is out of range, must be positive"), database.execute(pop));
+            }
+        }
+        assertEquals(new NetworkInteger(2), database.execute(llen));
+
+        lpop = new SimpleCommand(CommandFactory.LIST_COMMAND_LPOP, DataType.List, key,
+                List.of(ByteWord.create(5L)), null);
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("b")),
+                new NetworkBulkString(ByteWord.create("c")))), database.execute(lpop));
+        assertEquals(new NetworkInteger(0), database.execute(llen));
+        assertEquals(NetworkBulkString.NULL, database.execute(rpop));
+        // the empty list is removed, so the key can be a set
+        Command sadd = new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, key,
+                List.of(ByteWord.create("a")), null);
+        assertEquals(new NetworkInteger(1), database.execute(sadd));
+    }
+
+    @Test
+    public void testRemoveListWhenRpopEmptiesIt() {
+        ByteWord key = ByteWord.create("key");
+        Command push = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List, key,
+                List.of(ByteWord.create("a")), null);
+        assertEquals(new NetworkInteger(1), database.execute(push));
+        Command rpop = new SimpleCommand(CommandFactory.LIST_COMMAND_RPOP, DataType.List, key, null, null);
+        assertEquals(new NetworkBulkString(ByteWord.create("a")), database.execute(rpop));
+        Command get = new SimpleCommand(CommandFactory.STRING_COMMAND_GET, DataType.String, key, null, null);
+        assertEquals(NetworkBulkString.NULL, database.execute(get));
+    }
+
+    @Test
+    public void testExecuteWithRangeCommands() {
+        ByteWord key = ByteWord.create("key");
+        Command push = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List, key,
+                List.of(ByteWord.create("a"), ByteWord.create("b"), ByteWord.create("c"), ByteWord.create("d")), null);
+        assertEquals(new NetworkInteger(4), database.execute(push));
+
+        Command lrange = new SimpleCommand(CommandFactory.LIST_COMMAND_LRANG, DataType.List, key,
+                List.of(ByteWord.create(1L), ByteWord.create(-2L)), null);
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("b")),
+                new NetworkBulkString(ByteWord.create("c")))), database.execute(lrange));
+
+        Command linsert = new SimpleCommand(CommandFactory.LIST_COMMAND_LINSERT, DataType.List, key,
+                List.of(ByteWord.create("before"), ByteWord.create("c"), ByteWord.create("x")), null);
+        assertEquals(new NetworkInteger(5), database.execute(linsert));
+        linsert = new SimpleCommand(CommandFactory.LIST_COMMAND_LINSERT, DataType.List, key,
+                List.of(ByteWord.create("AFTER"), ByteWord.create("d"), ByteWord.create("y")), null);
+        assertEquals(new NetworkInteger(6), database.execute(linsert));
+        linsert = new SimpleCommand(CommandFactory.LIST_COMMAND_LINSERT, DataType.List, key,
+                List.of(ByteWord.create("AFTER"), ByteWord.create("z"), ByteWord.create("y")), null);
+        assertEquals(new NetworkInteger(-1), database.execute(linsert));
+
+        Command ltrim = new SimpleCommand(CommandFactory.LIST_COMMAND_LTRIM, DataType.List, key,
+                List.of(ByteWord.create(1L), ByteWord.create(100L)), null);
+        assertEquals(NetworkSimpleString.OK, database.execute(ltrim));
+        lrange = new SimpleCommand(CommandFactory.LIST_COMMAND_LRANG, DataType.List, key,
+                List.of(ByteWord.create(0L), ByteWord.create(-1L)), null);
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("b")),
+                new NetworkBulkString(ByteWord.create("x")), new NetworkBulkString(ByteWord.create("c")),
+                new NetworkBulkString(ByteWord.create("d")), new NetworkBulkString(ByteWord.create("y")))),
+                database.execute(lrange));
+
+        ltrim = new SimpleCommand(CommandFactory.LIST_COMMAND_LTRIM, DataType.List, key,
+                List.of(ByteWord.create(3L), ByteWord.create(1L)), null);
+        assertEquals(NetworkSimpleString.OK, database.execute(ltrim));
+        assertEquals(new NetworkArray(List.of()), database.execute(lrange));
+        // the empty list is removed, so the key can be a set
+        Command sadd = new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, key,
+                List.of(ByteWord.create("a")), null);
+        assertEquals(new NetworkInteger(1), database.execute(sadd));
+    }
+
+    @Test
+    public void testExecuteWithHashCommands() {
+        ByteWord key = ByteWord.create("user");
+        Command hset = new SimpleCommand(CommandFactory.HASH_COMMAND_HSET, DataType.Hash, key,
+                List.of(ByteWord.create("name"), ByteWord.create("jimds"), ByteWord.create("age"),
+                        ByteWord.create("3")), null);
+        assertEquals(new NetworkInteger(2), database.execute(hset));
+        hset = new SimpleCommand(CommandFactory.HASH_COMMAND_HSET, DataType.Hash, key,
+                List.of(ByteWord.create("name"), ByteWord.create("store")), null);
+        assertEquals(new NetworkInteger(0), database.execute(hset));
+
+        Command hget = new SimpleCommand(CommandFactory.HASH_COMMAND_HGET, DataType.Hash, key,
+                List.of(ByteWord.create("name")), null);
+        assertEquals(new NetworkBulkString(ByteWord.create("store")), database.execute(hget));
+        Command hincrby = new SimpleCommand(CommandFactory.HASH_COMMAND_HINCRBY, DataType.Hash, key,
+                List.of(ByteWord.create("age"), ByteWord.create("-5")), null);
+        assertEquals(new NetworkInteger(-2), database.execute(hincrby));
+        hincrby = new SimpleCommand(CommandFactory.HASH_COMMAND_HINCRBY, DataType.Hash, key,
+                List.of(ByteWord.create("name"), ByteWord.create("1")), null);
+        assertTrue(database.execute(hincrby) instanceof NetworkError);
+
+        Command hmget = new SimpleCommand(CommandFactory.HASH_COMMAND_HMGET, DataType.Hash, key,
+                List.of(ByteWord.create("age"), ByteWord.create("none")), null);
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("-2")), NetworkBulkString.NULL)),
+                database.execute(hmget));
+        Command hgetall = new SimpleCommand(CommandFactory.HASH_COMMAND_HGETALL, DataType.Hash, key, null, null);
+        assertEquals(new NetworkArray(List.of(new NetworkBulkString(ByteWord.create("name")),
+                new NetworkBulkString(ByteWord.create("store")), new NetworkBulkString(ByteWord.create("age")),
+                new NetworkBulkString(ByteWord.create("-2")))), database.execute(hgetall));
+
+        Command hdel = new SimpleCommand(CommandFactory.HASH_COMMAND_HDEL, DataType.Hash, key,
+                List.of(ByteWord.create("name"), ByteWord.create("age"), ByteWord.create("none")), null);
+        assertEquals(new NetworkInteger(2), database.execute(hdel));
+        assertEquals(NetworkBulkString.NULL, database.execute(hget));
+        assertEquals(new NetworkArray(List.of()), database.execute(hgetall));
+
+        Command get = new SimpleCommand(CommandFactory.STRING_COMMAND_GET, DataType.String, key, null, null);
+        assertEquals(NetworkBulkString.NULL, database.execute(get));
+    }
+
+    @Test
+    public void testExecuteWithSetCommands() {
+        ByteWord key = ByteWord.create("set1");
+        ByteWord key2 = ByteWord.create("set2");
+        ByteWord key3 = ByteWord.create("set3");
+        Command sadd = new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, key,
+                List.of(ByteWord.create("3"), ByteWord.create("1"), ByteWord.create("2"), ByteWord.create("1")), null);
+        assertEquals(new NetworkInteger(3), database.execute(sadd));
+        sadd = new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, key2,
+                List.of(ByteWord.create("4"), ByteWord.create("3"), ByteWord.create("2")), null);
+        assertEquals(new NetworkInteger(3), database.execute(sadd));
+        sadd = new SimpleCommand(CommandFactory.SET_COMMAND_SADD, DataType.Set, key3,
+                List.of(ByteWord.create("a"), ByteWord.create("2")), null);
+        assertEquals(new NetworkInteger(2), database.execute(sadd));
+
+        Command sismember = new SimpleCommand(CommandFactory.SET_COMMAND_SISMEMBER, DataType.Set, key3,
+                List.of(ByteWord.create("a")), null);
+        assertEquals(new NetworkInteger(1), database.execute(sismember));
+        Command scard = new SimpleCommand(CommandFactory.SET_COMMAND_SCARD, DataType.Set, key, null, null);
+        assertEquals(new NetworkInteger(3), database.execute(scard));
+        // integers are returned in ascending order
+        Command smembers = new SimpleCommand(CommandFactory.SET_COMMAND_SMEMBERS, DataType.Set, key, null, null);
+        assertEquals(bulkStrings("1", "2", "3"), database.execute(smembers));
+
+        Command sinter = new SimpleCommand(CommandFactory.SET_COMMAND_SINTER, DataType.Set, key,
+                List.of(key2), null);
+        assertEquals(bulkStrings("2", "3"), database.execute(sinter));
+        sinter = new SimpleCommand(CommandFactory.SET_COMMAND_SINTER, DataType.Set, key,
+                List.of(key2, key3), null);
+        assertEquals(bulkStrings("2"), database.execute(sinter));
+        sinter = new SimpleCommand(CommandFactory.SET_COMMAND_SINTER, DataType.Set, key,
+                List.of(key2, ByteWord.create("none")), null);
+        assertEquals(bulkStrings(), database.execute(sinter));
+        Command sunion = new SimpleCommand(CommandFactory.SET_COMMAND_SUNION, DataType.Set, key,
+                List.of(key2, ByteWord.create("none")), null);
+        assertEquals(bulkStrings("1", "2", "3", "4"), database.execute(sunion));
+
+        Command srem = new SimpleCommand(CommandFactory.SET_COMMAND_SREM, DataType.Set, key,
+                List.of(ByteWord.create("1"), ByteWord.create("2"), ByteWord.create("3"), ByteWord.create("4")), null);
+        assertEquals(new NetworkInteger(3), database.execute(srem));
+        assertEquals(new NetworkInteger(0), database.execute(scard));
+        assertEquals(bulkStrings(), database.execute(smembers));
+
+        Command rpush = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List, key,
+                List.of(ByteWord.create("a")), null);
+        database.execute(rpush);
+        assertTrue(database.execute(sinter) instanceof NetworkError);
+        sunion = new SimpleCommand(CommandFactory.SET_COMMAND_SUNION, DataType.Set, key2, List.of(key), null);
+        assertTrue(database.execute(sunion) instanceof NetworkError);
+    }
+
+    @Test
+    public void testExecuteWithSortedSetCommands() {
+        ByteWord key = ByteWord.create("zset");
+        Command zadd = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZADD, DataType.SortedSet, key,
+                List.of(ByteWord.create("2"), ByteWord.create("b"), ByteWord.create("1.5"), ByteWord.create("a"),
+                        ByteWord.create("-inf"), ByteWord.create("c"), ByteWord.create("3"), ByteWord.create("b")),
+                null);
+        assertEquals(new NetworkInteger(3), database.execute(zadd));
+        zadd = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZADD, DataType.SortedSet, key,
+                List.of(ByteWord.create("1"), ByteWord.create("d"), ByteWord.create("x"), ByteWord.create("e")),
+                null);
+        // nothing is added if any score is invalid
+        assertTrue(database.execute(zadd) instanceof NetworkError);
+
+        Command zscore = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZSCORE, DataType.SortedSet, key,
+                List.of(ByteWord.create("b")), null);
+        assertEquals(new NetworkBulkString(ByteWord.create("3")), database.execute(zscore));
+        zscore = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZSCORE, DataType.SortedSet, key,
+                List.of(ByteWord.create("d")), null);
+        assertEquals(NetworkBulkString.NULL, database.execute(zscore));
+        Command zrank = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZRANK, DataType.SortedSet, key,
+                List.of(ByteWord.create("b")), null);
+        assertEquals(new NetworkInteger(2), database.execute(zrank));
+
+        Command zrange = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZRANGE, DataType.SortedSet, key,
+                List.of(ByteWord.create("0"), ByteWord.create("-1"), ByteWord.create("WITHSCORES")), null);
+        assertEquals(bulkStrings("c", "-inf", "a", "1.5", "b", "3"), database.execute(zrange));
+        zrange = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZRANGE, DataType.SortedSet, key,
+                List.of(ByteWord.create("-2"), ByteWord.create("10")), null);
+        assertEquals(bulkStrings("a", "b"), database.execute(zrange));
+        Command zrangeByScore = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZRANGEBYSCORE,
+                DataType.SortedSet, key, List.of(ByteWord.create("(1.5"), ByteWord.create("+inf")), null);
+        assertEquals(bulkStrings("b"), database.execute(zrangeByScore));
+        zrangeByScore = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZRANGEBYSCORE, DataType.SortedSet, key,
+                List.of(ByteWord.create("-inf"), ByteWord.create("3"), ByteWord.create("LIMIT"), ByteWord.create("1"),
+                        ByteWord.create("1"), ByteWord.create("WITHSCORES")), null);
+        assertEquals(bulkStrings("a", "1.5"), database.execute(zrangeByScore));
+
+        Command zincrby = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZINCRBY, DataType.SortedSet, key,
+                List.of(ByteWord.create("-5"), ByteWord.create("b")), null);
+        assertEquals(new NetworkBulkString(ByteWord.create("-2")), database.execute(zincrby));
+        assertEquals(new NetworkInteger(1), database.execute(zrank));
+        zincrby = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZINCRBY, DataType.SortedSet, key,
+                List.of(ByteWord.create("inf"), ByteWord.create("c")), null);
+        // -inf + inf is not a number
+        assertTrue(database.execute(zincrby) instanceof NetworkError);
+
+        Command zrem = new SimpleCommand(CommandFactory.SORTED_SET_COMMAND_ZREM, DataType.SortedSet, key,
+                List.of(ByteWord.create("a"), ByteWord.create("b"), ByteWord.create("c"), ByteWord.create("d")), null);
+        assertEquals(new NetworkInteger(3), database.execute(zrem));
+        assertEquals(NetworkBulkString.NULL, database.execute(zrank));
+
+        // the empty set is removed, so the key can be a list
+        Command rpush = new SimpleCommand(CommandFactory.LIST_COMMAND_RPUSH, DataType.List, key,
+                List.of(ByteWord.create("a")), null);
+        assertEquals(new NetworkInteger(1), database.execute(rpush));
+        assertTrue(database.execute(zrange) instanceof NetworkError);
+    }
+
+    private static NetworkArray bulkStrings(String... values) {
+        List<NetworkData> data = new ArrayList<>();
+        for (String value : values) {
+            data.add(new NetworkBulkString(ByteWord.create(value)));
+        }
+        return new NetworkArray(data);
+    }
 }
@@ -0,0 +1,219 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.network.ByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test SimpleList.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SimpleListTest {
+    @Test
+    public void testPushAndPop() {
+        SimpleList list = new SimpleList(64);
+        for (int i = 0; i < 100; ++i) {
+            list.addLast(word("r" + i));
+            list.addFirst(word("l" + i));
+        }
+        assertEquals(200, list.size());
+        assertTrue(list.segmentCount() > 1);
+        assertEquals(word("l99"), list.get(0));
+        assertEquals(word("r99"), list.get(199));
+        assertEquals(word("l0"), list.get(99));
+        assertEquals(word("r0"), list.get(100));
+        for (int i = 99; i >= 0; --i) {
+            assertEquals(word("l" + i), list.removeFirst());
+            assertEquals(word("r" + i), list.removeLast());
+        }
+        assertEquals(0, list.size());
+        assertEquals(0, list.segmentCount());
+        assertThrows(NoSuchElementException.class, list::removeFirst);
+        assertThrows(NoSuchElementException.class, list::removeLast);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+
+    @Test
+    public void testLargeElements() {
+        SimpleList list = new SimpleList(64);
+        List<ByteWord> expected = new ArrayList<>();
+        for (int length : new int[] {0, 1, 127, 128, 16383, 16384, 100000, 5}) {
+            byte[] bytes = new byte[length];
+            Arrays.fill(bytes, (byte) ('a' + length % 26));
+            list.addLast(ByteWord.create(bytes));
+            expected.add(ByteWord.create(bytes));
+        }
+        assertList(expected, list);
+        assertEquals(expected.get(5), list.set(5, word("small")));
+        expected.set(5, word("small"));
+        assertList(expected, list);
+    }
+
+    @Test
+    public void testIterator() {
+        SimpleList list = new SimpleList(32);
+        for (int i = 0; i < 20; ++i) {
+            list.addLast(word(String.valueOf(i)));
+        }
+        ListIterator<ByteWord> iterator = list.reverseIterator();
+        assertFalse(iterator.hasNext());
+        assertEquals(word("19"), iterator.previous());
+        iterator = list.listIterator(10);
+        assertEquals(9, iterator.previousIndex());
+        assertEquals(word("10"), iterator.next());
+        iterator.remove();
+        assertEquals(word("11"), iterator.next());
+        iterator.set(word("eleven"));
+        iterator.add(word("added"));
+        assertEquals(word("added"), iterator.previous());
+        assertEquals(word("eleven"), iterator.previous());
+        assertEquals(word("9"), iterator.previous());
+        assertEquals(20, list.size());
+        assertEquals(word("eleven"), list.get(10));
+        assertEquals(word("added"), list.get(11));
+        assertThrows(IllegalStateException.class, () -> {
+            ListIterator<ByteWord> it = list.iterator();
+            it.next();
+            it.remove();
+            it.remove();
+        });
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        for (int segmentSize : new int[] {16, 64, SimpleList.DEFAULT_SEGMENT_SIZE}) {
+            SimpleList list = new SimpleList(segmentSize);
+            LinkedList<ByteWord> expected = new LinkedList<>();
+            for (int round = 0; round < 20000; ++round) {
+                ByteWord value = randomWord(random);
+                int op = random.nextInt(9);
+                if (op == 0) {
+                    list.addFirst(value);
+                    expected.addFirst(value);
+                } else if (op == 1) {
+                    list.addLast(value);
+                    expected.addLast(value);
+                } else if (expected.isEmpty()) {
+                    continue;
+                } else if (op == 2) {
+                    assertEquals(expected.removeFirst(), list.removeFirst());
+                } else if (op == 3) {
+                    assertEquals(expected.removeLast(), list.removeLast());
+                } else if (op == 4) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.set(index, value), list.set(index, value));
+                } else if (op == 5) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.get(index), list.get(index));
+                    assertEquals(expected.indexOf(expected.get(index)), list.indexOf(expected.get(index)));
+                    assertEquals(expected.indexOf(value), list.indexOf(value));
+                } else {
+                    // insert, remove or replace around a random position, in both directions
+                    int index = random.nextInt(expected.size() + 1);
+                    ListIterator<ByteWord> expectedIterator = expected.listIterator(index);
+                    ListIterator<ByteWord> iterator = list.listIterator(index);
+                    boolean forward = random.nextBoolean()
+                            ? expectedIterator.hasNext() : !expectedIterator.hasPrevious();
+                    assertEquals(forward ? expectedIterator.next() : expectedIterator.previous(),
+                            forward ? iterator.next() : iterator.previous());
+                    if (op == 6) {
+                        expectedIterator.add(value);
+                        iterator.add(value);
+                    } else if (op == 7) {
+                        expectedIterator.remove();
+                        iterator.remove();
+                    } else {
+                        expectedIterator.set(value);
+                        iterator.set(value);
+                    }
+                    assertEquals(expectedIterator.nextIndex(), iterator.nextIndex());
+                    if (iterator.hasNext()) {
+                        assertEquals(expectedIterator.next(), iterator.next());
+                    }
+                }
+                assertEquals(expected.size(), list.size());
+            }
+            assertList(expected, list);
+        }
+    }
+
+    @Test
+    public void testRangeAndTrim() {
+        Random random = new Random(7);
+        for (int segmentSize : new int[] {16, 64, SimpleList.DEFAULT_SEGMENT_SIZE}) {
+            SimpleList list = new SimpleList(segmentSize);
+            LinkedList<ByteWord> expected = new LinkedList<>();
+            for (int round = 0; round < 200; ++round) {
+                for (int i = random.nextInt(200); i > 0; --i) {
+                    ByteWord value = randomWord(random);
+                    if (random.nextBoolean()) {
+                        list.addFirst(value);
+                        expected.addFirst(value);
+                    } else {
+                        list.addLast(value);
+                        expected.addLast(value);
+                    }
+                }
+                int from = random.nextInt(expected.size() + 1);
+                int to = from + random.nextInt(expected.size() - from + 1);
+                assertEquals(expected.subList(from, to), list.range(from, to));
+
+                from = random.nextInt(expected.size() / 4 + 1);
+                to = expected.size() - random.nextInt(expected.size() / 4 + 1);
+                list.trim(from, to);
+                expected = new LinkedList<>(expected.subList(from, to));
+                assertList(expected, list);
+            }
+            list.trim(0, 0);
+            assertEquals(0, list.size());
+            assertEquals(0, list.segmentCount());
+            assertThrows(IndexOutOfBoundsException.class, () -> list.range(0, 1));
+        }
+    }
+
+    private static void assertList(List<ByteWord> expected, SimpleList list) {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, toList(list.iterator(), true));
+        List<ByteWord> reversed = toList(list.reverseIterator(), false);
+        Collections.reverse(reversed);
+        assertEquals(expected, reversed);
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+    }
+
+    private static List<ByteWord> toList(ListIterator<ByteWord> iterator, boolean forward) {
+        List<ByteWord> result = new ArrayList<>();
+        while (forward ? iterator.hasNext() : iterator.hasPrevious()) {
+            result.add(forward ? iterator.next() : iterator.previous());
+        }
+        return result;
+    }
+
+    private static ByteWord randomWord(Random random) {
+        byte[] bytes = new byte[random.nextInt(10) == 0 ? random.nextInt(300) : random.nextInt(12)];
+        random.nextBytes(bytes);
+        return ByteWord.create(bytes);
+    }
+
+    private static ByteWord word(String str) {
+        return ByteWord.create(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
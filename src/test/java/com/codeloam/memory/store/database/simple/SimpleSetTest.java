@@ -0,0 +1,114 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.network.ByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test SimpleSet.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SimpleSetTest {
+    @Test
+    public void testIntSet() {
+        SimpleSet set = new SimpleSet();
+        assertTrue(set.add(word("5")));
+        assertTrue(set.add(word("-12")));
+        assertTrue(set.add(ByteWord.create(100L)));
+        assertFalse(set.add(word("5")));
+        assertEquals(3, set.size());
+        assertTrue(set.exist(word("-12")));
+        assertFalse(set.exist(word("7")));
+        assertFalse(set.exist(word("abc")));
+        assertFalse(set.remove(word("abc")));
+        assertTrue(set.isIntSet());
+
+        // integers are visited in ascending order
+        assertEquals(List.of(word("-12"), word("5"), word("100")), toList(set));
+
+        assertTrue(set.remove(word("5")));
+        assertFalse(set.remove(word("5")));
+        assertEquals(List.of(word("-12"), word("100")), toList(set));
+    }
+
+    @Test
+    public void testConvert() {
+        // other forms of an integer are different members, they are not integers
+        SimpleSet set = new SimpleSet();
+        set.add(word("7"));
+        assertFalse(set.exist(word("007")));
+        set.add(word("007"));
+        assertFalse(set.isIntSet());
+        set.add(word("-0"));
+        assertEquals(3, set.size());
+        assertTrue(set.exist(word("7")));
+        assertTrue(set.exist(word("007")));
+        assertTrue(set.exist(word("-0")));
+        assertFalse(set.exist(word("0")));
+
+        set = new SimpleSet();
+        for (int i = 0; i < SimpleSet.MAX_INTSET_ENTRIES; ++i) {
+            set.add(ByteWord.create((long) i * 3));
+        }
+        assertTrue(set.isIntSet());
+        set.add(ByteWord.create(-1L));
+        assertFalse(set.isIntSet());
+        assertEquals(SimpleSet.MAX_INTSET_ENTRIES + 1, set.size());
+        for (int i = 0; i < SimpleSet.MAX_INTSET_ENTRIES; ++i) {
+            assertTrue(set.exist(word(String.valueOf(i * 3))));
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        // compare with HashSet, integers first, then other members convert the set
+        SimpleSet set = new SimpleSet();
+        Set<ByteWord> expected = new HashSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; ++i) {
+            int n = random.nextInt(400) - 200;
+            ByteWord member = word(i < 10000 || random.nextBoolean() ? String.valueOf(n) : "m" + n);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                assertEquals(expected.remove(member), set.remove(member));
+            } else if (op == 1) {
+                assertEquals(expected.contains(member), set.exist(member));
+            } else {
+                assertEquals(expected.add(member), set.add(member));
+            }
+            assertEquals(expected.size(), set.size());
+            if (i == 9999) {
+                assertTrue(set.isIntSet());
+                assertEquals(expected, new HashSet<>(toList(set)));
+            }
+        }
+        assertFalse(set.isIntSet());
+        List<ByteWord> members = toList(set);
+        assertEquals(expected.size(), members.size());
+        assertEquals(expected, new HashSet<>(members));
+        assertNull(set.getData());
+    }
+
+    private static List<ByteWord> toList(SimpleSet set) {
+        List<ByteWord> list = new ArrayList<>();
+        set.forEach(list::add);
+        return list;
+    }
+
+    private static ByteWord word(String str) {
+        return ByteWord.create(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
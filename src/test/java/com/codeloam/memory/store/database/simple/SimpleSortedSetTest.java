@@ -0,0 +1,243 @@
+package com.codeloam.memory.store.database.simple;
+
+import com.codeloam.memory.store.network.ByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test SimpleSortedSet.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class SimpleSortedSetTest {
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::score).thenComparing(Entry::member);
+
+    @Test
+    public void testPacked() {
+        SimpleSortedSet set = new SimpleSortedSet();
+        assertTrue(set.add(word("b"), 2));
+        assertTrue(set.add(word("a"), 2));
+        assertTrue(set.add(word("c"), 1.5));
+        assertFalse(set.add(word("a"), 3));
+        assertEquals(3, set.size());
+        assertTrue(set.isPacked());
+
+        // members with the same score are ordered by bytes
+        assertEquals(List.of(new Entry("c", 1.5), new Entry("b", 2), new Entry("a", 3)), range(set, 0, 3));
+        assertEquals(3, set.getScore(word("a")));
+        assertTrue(Double.isNaN(set.getScore(word("d"))));
+        assertEquals(0, set.getRank(word("c")));
+        assertEquals(2, set.getRank(word("a")));
+        assertEquals(-1, set.getRank(word("d")));
+
+        assertEquals(4, set.incrementScore(word("c"), 2.5));
+        assertEquals(-1, set.incrementScore(word("d"), -1));
+        assertEquals(List.of(new Entry("d", -1), new Entry("b", 2), new Entry("a", 3), new Entry("c", 4)),
+                range(set, 0, 4));
+        assertEquals(List.of(new Entry("b", 2), new Entry("a", 3)), range(set, 1, 3));
+
+        assertTrue(set.remove(word("b")));
+        assertFalse(set.remove(word("b")));
+        assertEquals(3, set.size());
+        assertThrows(IllegalArgumentException.class, () -> set.add(word("e"), Double.NaN));
+        assertNull(set.getData());
+    }
+
+    @Test
+    public void testRangeByScore() {
+        for (int size : new int[]{10, SimpleSortedSet.MAX_PACKED_ENTRIES + 10}) {
+            SimpleSortedSet set = new SimpleSortedSet();
+            for (int i = 0; i < size; ++i) {
+                set.add(ByteWord.create((long) i), i);
+            }
+            assertEquals(size <= SimpleSortedSet.MAX_PACKED_ENTRIES, set.isPacked());
+            assertEquals(List.of(new Entry("2", 2), new Entry("3", 3), new Entry("4", 4)),
+                    rangeByScore(set, 2, false, 4, false, 0, -1));
+            assertEquals(List.of(new Entry("3", 3)), rangeByScore(set, 2, true, 4, true, 0, -1));
+            assertEquals(List.of(new Entry("4", 4), new Entry("5", 5)), rangeByScore(set, 2, false, 9, false, 2, 2));
+            assertEquals(List.of(), rangeByScore(set, 2, false, 4, false, 3, -1));
+            assertEquals(List.of(), rangeByScore(set, 5, false, 4, false, 0, -1));
+            assertEquals(size, rangeByScore(set, Double.NEGATIVE_INFINITY, false, Double.POSITIVE_INFINITY, false,
+                    0, -1).size());
+            assertEquals(List.of(new Entry(String.valueOf(size - 1), size - 1)),
+                    rangeByScore(set, size - 1.5, false, Double.POSITIVE_INFINITY, false, 0, -1));
+            assertEquals(List.of(), rangeByScore(set, size - 1, true, Double.POSITIVE_INFINITY, false, 0, -1));
+        }
+    }
+
+    @Test
+    public void testConvert() {
+        SimpleSortedSet set = new SimpleSortedSet();
+        for (int i = 0; i < SimpleSortedSet.MAX_PACKED_ENTRIES; ++i) {
+            set.add(word("m" + i), i % 10);
+        }
+        assertTrue(set.isPacked());
+        List<Entry> packed = range(set, 0, set.size());
+        set.add(word("m" + SimpleSortedSet.MAX_PACKED_ENTRIES), 100);
+        assertFalse(set.isPacked());
+        assertEquals(packed, range(set, 0, SimpleSortedSet.MAX_PACKED_ENTRIES));
+        for (int i = 0; i < SimpleSortedSet.MAX_PACKED_ENTRIES; ++i) {
+            assertEquals(i % 10, set.getScore(word("m" + i)));
+        }
+
+        // a long member converts the set
+        set = new SimpleSortedSet();
+        set.add(word("a"), 1);
+        set.add(word("x".repeat(SimpleSortedSet.MAX_PACKED_LENGTH + 1)), 0);
+        assertFalse(set.isPacked());
+        assertEquals(1, set.getRank(word("a")));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        // compare with a TreeSet of entries, the set is converted when it grows
+        SimpleSortedSet set = new SimpleSortedSet();
+        TreeSet<Entry> expected = new TreeSet<>(ORDER);
+        Map<String, Double> scores = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 30000; ++i) {
+            String member = "m" + random.nextInt(i < 10000 ? 100 : 2000);
+            double score = random.nextInt(50) - 25;
+            Double old = scores.get(member);
+            int op = random.nextInt(5);
+            if (op == 0) {
+                assertEquals(old != null, set.remove(word(member)));
+                if (old != null) {
+                    expected.remove(new Entry(member, old));
+                    scores.remove(member);
+                }
+            } else if (op == 1) {
+                double result = set.incrementScore(word(member), score);
+                double updated = old == null ? score : old + score;
+                assertEquals(updated, result);
+                put(expected, scores, member, updated);
+            } else if (op == 2) {
+                List<Entry> list = new ArrayList<>(expected);
+                int rank = list.indexOf(new Entry(member, old == null ? 0 : old));
+                assertEquals(old == null ? -1 : rank, set.getRank(word(member)));
+                assertEquals(old == null ? Double.NaN : old, set.getScore(word(member)));
+            } else {
+                assertEquals(old == null, set.add(word(member), score));
+                put(expected, scores, member, score);
+            }
+            assertEquals(expected.size(), set.size());
+            if (i % 500 == 0) {
+                checkRanges(set, expected, random);
+            }
+            if (i == 9999) {
+                assertTrue(set.isPacked());
+            }
+        }
+        assertFalse(set.isPacked());
+        assertEquals(new ArrayList<>(expected), range(set, 0, set.size()));
+        checkRanges(set, expected, random);
+    }
+
+    @Test
+    public void testLargeSet() {
+        SimpleSortedSet set = new SimpleSortedSet();
+        int size = 200000;
+        // scores are added in reverse order, members with the same score are ordered by bytes
+        for (int i = size - 1; i >= 0; --i) {
+            set.add(word(String.format("m%06d", i)), i / 2);
+        }
+        assertEquals(size, set.size());
+        for (int i = 0; i < size; i += 997) {
+            assertEquals(i, set.getRank(word(String.format("m%06d", i))));
+        }
+        List<Entry> entries = range(set, 150000, 150003);
+        assertEquals(List.of(new Entry("m150000", 75000), new Entry("m150001", 75000), new Entry("m150002", 75001)),
+                entries);
+        assertEquals(List.of(new Entry("m180001", 90000), new Entry("m180002", 90001)),
+                rangeByScore(set, 90000, false, 100000, false, 1, 2));
+
+        // remove every other member, ranks of others are updated
+        for (int i = 0; i < size; i += 2) {
+            assertTrue(set.remove(word(String.format("m%06d", i))));
+        }
+        assertEquals(size / 2, set.size());
+        assertEquals(50000, set.getRank(word("m100001")));
+        // moving the last member to the front
+        set.add(word("m199999"), -1);
+        assertEquals(0, set.getRank(word("m199999")));
+        assertEquals(1, set.getRank(word("m000001")));
+    }
+
+    private static void checkRanges(SimpleSortedSet set, TreeSet<Entry> expected, Random random) {
+        List<Entry> list = new ArrayList<>(expected);
+        for (int i = 0; i < 10; ++i) {
+            int from = random.nextInt(list.size() + 1);
+            int to = from + random.nextInt(list.size() - from + 1);
+            assertEquals(list.subList(from, to), range(set, from, to));
+
+            double min = random.nextInt(60) - 30;
+            double max = min + random.nextInt(20);
+            boolean minExclusive = random.nextBoolean();
+            boolean maxExclusive = random.nextBoolean();
+            int offset = random.nextInt(5);
+            int count = random.nextInt(10) - 1;
+            List<Entry> matched = new ArrayList<>();
+            for (Entry entry : list) {
+                boolean aboveMin = minExclusive ? entry.score > min : entry.score >= min;
+                boolean belowMax = maxExclusive ? entry.score < max : entry.score <= max;
+                if (aboveMin && belowMax) {
+                    matched.add(entry);
+                }
+            }
+            matched = matched.subList(Math.min(offset, matched.size()), matched.size());
+            if (count >= 0 && count < matched.size()) {
+                matched = matched.subList(0, count);
+            }
+            assertEquals(matched, rangeByScore(set, min, minExclusive, max, maxExclusive, offset, count));
+        }
+    }
+
+    private static void put(TreeSet<Entry> expected, Map<String, Double> scores, String member, double score) {
+        Double old = scores.put(member, score);
+        if (old != null) {
+            expected.remove(new Entry(member, old));
+        }
+        expected.add(new Entry(member, score));
+    }
+
+    private static List<Entry> range(SimpleSortedSet set, int from, int to) {
+        List<Entry> list = new ArrayList<>();
+        set.range(from, to, (member, score) -> list.add(new Entry(str(member), score)));
+        return list;
+    }
+
+    private static List<Entry> rangeByScore(SimpleSortedSet set, double min, boolean minExclusive,
+                                            double max, boolean maxExclusive, int offset, int count) {
+        List<Entry> list = new ArrayList<>();
+        set.rangeByScore(min, minExclusive, max, maxExclusive, offset, count,
+                (member, score) -> list.add(new Entry(str(member), score)));
+        return list;
+    }
+
+    private static String str(ByteWord word) {
+        return new String(word.get(), StandardCharsets.UTF_8);
+    }
+
+    private static ByteWord word(String str) {
+        return ByteWord.create(str.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Entry(String member, double score) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.codeloam.memory.store.measure;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test LatencyHistogram.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void testBuckets() {
+        int lastIndex = -1;
+        long lastUpperBound = -1;
+        for (long value = 0; value < 1 << 20; ++value) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upperBound = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(value <= upperBound, "value " + value);
+            if (index != lastIndex) {
+                assertEquals(lastIndex + 1, index, "value " + value);
+                assertEquals(lastUpperBound + 1, value, "value " + value);
+                lastIndex = index;
+                lastUpperBound = upperBound;
+            }
+            // precision of a bucket is 1/16
+            assertTrue(upperBound - value <= value / 16, "value " + value);
+        }
+        long max = Long.MAX_VALUE;
+        assertEquals(max, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(max)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMax());
+
+        for (int i = 1; i <= 1000; ++i) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean());
+        assertEquals(1000000, histogram.getMax());
+        assertPercentile(1000, histogram.getValueAtPercentile(0));
+        assertPercentile(500000, histogram.getValueAtPercentile(50));
+        assertPercentile(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+        histogram.record(-1);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    @Test
+    public void testMultiplePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertArrayEquals(new long[] {0, 0}, histogram.getValuesAtPercentiles(50, 99));
+        for (int i = 1; i <= 100; ++i) {
+            histogram.record(i * 100L);
+        }
+        long[] values = histogram.getValuesAtPercentiles(0, 50, 50, 99, 100);
+        assertEquals(5, values.length);
+        for (int i = 0; i < values.length; ++i) {
+            assertEquals(histogram.getValueAtPercentile(new double[] {0, 50, 50, 99, 100}[i]), values[i]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValuesAtPercentiles(99, 50));
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            long value = (i + 1) * 100L;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10000; ++j) {
+                    histogram.record(value);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(250, histogram.getMean());
+        assertEquals(400, histogram.getMax());
+        assertPercentile(100, histogram.getValueAtPercentile(25));
+        assertPercentile(300, histogram.getValueAtPercentile(75));
+    }
+
+    private static void assertPercentile(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16, expected + " ~ " + actual);
+    }
+}
@@ -0,0 +1,70 @@
+package com.codeloam.memory.store.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test BufferPool.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class BufferPoolTest {
+    @Test
+    public void testAcquireAndRelease() {
+        BufferPool pool = new BufferPool(64);
+        ByteBuffer buffer = pool.acquire();
+        assertTrue(buffer.isDirect());
+        assertEquals(64, buffer.capacity());
+        assertEquals(0, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals(1, pool.getPooledCount());
+        ByteBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position(), "buffer should be cleared");
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void testMaxPooled() {
+        BufferPool pool = new BufferPool(64, 1);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getPooledCount());
+
+        // buffers not from the pool are dropped
+        pool.acquire();
+        pool.release(ByteBuffer.allocate(64));
+        pool.release(ByteBuffer.allocateDirect(32));
+        assertEquals(0, pool.getPooledCount());
+        assertNotSame(first, pool.acquire());
+        assertEquals(3, pool.getMissCount());
+    }
+
+    @Test
+    public void testHeapBuffers() {
+        BufferPool pool = new BufferPool(64, 1, false);
+        ByteBuffer buffer = pool.acquire();
+        assertFalse(buffer.isDirect());
+        assertTrue(buffer.hasArray());
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire());
+
+        // direct buffers are not from the pool
+        pool.release(ByteBuffer.allocateDirect(64));
+        assertEquals(0, pool.getPooledCount());
+    }
+}
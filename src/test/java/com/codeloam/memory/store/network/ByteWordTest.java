@@ -0,0 +1,82 @@
+package com.codeloam.memory.store.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.codeloam.memory.store.util.ByteWordFactory.getMultiByteWord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test ByteWord.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ByteWordTest {
+    @Test
+    public void testLong() {
+        for (String str : List.of("0", "123", "-45", "-0", "9223372036854775807", "-9223372036854775808")) {
+            for (ByteWord word : words(str)) {
+                assertTrue(word.isNumber(), str);
+                assertTrue(word.isLong(), str);
+                assertFalse(word.isDouble(), str);
+                assertEquals(Long.parseLong(str), word.getLong(), str);
+                assertEquals(Long.parseLong(str), word.getNumber(), str);
+                assertEquals(Double.parseDouble(str), word.getDouble(), str);
+            }
+        }
+    }
+
+    @Test
+    public void testDouble() {
+        for (String str : List.of("0.5", "-12.25", "3.14159", "0.1", "123456789.123456", "-0.000000000000000001",
+                "9223372036854775808", "-9223372036854775809", "12345678901234567890.5")) {
+            for (ByteWord word : words(str)) {
+                assertTrue(word.isNumber(), str);
+                assertFalse(word.isLong(), str);
+                assertTrue(word.isDouble(), str);
+                assertEquals(Double.parseDouble(str), word.getDouble(), str);
+                assertEquals(0, word.getNumber(), str);
+                assertThrows(NumberFormatException.class, word::getLong, str);
+            }
+        }
+    }
+
+    @Test
+    public void testNotNumber() {
+        for (String str : List.of("a", "-", "1a", "1.", ".5", "-.5", "1.2.3", "1-", "--1", "+1", " 1", "1e5")) {
+            for (ByteWord word : words(str)) {
+                assertFalse(word.isNumber(), str);
+                assertFalse(word.isLong(), str);
+                assertFalse(word.isDouble(), str);
+                assertThrows(NumberFormatException.class, word::getLong, str);
+                assertThrows(NumberFormatException.class, word::getDouble, str);
+            }
+        }
+        assertFalse(ByteWord.NULL.isNumber());
+    }
+
+    @Test
+    public void testNumberWords() {
+        ByteWord word = ByteWord.create(-10L);
+        assertTrue(word.isLong());
+        assertEquals(-10L, word.getLong());
+        word = ByteWord.create(1.5);
+        assertTrue(word.isDouble());
+        assertEquals(1.5, word.getDouble());
+    }
+
+    private static List<ByteWord> words(String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+        buffer.put(1, bytes);
+        return List.of(ByteWord.create(str), getMultiByteWord(str), ByteWord.slice(buffer, 1, bytes.length),
+                ByteWord.create(List.of(bytes, new byte[0])));
+    }
+}
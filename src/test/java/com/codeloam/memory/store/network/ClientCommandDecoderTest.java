@@ -0,0 +1,194 @@
+package com.codeloam.memory.store.network;
+
+import com.codeloam.memory.store.command.InvalidCommandException;
+import com.codeloam.memory.store.util.ByteWordFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test ClientCommandDecoder.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class ClientCommandDecoderTest {
+    private static final int MAX_COMMAND_LENGTH = 512 * 1024 * 1024 + 1024 * 1024;
+
+    @Test
+    public void testDecodeResp() {
+        String commands = "+OK\r\n"
+                + "-ERROR\r\n"
+                + ":1000\r\n"
+                + "$5\r\nhello\r\n"
+                + "$-1\r\n"
+                + "*-1\r\n"
+                + "*4\r\n+OK\r\n-ERROR\r\n:-1000\r\n$5\r\nhello\r\n"
+                + "*2\r\n*2\r\n$1\r\na\r\n$1\r\nb\r\n$1\r\nc\r\n";
+        List<List<ByteWord>> expectedResults = List.of(
+                List.of(getByteWord("OK")),
+                List.of(getByteWord("ERROR")),
+                List.of(getByteWord(1000)),
+                List.of(getByteWord("hello")),
+                Arrays.asList(new ByteWord[]{null}),
+                Arrays.asList(new ByteWord[]{null}),
+                List.of(getByteWord("OK"), getByteWord("ERROR"), getByteWord(-1000), getByteWord("hello")),
+                List.of(getByteWord("a"), getByteWord("b"), getByteWord("c"))
+        );
+        assertEquals(expectedResults, decodeAll(commands, 1024));
+    }
+
+    @Test
+    public void testDecodeByteByByte() {
+        String commands = "*2\r\n$3\r\nGET\r\n$3\r\nkey\r\n"
+                + "$4\r\nPING\r\n"
+                + "SET key \"hello world\"\r\n"
+                + "*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$0\r\n\r\n";
+        List<List<ByteWord>> expectedResults = List.of(
+                List.of(getByteWord("GET"), getByteWord("key")),
+                List.of(getByteWord("PING")),
+                List.of(getByteWord("SET"), getByteWord("key"), getByteWord("\"hello world\"")),
+                List.of(getByteWord("SET"), getByteWord("key"))
+        );
+        // every chunk size must produce the same commands
+        for (int chunk = 1; chunk <= 8; ++chunk) {
+            assertEquals(expectedResults, decodeAll(commands, chunk), "chunk size " + chunk);
+        }
+    }
+
+    @Test
+    public void testIncompleteBulkString() {
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH);
+        ByteBuffer buf = wrap("*2\r\n$3\r\nGET\r\n$5\r\nhel");
+        assertNull(decoder.decode(buf));
+        assertFalse(buf.hasRemaining(), "received bytes should be consumed");
+        assertTrue(decoder.isDecoding());
+
+        buf = wrap("lo\r\n*1\r\n$4\r\nPI");
+        assertEquals(List.of(getByteWord("GET"), getByteWord("hello")), decoder.decode(buf));
+        assertNull(decoder.decode(buf));
+
+        buf = wrap("NG\r\n");
+        assertEquals(List.of(getByteWord("PING")), decoder.decode(buf));
+        assertFalse(decoder.isDecoding());
+    }
+
+    @Test
+    public void testFinish() {
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH);
+        assertNull(decoder.decode(wrap("GET key")));
+        assertEquals(List.of(getByteWord("GET"), getByteWord("key")), decoder.finish());
+        assertNull(decoder.finish());
+
+        assertNull(decoder.decode(wrap("$5\r\nhel")));
+        assertNull(decoder.finish(), "incomplete RESP data is not a command");
+    }
+
+    @Test
+    public void testInvalidCommand() {
+        assertThrows(InvalidCommandException.class,
+                () -> new ClientCommandDecoder(MAX_COMMAND_LENGTH).decode(wrap("*2\r\nGET\r\n")));
+        assertThrows(InvalidCommandException.class,
+                () -> new ClientCommandDecoder(MAX_COMMAND_LENGTH).decode(wrap("$abc\r\n")));
+    }
+
+    @Test
+    public void testCommandTooLong() {
+        assertThrows(InvalidCommandException.class,
+                () -> new ClientCommandDecoder(16).decode(wrap("$100\r\n")));
+        assertThrows(InvalidCommandException.class,
+                () -> new ClientCommandDecoder(16).decode(wrap("SET key 01234567890123456789")));
+    }
+
+    @Test
+    public void testBulkStringReferencesBuffer() {
+        byte[] bytes = "*2\r\n$3\r\nGET\r\n$5\r\nhello\r\n".getBytes(StandardCharsets.UTF_8);
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH);
+        List<ByteWord> words = decoder.decode(ByteBuffer.wrap(bytes));
+        assertEquals(List.of(getByteWord("GET"), getByteWord("hello")), words);
+        ByteWord compacted = words.get(1).compact();
+
+        // words are not copied, but compacted word is
+        Arrays.fill(bytes, (byte) 'x');
+        assertEquals(getByteWord("xxx"), words.get(0));
+        assertEquals(getByteWord("hello"), compacted);
+    }
+
+    @Test
+    public void testIncompleteCommandDoesNotReferenceBuffer() {
+        byte[] bytes = "*2\r\n$3\r\nGET\r\n$5\r\nhel".getBytes(StandardCharsets.UTF_8);
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH);
+        assertNull(decoder.decode(ByteBuffer.wrap(bytes)));
+        // buffer is reused by next read
+        Arrays.fill(bytes, (byte) 'x');
+        assertEquals(List.of(getByteWord("GET"), getByteWord("hello")), decoder.decode(wrap("lo\r\n")));
+    }
+
+    @Test
+    public void testLargeBulkStringIsReadOffHeap() {
+        String value = "0123456789abcdefghij";
+        byte[] bytes = ("*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$20\r\n" + value + "\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        // a bulk string that arrives in one read or in pieces is read to off-heap memory
+        for (int chunk : new int[]{bytes.length, 7, 1}) {
+            ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH, 16);
+            List<ByteWord> words = null;
+            for (int offset = 0; offset < bytes.length; offset += chunk) {
+                byte[] piece = Arrays.copyOfRange(bytes, offset, Math.min(offset + chunk, bytes.length));
+                words = decoder.decode(ByteBuffer.wrap(piece));
+                if (words == null) {
+                    // buffer is reused by next read
+                    Arrays.fill(piece, (byte) 'x');
+                }
+            }
+            assertEquals(List.of(getByteWord("SET"), getByteWord("key"), getByteWord(value)), words, "chunk " + chunk);
+            assertTrue(words.get(2) instanceof OffHeapByteWord, "chunk " + chunk);
+            assertFalse(words.get(1) instanceof OffHeapByteWord, "chunk " + chunk);
+            // server releases words after the command
+            OffHeapByteWord offHeapByteWord = (OffHeapByteWord) words.get(2);
+            OffHeapByteWord.release(words);
+            assertEquals(0, offHeapByteWord.getRefCount(), "chunk " + chunk);
+        }
+
+        // an incomplete command is dropped when the connection is closed
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH, 16);
+        assertNull(decoder.decode(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 5))));
+        decoder.discard();
+    }
+
+    private List<List<ByteWord>> decodeAll(String commands, int chunk) {
+        byte[] bytes = commands.getBytes(StandardCharsets.UTF_8);
+        ClientCommandDecoder decoder = new ClientCommandDecoder(MAX_COMMAND_LENGTH);
+        List<List<ByteWord>> results = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunk) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes, offset, Math.min(chunk, bytes.length - offset));
+            List<ByteWord> words;
+            while ((words = decoder.decode(buf)) != null) {
+                results.add(words);
+            }
+        }
+        return results;
+    }
+
+    private ByteBuffer wrap(String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ByteWord getByteWord(String word) {
+        return ByteWordFactory.getByteWord(word);
+    }
+
+    private ByteWord getByteWord(long word) {
+        return ByteWordFactory.getByteWord(word);
+    }
+}
@@ -0,0 +1,90 @@
+package com.codeloam.memory.store.network;
+
+import com.codeloam.memory.store.network.data.NetworkBulkString;
+import com.codeloam.memory.store.network.data.StreamDataWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test OffHeapByteWord.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class OffHeapByteWordTest {
+    @Test
+    public void testCreate() {
+        ByteWord word = ByteWord.create("hello world");
+        OffHeapByteWord offHeapWord = OffHeapByteWord.create(word);
+        assertEquals(word.size(), offHeapWord.size());
+        assertArrayEquals(word.get(), offHeapWord.get());
+        assertEquals(word, offHeapWord);
+        assertEquals(word.hashCode(), offHeapWord.hashCode());
+        assertTrue(offHeapWord.getBuffer().isReadOnly());
+    }
+
+    @Test
+    public void testCreateFromWords() {
+        byte[] bytes = "hello world".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2).put(1, bytes);
+        List<ByteWord> words = List.of(ByteWord.slice(ByteBuffer.wrap(bytes), 0, bytes.length),
+                ByteWord.slice(direct, 1, bytes.length),
+                ByteWord.create(List.of("hello".getBytes(StandardCharsets.UTF_8),
+                        " world".getBytes(StandardCharsets.UTF_8))),
+                OffHeapByteWord.create(ByteWord.create(bytes)));
+        for (ByteWord word : words) {
+            OffHeapByteWord offHeapWord = OffHeapByteWord.create(word);
+            assertArrayEquals(bytes, offHeapWord.get(), word.toString());
+        }
+        assertEquals("12345", OffHeapByteWord.create(ByteWord.create(12345L)).getString());
+    }
+
+    @Test
+    public void testCompact() {
+        OffHeapByteWord owner = OffHeapByteWord.create(ByteWord.create("hello"));
+        ByteWord compacted = owner.compact();
+        owner.release();
+        assertFalse(compacted instanceof OffHeapByteWord);
+        assertEquals(ByteWord.create("hello"), compacted);
+    }
+
+    @Test
+    public void testRetainAndRelease() {
+        OffHeapByteWord owner = OffHeapByteWord.create(ByteWord.create("hello"));
+        OffHeapByteWord view = owner.retain();
+        owner.release();
+        // released twice does nothing
+        owner.release();
+        assertThrows(IllegalStateException.class, owner::get);
+        assertEquals("hello", view.getString(), "memory is kept until all views are released");
+        view.release();
+        assertThrows(IllegalStateException.class, view::retain);
+    }
+
+    @Test
+    public void testWriteBulkString() {
+        OffHeapByteWord owner = OffHeapByteWord.create(ByteWord.create("hello"));
+        OffHeapByteWord view = owner.retain();
+        owner.release();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            new NetworkBulkString(view).write(new StreamDataWriter(outputStream));
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        assertEquals("$5\r\nhello\r\n", outputStream.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, view::get, "view is released after written");
+    }
+}
@@ -1,9 +1,124 @@
 package com.codeloam.memory.store.network.bio;
 
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * Test class BioServer.
  *
  * @author jinyu.li
  */
 public class BioServerTest {
+    private static final String HOST = "127.0.0.1";
+
+    @Test
+    public void testConcurrentConnections() throws Exception {
+        int port = getFreePort();
+        BioServer server = startServer(port);
+        try (Socket first = connect(port); Socket second = connect(port)) {
+            // the first connection stays open and idle while the second one is served
+            assertEquals("+OK\r\n", send(first, "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$1\r\n1\r\n", 5));
+            assertEquals("$1\r\n1\r\n", send(second, "*2\r\n$3\r\nGET\r\n$1\r\na\r\n", 7));
+            assertEquals("+OK\r\n", send(second, "*3\r\n$3\r\nSET\r\n$1\r\nb\r\n$1\r\n2\r\n", 5));
+            assertEquals("$1\r\n2\r\n", send(first, "*2\r\n$3\r\nGET\r\n$1\r\nb\r\n", 7));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testSystemCommands() throws Exception {
+        int port = getFreePort();
+        BioServer server = startServer(port);
+        try (Socket socket = connect(port)) {
+            assertEquals("+PONG\r\n", send(socket, "*1\r\n$4\r\nPING\r\n", 7));
+            send(socket, "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$1\r\n1\r\n", 5);
+            send(socket, "*3\r\n$3\r\nSET\r\n$1\r\nb\r\n$1\r\n2\r\n", 5);
+            send(socket, "*2\r\n$3\r\nGET\r\n$1\r\na\r\n", 7);
+
+            String info = sendForBulkString(socket, "*1\r\n$4\r\nINFO\r\n");
+            for (String section : new String[]{"# Server", "# Clients", "# Stats", "# Commandstats", "# Keyspace"}) {
+                assertTrue(info.contains(section + "\r\n"), section);
+            }
+            assertTrue(info.contains("\r\nkeys:2\r\n"), info);
+            assertTrue(info.contains("\r\ncmdstat_set:calls=2,"), info);
+            assertTrue(info.contains("\r\ncmdstat_get:calls=1,"), info);
+        } finally {
+            server.close();
+        }
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static BioServer startServer(int port) {
+        BioServer server = new BioServer(HOST, port);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (RuntimeException e) {
+                // thrown by accept when server is closed
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+        return server;
+    }
+
+    private static Socket connect(int port) throws Exception {
+        for (int i = 0; ; ++i) {
+            try {
+                Socket socket = new Socket(HOST, port);
+                // a blocked read fails the test instead of hanging
+                socket.setSoTimeout(5000);
+                return socket;
+            } catch (ConnectException e) {
+                // server is not listening yet
+                if (i >= 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static String send(Socket socket, String request, int responseLength) throws IOException {
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        InputStream inputStream = socket.getInputStream();
+        byte[] response = inputStream.readNBytes(responseLength);
+        return new String(response, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Send a request whose response is a bulk string of unknown length.
+     *
+     * @return content of the bulk string
+     */
+    private static String sendForBulkString(Socket socket, String request) throws IOException {
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        InputStream inputStream = socket.getInputStream();
+        StringBuilder header = new StringBuilder();
+        int b;
+        while ((b = inputStream.read()) >= 0 && b != '\n') {
+            header.append((char) b);
+        }
+        assertEquals('$', header.charAt(0), header.toString());
+        int length = Integer.parseInt(header.substring(1).trim());
+        byte[] content = inputStream.readNBytes(length + 2);
+        return new String(content, 0, length, StandardCharsets.UTF_8);
+    }
 }
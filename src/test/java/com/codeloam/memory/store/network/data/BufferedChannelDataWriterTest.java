@@ -0,0 +1,183 @@
+package com.codeloam.memory.store.network.data;
+
+import com.codeloam.memory.store.network.BufferPool;
+import com.codeloam.memory.store.network.ByteWord;
+import com.codeloam.memory.store.network.OffHeapByteWord;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test BufferedChannelDataWriter.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class BufferedChannelDataWriterTest {
+    @Test
+    public void testCoalesceResponses() {
+        SlowChannel channel = new SlowChannel(1024);
+        BufferedChannelDataWriter writer = new BufferedChannelDataWriter(channel, new BufferPool(64));
+        try {
+            NetworkSimpleString.OK.write(writer);
+            new NetworkBulkString(ByteWord.create("hello")).write(writer);
+            writer.flush();
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        assertEquals("+OK\r\n$5\r\nhello\r\n", channel.getString());
+        assertEquals(1, channel.writeCount, "responses should be written together");
+    }
+
+    @Test
+    public void testGatherLargePayload() {
+        byte[] value = new byte[200];
+        Arrays.fill(value, (byte) 'a');
+        // a write only takes part of data
+        SlowChannel channel = new SlowChannel(30);
+        BufferedChannelDataWriter writer = new BufferedChannelDataWriter(channel, new BufferPool(64));
+        try {
+            new NetworkBulkString(ByteWord.create(value)).write(writer);
+            new NetworkBulkString(ByteWord.slice(ByteBuffer.wrap(value), 0, 100)).write(writer);
+            writer.flush();
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        String a = new String(value, StandardCharsets.UTF_8);
+        assertEquals("$200\r\n" + a + "\r\n$100\r\n" + a.substring(100) + "\r\n", channel.getString());
+        assertEquals(0, writer.size());
+    }
+
+    @Test
+    public void testQueueOutputWhenChannelIsFull() {
+        byte[] value = new byte[200];
+        Arrays.fill(value, (byte) 'a');
+        SlowChannel channel = new SlowChannel(1024);
+        channel.capacity = 0;
+        BufferedChannelDataWriter writer = new BufferedChannelDataWriter(channel, new BufferPool(64));
+        try {
+            new NetworkBulkString(ByteWord.create(value)).write(writer);
+            // payload is copied to queue, changing it does not change output
+            Arrays.fill(value, (byte) 'b');
+            NetworkSimpleString.OK.write(writer);
+            assertFalse(writer.flush());
+            assertEquals(213, writer.getPendingSize());
+
+            channel.capacity = 100;
+            assertFalse(writer.flush());
+            assertEquals(113, writer.getPendingSize());
+            channel.capacity = Integer.MAX_VALUE;
+            assertTrue(writer.flush());
+            assertEquals(0, writer.size());
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        assertEquals("$200\r\n" + "a".repeat(200) + "\r\n+OK\r\n", channel.getString());
+    }
+
+    @Test
+    public void testQueueOffHeapWord() {
+        OffHeapByteWord word = OffHeapByteWord.create(ByteWord.create("a".repeat(200)));
+        SlowChannel channel = new SlowChannel(1024);
+        channel.capacity = 0;
+        BufferedChannelDataWriter writer = new BufferedChannelDataWriter(channel, new BufferPool(64));
+        try {
+            // the response releases its view after writing, memory is kept by the writer
+            new NetworkBulkString(word.retain()).write(writer);
+            NetworkSimpleString.OK.write(writer);
+            assertFalse(writer.flush());
+            assertEquals(213, writer.getPendingSize());
+            assertEquals(2, word.getRefCount());
+
+            channel.capacity = 100;
+            assertFalse(writer.flush());
+            assertEquals(2, word.getRefCount());
+            channel.capacity = Integer.MAX_VALUE;
+            assertTrue(writer.flush());
+            assertEquals(1, word.getRefCount());
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        assertEquals("$200\r\n" + "a".repeat(200) + "\r\n+OK\r\n", channel.getString());
+
+        // queued memory is released when output is discarded
+        channel.capacity = 0;
+        writer = new BufferedChannelDataWriter(channel, new BufferPool(64));
+        try {
+            new NetworkBulkString(word.retain()).write(writer);
+        } catch (IOException e) {
+            fail("should not throw exception", e);
+        }
+        assertEquals(2, word.getRefCount());
+        writer.discard();
+        assertEquals(1, word.getRefCount());
+        word.release();
+    }
+
+    /**
+     * Channel that takes at most given bytes in each write, and at most capacity bytes in total.
+     */
+    private static class SlowChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final int maxBytes;
+        private int capacity = Integer.MAX_VALUE;
+        private int writeCount;
+
+        SlowChannel(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        String getString() {
+            return output.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            writeCount++;
+            long written = 0;
+            for (int i = offset; i < offset + length && written < maxBytes; ++i) {
+                written += transfer(srcs[i], (int) (maxBytes - written));
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            writeCount++;
+            return transfer(src, maxBytes);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private int transfer(ByteBuffer src, int max) {
+            int size = Math.min(Math.min(src.remaining(), max), capacity);
+            capacity -= size;
+            for (int i = 0; i < size; ++i) {
+                output.write(src.get());
+            }
+            return size;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.codeloam.memory.store.network.data;
 
 import com.codeloam.memory.store.command.InvalidCommandException;
+import com.codeloam.memory.store.network.BufferPool;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
@@ -8,9 +9,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doThrow;
@@ -229,6 +232,30 @@ public class StreamDataReaderTest {
         }
     }
 
+    @Test
+    public void testBorrowBuffer() throws IOException {
+        InputStream stream = new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6});
+        BufferPool pool = new BufferPool(4, 1, false);
+        StreamDataReader reader = new StreamDataReader(stream, pool, 1024);
+        assertEquals((byte) 1, reader.peek());
+        assertEquals(1, pool.getMissCount());
+
+        // buffer is not released until all read data is consumed
+        assertArrayEquals(new byte[]{1, 2}, reader.read(2));
+        reader.releaseBuffer();
+        assertEquals(0, pool.getPooledCount());
+        assertArrayEquals(new byte[]{3, 4}, reader.read(2));
+        reader.releaseBuffer();
+        assertEquals(1, pool.getPooledCount());
+
+        // buffer is borrowed again for the following data
+        assertArrayEquals(new byte[]{5, 6}, reader.read(2));
+        assertEquals(1, pool.getHitCount());
+        reader.releaseBuffer();
+        assertNull(reader.peek());
+        assertEquals(1, pool.getPooledCount());
+    }
+
     @Test
     public void testReadWithException() {
         InputStream stream = mock(InputStream.class);
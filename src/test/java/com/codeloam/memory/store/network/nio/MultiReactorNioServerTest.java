@@ -0,0 +1,102 @@
+package com.codeloam.memory.store.network.nio;
+
+import com.codeloam.memory.store.database.DatabaseType;
+import com.codeloam.memory.store.network.ClientRequestProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test MultiReactorNioServer.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class MultiReactorNioServerTest {
+    private static final String HOST = "127.0.0.1";
+
+    @Test
+    public void testPipelinedConnections() throws Exception {
+        int port = getFreePort();
+        MultiReactorNioServer server = new MultiReactorNioServer(HOST, port, new ClientRequestProcessor(),
+                DatabaseType.Simple, 2, false);
+        testPipelinedConnections(server, port);
+    }
+
+    @Test
+    public void testPipelinedConnectionsWithReusePort() throws Exception {
+        int port = getFreePort();
+        MultiReactorNioServer server = new MultiReactorNioServer(HOST, port, new ClientRequestProcessor(),
+                DatabaseType.Sharded, 2, true);
+        testPipelinedConnections(server, port);
+    }
+
+    /**
+     * Two connections are handled by different reactors, each of them sends pipelined commands.
+     */
+    private static void testPipelinedConnections(MultiReactorNioServer server, int port) throws Exception {
+        start(server);
+        try (Socket first = connect(port); Socket second = connect(port)) {
+            assertEquals("+OK\r\n+OK\r\n$1\r\n1\r\n", send(first, "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$1\r\n1\r\n"
+                    + "*3\r\n$3\r\nSET\r\n$1\r\nb\r\n$1\r\n2\r\n"
+                    + "*2\r\n$3\r\nGET\r\n$1\r\na\r\n", 17));
+            // SET returns the old value of an existing key
+            assertEquals("$1\r\n1\r\n$1\r\n2\r\n$1\r\n1\r\n", send(second, "*2\r\n$3\r\nGET\r\n$1\r\na\r\n"
+                    + "*2\r\n$3\r\nGET\r\n$1\r\nb\r\n"
+                    + "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$1\r\n3\r\n", 21));
+            assertEquals("$1\r\n3\r\n", send(first, "*2\r\n$3\r\nGET\r\n$1\r\na\r\n", 7));
+        } finally {
+            server.close();
+        }
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void start(AbstractNioServer server) {
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (RuntimeException e) {
+                // thrown by select when server is closed
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    private static Socket connect(int port) throws Exception {
+        for (int i = 0; ; ++i) {
+            try {
+                Socket socket = new Socket(HOST, port);
+                // a blocked read fails the test instead of hanging
+                socket.setSoTimeout(5000);
+                return socket;
+            } catch (ConnectException e) {
+                // server is not listening yet
+                if (i >= 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static String send(Socket socket, String request, int responseLength) throws IOException {
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+        InputStream inputStream = socket.getInputStream();
+        byte[] response = inputStream.readNBytes(responseLength);
+        return new String(response, StandardCharsets.UTF_8);
+    }
+}
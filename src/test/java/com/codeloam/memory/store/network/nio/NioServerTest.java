@@ -0,0 +1,84 @@
+package com.codeloam.memory.store.network.nio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test NioServer.
+ *
+ * @author jinyu.li
+ * @since 1.0
+ */
+public class NioServerTest {
+    private static final String HOST = "127.0.0.1";
+
+    @Test
+    @Timeout(10)
+    public void testUnixSocket() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Path dir = Files.createTempDirectory("jimds");
+        Path path = dir.resolve("jimds.sock");
+        NioServer server = new NioServer(HOST, port);
+        server.setUnixSocketPath(path);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (RuntimeException e) {
+                // thrown by select when server is closed
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        try (SocketChannel channel = connect(path)) {
+            assertEquals("+OK\r\n$1\r\n1\r\n", send(channel, "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$1\r\n1\r\n"
+                    + "*2\r\n$3\r\nGET\r\n$1\r\na\r\n", 12));
+        } finally {
+            server.close();
+        }
+        // socket file is removed when server is closed
+        assertFalse(Files.exists(path));
+        Files.delete(dir);
+    }
+
+    private static SocketChannel connect(Path path) throws Exception {
+        for (int i = 0; ; ++i) {
+            try {
+                return SocketChannel.open(UnixDomainSocketAddress.of(path));
+            } catch (IOException e) {
+                // server is not listening yet
+                if (i >= 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static String send(SocketChannel channel, String request, int responseLength) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(request.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ByteBuffer response = ByteBuffer.allocate(responseLength);
+        while (response.hasRemaining() && channel.read(response) >= 0) {
+            // read until all bytes of response arrive
+        }
+        return new String(response.array(), 0, response.position(), StandardCharsets.UTF_8);
+    }
+}